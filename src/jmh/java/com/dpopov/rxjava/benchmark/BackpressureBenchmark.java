@@ -0,0 +1,166 @@
+package com.dpopov.rxjava.benchmark;
+
+import com.dpopov.rxjava.concurrent.OverflowPolicy;
+import com.dpopov.rxjava.v1.batch.IntBatch;
+import com.dpopov.rxjava.v1.batch.IntBatchPool;
+import com.dpopov.rxjava.v1.batch.IntBatcher;
+import com.dpopov.rxjava.v1.operators.IntBufferOperator;
+import com.dpopov.rxjava.v1.operators.RingBufferBackpressureOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import rx.BackpressureOverflow;
+import rx.subjects.PublishSubject;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-item cost of the strategies {@code BackpressureBasics} applies to its hot {@code PublishSubject}, with a synchronous consumer,
+ * so that only the strategy itself is measured.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BackpressureBenchmark {
+    private static final int ITEMS = 100_000;
+
+    private Integer[] values; // boxed once, boxing is not the subject here
+    private final IntBatchPool pool = IntBatchPool.create(4, 1024);
+
+    @Setup(Level.Trial)
+    public void createValues() {
+        values = new Integer[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            values[i] = i;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void buffer(final Blackhole blackhole) {
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        subject
+            .buffer(1024)
+            .subscribe(blackhole::consume)
+        ;
+
+        emit(subject);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void boxingBuffer(final Blackhole blackhole) { // buffer of a primitive source, as BackpressureBasics had it
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        subject
+            .buffer(1024)
+            .subscribe(blackhole::consume)
+        ;
+
+        for (int i = 0; i < ITEMS; i++) {
+            subject.onNext(i);
+        }
+        subject.onCompleted();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void intBufferOperator(final Blackhole blackhole) {
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        subject
+            .lift( IntBufferOperator.create(pool) )
+            .subscribe( batch -> consume(blackhole, batch) )
+        ;
+
+        emit(subject);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void intBatcher(final Blackhole blackhole) {
+        final PublishSubject<IntBatch> subject = PublishSubject.create();
+        subject.subscribe( batch -> consume(blackhole, batch) );
+
+        final IntBatcher batcher = IntBatcher.create(pool, subject);
+        for (int i = 0; i < ITEMS; i++) {
+            batcher.onNext(i);
+        }
+        batcher.onCompleted();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void window(final Blackhole blackhole) {
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        subject
+            .window(1024)
+            .subscribe( window -> window.subscribe(blackhole::consume) )
+        ;
+
+        emit(subject);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void timedWindow(final Blackhole blackhole) {
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        subject
+            .window(1, TimeUnit.MILLISECONDS)
+            .subscribe( window -> window.subscribe(blackhole::consume) )
+        ;
+
+        emit(subject);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void sample(final Blackhole blackhole) {
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        subject
+            .sample(1, TimeUnit.MILLISECONDS)
+            .subscribe(blackhole::consume)
+        ;
+
+        emit(subject);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void onBackpressureBuffer(final Blackhole blackhole) {
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        subject
+            .onBackpressureBuffer(1024, null, BackpressureOverflow.ON_OVERFLOW_DROP_OLDEST)
+            .subscribe(blackhole::consume)
+        ;
+
+        emit(subject);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void ringBufferBackpressure(final Blackhole blackhole) {
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        subject
+            .lift( RingBufferBackpressureOperator.<Integer>create(1024, OverflowPolicy.DROP_OLDEST) )
+            .subscribe(blackhole::consume)
+        ;
+
+        emit(subject);
+    }
+
+    private static void consume(final Blackhole blackhole, final IntBatch batch) {
+        blackhole.consume( batch.sum() );
+        batch.release();
+    }
+
+    private void emit(final PublishSubject<Integer> subject) {
+        for (final Integer value : values) {
+            subject.onNext(value);
+        }
+
+        subject.onCompleted();
+    }
+}
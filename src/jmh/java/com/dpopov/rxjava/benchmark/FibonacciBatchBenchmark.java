@@ -0,0 +1,60 @@
+package com.dpopov.rxjava.benchmark;
+
+import com.dpopov.rxjava.FibonacciBatchEvaluator;
+import com.dpopov.rxjava.RxFibonacci;
+import io.reactivex.Observable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of Fibonacci lookups answered one by one with {@code elementAt(x)} (one O(x) scan per lookup)
+ * vs the same burst answered by {@link FibonacciBatchEvaluator} (one pass for the whole batch).
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FibonacciBatchBenchmark {
+    private static final int BURST_SIZE = 2_000;
+    private static final int MAX_INDEX = 5_000;
+
+    private Integer[] burst;
+
+    @Setup(Level.Trial)
+    public void createBurst() {
+        final Random random = new Random(42);
+
+        burst = new Integer[BURST_SIZE];
+        for (int i = 0; i < burst.length; i++) {
+            burst[i] = random.nextInt(MAX_INDEX);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public List<BigInteger> elementAtPerIndex() {
+        return Observable.fromArray(burst)
+            .concatMapMaybe( x -> RxFibonacci.getFibonacciFlowable().elementAt(x) ) // concatMap keeps the order, same as the batch
+            .toList()
+            .blockingGet()
+        ;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public List<BigInteger> batched() {
+        return Observable.fromArray(burst)
+            .compose( FibonacciBatchEvaluator.batching(BURST_SIZE, 1, TimeUnit.SECONDS) )
+            .toList()
+            .blockingGet()
+        ;
+    }
+}
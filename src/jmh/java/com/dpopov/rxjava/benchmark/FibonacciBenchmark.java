@@ -0,0 +1,37 @@
+package com.dpopov.rxjava.benchmark;
+
+import com.dpopov.rxjava.RxFibonacci;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one Fibonacci lookup, as {@code App} does it for each input line.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FibonacciBenchmark {
+
+    @Param({ "10", "40", "1000" })
+    public int index;
+
+    @Benchmark
+    public Integer observableElementAt() { // int overflows after F(46), so index 1000 gives a wrong value at the same cost
+        return RxFibonacci.getFibonacciNumbers().elementAt(index).blockingGet();
+    }
+
+    @Benchmark
+    public BigInteger flowableElementAt() {
+        return RxFibonacci.getFibonacciFlowable().elementAt(index).blockingGet();
+    }
+
+    @Benchmark
+    public BigInteger engine() {
+        return RxFibonacci.getFibonacciNumber(index).blockingGet();
+    }
+}
@@ -0,0 +1,43 @@
+package com.dpopov.rxjava.benchmark;
+
+import com.dpopov.rxjava.logging.AsyncLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caller cost of one {@code Utils.log} line, as {@code ComputeFunction} logs it from several computation threads: the old {@code printf}
+ * on the calling thread against {@link AsyncLogger}. Both write to a stream that discards the bytes.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class LoggingBenchmark {
+    private PrintStream printStream;
+    private AsyncLogger logger;
+
+    @Setup(Level.Trial)
+    public void createOutputs() {
+        printStream = new PrintStream( OutputStream.nullOutputStream() );
+        logger = AsyncLogger.create( OutputStream.nullOutputStream() );
+    }
+
+    @Benchmark
+    public void printf() {
+        final int v = 42;
+        printStream.printf( "[%s] %s \n", LoggingBenchmark.class.getSimpleName(), "Compute integer v: " + v );
+    }
+
+    @Benchmark
+    public void asyncLogger() {
+        logger.log(LoggingBenchmark.class, "Compute integer v: ", 42);
+    }
+}
@@ -0,0 +1,131 @@
+package com.dpopov.rxjava.benchmark;
+
+import com.dpopov.rxjava.operators.CleanStringOperator;
+import com.dpopov.rxjava.v1.operators.FusedStage;
+import com.dpopov.rxjava.v1.operators.ToCleanStringOperator;
+import com.dpopov.rxjava.v1.operators.ToLengthTransformer;
+import io.reactivex.Flowable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import rx.Observable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-item cost of the custom operators. {@link #passThrough} is the cost of the source and the subscriber alone,
+ * {@link #regexClean} is the cleaning as {@link ToCleanStringOperator} did it before the lookup table.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OperatorBenchmark {
+    private static final int ITEMS = 1_000;
+    private static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 -_.,!";
+
+    private static final FusedStage<String, Integer> FUSED_CHAIN = FusedStage.<String>builder() // same steps as unfusedChain
+        .clean()
+        .filter( s -> s.length() > 10 )
+        .length()
+        .map( length -> length * 2 )
+        .build()
+    ;
+
+    private List<String> strings;
+
+    @Setup(Level.Trial)
+    public void createStrings() {
+        final Random random = new Random(42);
+
+        strings = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            final char[] chars = new char[ 10 + random.nextInt(30) ];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = CHARACTERS.charAt( random.nextInt(CHARACTERS.length()) );
+            }
+
+            strings.add( new String(chars) );
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void passThrough(final Blackhole blackhole) {
+        Observable.from(strings)
+            .subscribe(blackhole::consume)
+        ;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void toCleanStringOperator(final Blackhole blackhole) {
+        Observable.from(strings)
+            .lift( ToCleanStringOperator.create() )
+            .subscribe(blackhole::consume)
+        ;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void regexClean(final Blackhole blackhole) {
+        Observable.from(strings)
+            .map( s -> s.replaceAll("[^A-Za-z0-9]", "") )
+            .subscribe(blackhole::consume)
+        ;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void cleanStringOperatorObservable(final Blackhole blackhole) {
+        io.reactivex.Observable.fromIterable(strings)
+            .lift( CleanStringOperator.create() )
+            .subscribe(blackhole::consume)
+        ;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void cleanStringOperatorFlowable(final Blackhole blackhole) {
+        Flowable.fromIterable(strings)
+            .lift( CleanStringOperator.create() )
+            .subscribe(blackhole::consume)
+        ;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void unfusedChain(final Blackhole blackhole) {
+        Observable.from(strings)
+            .lift( ToCleanStringOperator.create() )
+            .filter( s -> s.length() > 10 )
+            .compose( ToLengthTransformer.create() )
+            .map( length -> length * 2 )
+            .subscribe(blackhole::consume)
+        ;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void fusedChain(final Blackhole blackhole) {
+        Observable.from(strings)
+            .lift( FUSED_CHAIN )
+            .subscribe(blackhole::consume)
+        ;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void toLengthTransformer(final Blackhole blackhole) {
+        Observable.from(strings)
+            .compose( ToLengthTransformer.create() )
+            .subscribe(blackhole::consume)
+        ;
+    }
+}
@@ -0,0 +1,99 @@
+package com.dpopov.rxjava.benchmark;
+
+import com.dpopov.rxjava.RxReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lines per second of the {@link RxReader} sources over a file of random integers, and the cost of parsing them.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RxReaderBenchmark {
+    private static final int LINES = 1_000_000;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        file = Files.createTempFile("rx-reader-benchmark", ".txt");
+
+        final Random random = new Random(42);
+        try ( final BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII) ) {
+            for (int i = 0; i < LINES; i++) {
+                writer.write( Integer.toString(random.nextInt()) );
+                writer.newLine();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long bufferedReaderLines() throws IOException {
+        try ( final BufferedReader reader = Files.newBufferedReader(file) ) {
+            return RxReader.lines(reader).count().blockingGet();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long channelLines() {
+        return RxReader.lines(file).count().blockingGet();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long channelLineSequences() {
+        return RxReader.lineSequences(file).count().blockingGet();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long parallelMappedLines() {
+        return RxReader.parallelLines( file, Runtime.getRuntime().availableProcessors() ).sequential().count().blockingGet();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long linesParseInt() {
+        return RxReader.lines(file)
+            .map(Integer::parseInt)
+            .reduce( 0L, (sum, i) -> sum + i )
+            .blockingGet()
+        ;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long intBatches() {
+        return RxReader.intBatches(file)
+            .reduce( 0L, (sum, batch) -> {
+                for (final int i : batch) {
+                    sum += i;
+                }
+                return sum;
+            } )
+            .blockingGet()
+        ;
+    }
+}
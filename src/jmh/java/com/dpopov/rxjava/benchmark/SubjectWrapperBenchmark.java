@@ -0,0 +1,94 @@
+package com.dpopov.rxjava.benchmark;
+
+import com.dpopov.rxjava.subscriber_wrapper.MpscSubjectObserverWrapper;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.subjects.PublishSubject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Several upstream threads feeding one subject: {@code toSerialized()} against {@link MpscSubjectObserverWrapper}.
+ * Each invocation has every producer push {@link #ITEMS} items and waits until the only subscriber of the subject got all of them,
+ * so the result is the aggregated throughput in items per microsecond.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SubjectWrapperBenchmark {
+    private static final int ITEMS = 100_000;
+
+    @Param({"1", "4"})
+    public int producers;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void createProducers() {
+        executor = Executors.newFixedThreadPool(producers);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownProducers() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void toSerialized() throws InterruptedException {
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final CountDownLatch received = subscribe(subject);
+
+        push( subject.toSerialized() );
+        received.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void mpscWrapper() throws InterruptedException {
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final CountDownLatch received = subscribe(subject);
+
+        final MpscSubjectObserverWrapper<Integer> wrapper = MpscSubjectObserverWrapper.create(subject);
+        wrapper.onSubscribe( Disposables.empty() );
+
+        push(wrapper);
+        received.await();
+    }
+
+    private CountDownLatch subscribe(final PublishSubject<Integer> subject) {
+        final CountDownLatch received = new CountDownLatch(1);
+        final AtomicInteger count = new AtomicInteger();
+
+        subject.subscribe( i -> {
+            if (count.incrementAndGet() == ITEMS) {
+                received.countDown();
+            }
+        } );
+
+        return received;
+    }
+
+    private void push(final Observer<Integer> observer) {
+        final int perProducer = ITEMS / producers;
+        for (int p = 0; p < producers; p++) {
+            executor.execute( () -> {
+                for (int i = 0; i < perProducer; i++) {
+                    observer.onNext(i);
+                }
+            } );
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.dpopov.rxjava;
 
+import com.dpopov.rxjava.metrics.RxMetrics;
+import com.dpopov.rxjava.schedulers.HashedWheelScheduler;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.schedulers.Schedulers;
 
+import java.nio.file.Paths;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
@@ -17,6 +21,11 @@ public class App {
     public static void main(final String[] args) {
 //        System.out.println(new App().getGreeting());
 
+        if ( Boolean.getBoolean("rx.metrics") ) { // -Drx.metrics=true: per-operator throughput and latency to stderr every 5 seconds
+            RxMetrics.install();
+            RxMetrics.startDump(5, TimeUnit.SECONDS, System.err::println);
+        }
+
         Observable.just("Hello observable world")
             .subscribe(System.out::println)
         ;
@@ -33,11 +42,20 @@ public class App {
         // subscribe to fakeUserInput
         System.out.println("Fake user input:");
 
+        final Observable<Integer> numbers = (args.length > 0)
+            ? RxReader.mappedLines( Paths.get(args[0]), Runtime.getRuntime().availableProcessors(), Integer::parseInt ).toObservable() // file given: map it and parse on all cores, in the file order
+            : RxReader.intBatchesFromInput() // parsed without String per line
+                .concatMap( batch -> Flowable.range(0, batch.length).map(i -> batch[i]) ) // boxed only here, the Fibonacci lookup takes an Integer
+                .toObservable()
+        ;
+
 //        fakeUserInput()
-        RxReader.linesFromInput()
-            .map(Integer::parseInt)
+        numbers
             .observeOn( Schedulers.trampoline() ) // FIFO on participating threads
-            .flatMapMaybe(x -> RxFibonacci.getFibonacciNumbers().elementAt(x) ) // elementAt(x) returns Maybe
+//            .flatMapMaybe(x -> RxFibonacci.getFibonacciNumbers().elementAt(x) ) // elementAt(x) returns Maybe. Regenerates the sequence for each x and overflows int after F(46)
+//            .flatMapSingle(RxFibonacci::getFibonacciNumber) // cached or O(log x), BigInteger
+//            .compose( OrderedParallelMap.observable(FibonacciEngine.getInstance()::get, Runtime.getRuntime().availableProcessors()) ) // each lookup on any core, output in the input order like concatMap
+            .compose( FibonacciBatchEvaluator.batching(1024, 50, TimeUnit.MILLISECONDS) ) // a burst of lines is answered by one pass, in the input order
 //            .subscribe(System.out::println)
             .blockingSubscribe(System.out::println) // blockingSubscribe subscribe on the current thread
         ;
@@ -53,12 +71,12 @@ public class App {
 
         return Observable
 //            .just(10, 17, 3, 8)
-            .intervalRange(0, 20, 0, 500, TimeUnit.MILLISECONDS) // periodically with the same delay
+            .intervalRange(0, 20, 0, 500, TimeUnit.MILLISECONDS, HashedWheelScheduler.getInstance()) // periodically with the same delay
 //            .map(number -> random.nextInt(20)) // randoms between 0 and 20
             .concatMap( // transform observable to its result
                 number -> Observable
                     .just( random.nextInt(20) )
-                    .delay( random.nextInt(500), TimeUnit.MILLISECONDS ) // delay for a random within 500 milliseconds
+                    .delay( random.nextInt(500), TimeUnit.MILLISECONDS, HashedWheelScheduler.getInstance() ) // delay for a random within 500 milliseconds. A timing wheel slot per delay instead of a ScheduledThreadPoolExecutor heap entry
             )
             .filter(i -> i > 3) // filter out values less than 3
         ;
@@ -0,0 +1,97 @@
+package com.dpopov.rxjava;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parses ASCII lines with one decimal {@code int} per line (optional {@code -} or {@code +} sign, {@code \n} or {@code \r\n} line breaks).
+ * Accepts the same numbers as {@link Integer#parseInt(String)}, but straight from bytes.
+ * Not thread-safe: the scratch array is reused between calls.
+ */
+public class AsciiIntParser {
+    private static final long MAX_NEGATED = -(long) Integer.MIN_VALUE;
+
+    private int[] values = new int[1024]; // scratch, grows up to the biggest chunk lines count
+
+    /**
+     * @param lines bytes from {@code position} to {@code limit} to parse, the buffer position is not changed
+     * @return parsed values, one array allocation per call. Empty lines are skipped.
+     * @throws NumberFormatException if a line is not an integer
+     */
+    public int[] parseLines(final ByteBuffer lines) {
+        final int limit = lines.limit();
+        int count = 0;
+        int i = lines.position();
+
+        while (i < limit) {
+            final int lineStart = i;
+            boolean negative = false;
+            boolean hasDigits = false;
+            long value = 0;
+
+            byte b = lines.get(i);
+            if (b == '-' || b == '+') {
+                negative = (b == '-');
+                i++;
+            }
+
+            while (i < limit) {
+                b = lines.get(i);
+
+                if (b >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                    if (value > MAX_NEGATED) {
+                        throw numberFormatException(lines, lineStart);
+                    }
+
+                    hasDigits = true;
+                    i++;
+                    continue;
+                }
+
+                if ( b == '\n' || (b == '\r' && (i + 1 == limit || lines.get(i + 1) == '\n')) ) {
+                    break;
+                }
+
+                throw numberFormatException(lines, lineStart);
+            }
+
+            if (hasDigits) {
+                if (!negative && value > Integer.MAX_VALUE) {
+                    throw numberFormatException(lines, lineStart);
+                }
+
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+
+                values[count++] = (int) (negative ? -value : value);
+            }
+            else if (i > lineStart) { // only a sign
+                throw numberFormatException(lines, lineStart);
+            }
+
+            while ( i < limit && lines.get(i) != '\n' ) { // skip \r
+                i++;
+            }
+            i++; // skip \n
+        }
+
+        return Arrays.copyOf(values, count);
+    }
+
+    private static NumberFormatException numberFormatException(final ByteBuffer lines, final int lineStart) {
+        int lineEnd = lineStart;
+        while ( lineEnd < lines.limit() && lines.get(lineEnd) != '\n' && lines.get(lineEnd) != '\r' ) {
+            lineEnd++;
+        }
+
+        final byte[] line = new byte[lineEnd - lineStart];
+        for (int i = 0; i < line.length; i++) {
+            line[i] = lines.get(lineStart + i);
+        }
+
+        return new NumberFormatException( String.format("For input string: \"%s\"", new String(line, StandardCharsets.UTF_8)) );
+    }
+}
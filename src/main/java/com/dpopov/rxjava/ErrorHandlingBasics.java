@@ -1,14 +1,18 @@
 package com.dpopov.rxjava;
 
+import com.dpopov.rxjava.resilience.CircuitBreaker;
 import io.reactivex.Observable;
 import io.reactivex.exceptions.CompositeException;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
 import org.junit.Assert;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @see <a href="https://www.baeldung.com/rxjava-error-handling">https://www.baeldung.com/rxjava-error-handling</a>
@@ -25,6 +29,7 @@ public class ErrorHandlingBasics {
         tryOnErrorReturn();
         tryOnErrorResumeNext();
         testRetry();
+        tryCircuitBreaker();
     }
 
     private static void tryError() {
@@ -201,6 +206,69 @@ public class ErrorHandlingBasics {
         Utils.printSeparator();
     }
 
+    private static void tryCircuitBreaker() {
+        Utils.printMethodStart("tryCircuitBreaker");
+
+        // retry and onErrorResumeNext still subscribe to a source that fails every time. The breaker stops subscribing to it for a while
+
+        final TestScheduler clock = new TestScheduler(); // moves the time of the breaker by hand
+        final CircuitBreaker breaker = CircuitBreaker.builder()
+            .windowSize(10)
+            .minimumCalls(5)
+            .failureRateThreshold(0.5f)
+            .openDuration(30, TimeUnit.SECONDS)
+            .halfOpenCalls(2)
+            .scheduler(clock)
+            .build();
+
+        final List<String> transitions = new ArrayList<>();
+        breaker.stateChanges().subscribe( transition -> {
+            log("Circuit: " + transition);
+            transitions.add( transition.toString() );
+        } );
+
+        final AtomicBoolean failing = new AtomicBoolean(true);
+        final AtomicInteger subscriptions = new AtomicInteger();
+
+        final Observable<String> source = Observable
+            .fromCallable( () -> {
+                subscriptions.incrementAndGet();
+                if ( failing.get() ) {
+                    throw new RuntimeException("dependency is down");
+                }
+
+                return "fresh";
+            } )
+            .compose( breaker.observable( Observable.just("cached") ) ) // fallback while open
+            .onErrorReturnItem("error")
+        ;
+
+        final List<String> result = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            source.subscribe(result::add);
+        }
+
+        log("Result while failing: " + result + ", source subscribed " + subscriptions.get() + " times, " + breaker);
+        Assert.assertEquals( Arrays.asList("error", "error", "error", "error", "error", "cached", "cached", "cached", "cached", "cached"), result );
+        Assert.assertEquals(5, subscriptions.get()); // minimumCalls, then the fallback without calling the source
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        failing.set(false); // dependency is back
+        clock.advanceTimeBy(30, TimeUnit.SECONDS);
+
+        result.clear();
+        for (int i = 0; i < 3; i++) {
+            source.subscribe(result::add);
+        }
+
+        log("Result after open duration: " + result + ", " + breaker);
+        Assert.assertEquals( Arrays.asList("fresh", "fresh", "fresh"), result ); // 2 trial calls close the circuit
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertEquals( Arrays.asList("CLOSED -> OPEN", "OPEN -> HALF_OPEN", "HALF_OPEN -> CLOSED"), transitions );
+
+        Utils.printSeparator();
+    }
+
 
     private static void log(final String s) {
         Utils.log(ErrorHandlingBasics.class, s);
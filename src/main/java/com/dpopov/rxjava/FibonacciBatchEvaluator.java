@@ -0,0 +1,104 @@
+package com.dpopov.rxjava;
+
+import com.dpopov.rxjava.operators.OrderedParallelMap;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers a batch of Fibonacci indexes with one forward pass over the sorted distinct indexes instead of one scan per index.
+ * Close indexes are reached by additions from the previous one, far ones by a jump through {@link FibonacciEngine}.
+ */
+public class FibonacciBatchEvaluator {
+    private static final int MAX_STEPS = 64; // more additions than this cost more than a fast doubling jump
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Collects indexes into windows of at most {@code count} items or {@code timespan}, whatever comes first,
+     * and emits F(index) for each of them in the input order. Consecutive windows are evaluated at the same time on all cores.
+     */
+    public static ObservableTransformer<Integer, BigInteger> batching(final int count, final long timespan, final TimeUnit unit) {
+        return batching(count, timespan, unit, Schedulers.computation());
+    }
+    public static ObservableTransformer<Integer, BigInteger> batching(final int count, final long timespan, final TimeUnit unit, final Scheduler scheduler) {
+        return upstream -> upstream
+            .buffer(timespan, unit, scheduler, count)
+            .filter( batch -> !batch.isEmpty() ) // time-based buffer emits empty lists when there is no input
+            .compose( OrderedParallelMap.<List<Integer>, BigInteger[]>observable(FibonacciBatchEvaluator::evaluate, PARALLELISM) ) // batches on all cores, in the input order
+            .concatMapIterable(Arrays::asList)
+        ;
+    }
+
+    public static BigInteger[] evaluate(final List<Integer> indexes) {
+        final int[] values = new int[ indexes.size() ];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = indexes.get(i);
+        }
+
+        return evaluate(values);
+    }
+
+    /**
+     * @param indexes Fibonacci indexes in any order, duplicates allowed
+     * @return F(index) for each index, in the order of {@code indexes}
+     */
+    public static BigInteger[] evaluate(final int[] indexes) {
+        final int[] sorted = distinctSorted(indexes);
+        final BigInteger[] sortedValues = new BigInteger[sorted.length];
+
+        final FibonacciEngine engine = FibonacciEngine.getInstance();
+
+        long index = -MAX_STEPS - 1; // no pair yet
+        BigInteger current = null; // F(index)
+        BigInteger next = null; // F(index + 1)
+
+        for (int i = 0; i < sorted.length; i++) {
+            final int target = sorted[i];
+
+            if (target < 0)
+                throw new IllegalArgumentException("Fibonacci index must not be negative: " + target);
+
+            if (target - index > MAX_STEPS) { // jump
+                index = target;
+                current = engine.get(target);
+                next = engine.get(target + 1L);
+            }
+            else {
+                while (index < target) {
+                    final BigInteger sum = current.add(next);
+                    current = next;
+                    next = sum;
+                    index++;
+                }
+            }
+
+            sortedValues[i] = current;
+        }
+
+        final BigInteger[] result = new BigInteger[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            result[i] = sortedValues[ Arrays.binarySearch(sorted, indexes[i]) ];
+        }
+
+        return result;
+    }
+
+    private static int[] distinctSorted(final int[] indexes) {
+        final int[] sorted = indexes.clone();
+        Arrays.sort(sorted);
+
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[distinct - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+
+        return Arrays.copyOf(sorted, distinct);
+    }
+}
@@ -0,0 +1,149 @@
+package com.dpopov.rxjava;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Fibonacci numbers with F(0) = 0, F(1) = 1.
+ * <br/>
+ * Values up to {@code cacheSize} are kept in a shared cache that grows on demand. The cache array is never changed after it is published,
+ * so reads do not lock; only the growing is synchronized. Indexes past the cache are computed by fast doubling in O(log n) multiplications,
+ * which starts from the cached values.
+ *
+ * @see <a href="https://www.nayuki.io/page/fast-fibonacci-algorithms">https://www.nayuki.io/page/fast-fibonacci-algorithms</a>
+ */
+public class FibonacciEngine {
+    public static final int DEFAULT_CACHE_SIZE = 10_000; // about 4 MB of BigIntegers
+    public static final int MAX_LONG_INDEX = 92; // F(93) does not fit into long
+
+    private static final int INITIAL_CACHE_SIZE = 128;
+    private static final long[] LONG_VALUES = longValues();
+
+    private static final FibonacciEngine INSTANCE = new FibonacciEngine(DEFAULT_CACHE_SIZE);
+
+    private final int cacheSize;
+    private volatile BigInteger[] cache;
+
+    public static FibonacciEngine getInstance() {
+        return INSTANCE;
+    }
+
+    public static FibonacciEngine create(final int cacheSize) {
+        return new FibonacciEngine(cacheSize);
+    }
+
+    private FibonacciEngine(final int cacheSize) {
+        if (cacheSize < 2)
+            throw new IllegalArgumentException("cacheSize must be at least 2: " + cacheSize);
+
+        this.cacheSize = cacheSize;
+
+        final BigInteger[] initial = new BigInteger[ Math.min(cacheSize, INITIAL_CACHE_SIZE) ];
+        initial[0] = BigInteger.ZERO;
+        initial[1] = BigInteger.ONE;
+        fill(initial, 2);
+        cache = initial;
+    }
+
+    /**
+     * @param n index, starting from 0
+     * @return F(n)
+     */
+    public BigInteger get(final long n) {
+        checkIndex(n);
+
+        if (n < cacheSize) {
+            return cached( (int) n );
+        }
+
+        return pair(n)[0];
+    }
+
+    /**
+     * @param n index, from 0 to {@link #MAX_LONG_INDEX}
+     * @return F(n) without any {@code BigInteger}
+     * @throws ArithmeticException if F(n) does not fit into {@code long}
+     */
+    public long getLong(final long n) {
+        checkIndex(n);
+
+        if (n > MAX_LONG_INDEX)
+            throw new ArithmeticException( String.format("F(%d) does not fit into long, max index is %d", n, MAX_LONG_INDEX) );
+
+        return LONG_VALUES[(int) n];
+    }
+
+    /**
+     * @return count of the values computed and cached so far
+     */
+    public int getCachedCount() {
+        return cache.length;
+    }
+
+    private BigInteger cached(final int n) {
+        final BigInteger[] snapshot = cache; // one volatile read
+        if (n < snapshot.length) {
+            return snapshot[n];
+        }
+
+        return grow(n)[n];
+    }
+
+    private synchronized BigInteger[] grow(final int n) {
+        final BigInteger[] current = cache;
+        if (n < current.length) { // grown by another thread
+            return current;
+        }
+
+        final int newSize = (int) Math.min( cacheSize, Math.max(n + 1L, current.length * 2L) );
+        final BigInteger[] grown = Arrays.copyOf(current, newSize);
+        fill(grown, current.length);
+
+        cache = grown; // publish the fully filled array
+        return grown;
+    }
+
+    /**
+     * Fast doubling: F(2k) = F(k) * (2 * F(k + 1) - F(k)), F(2k + 1) = F(k)^2 + F(k + 1)^2.
+     * @return { F(n), F(n + 1) }
+     */
+    private BigInteger[] pair(final long n) {
+        if (n + 1 < cacheSize) {
+            return new BigInteger[] { cached( (int) n ), cached( (int) n + 1 ) };
+        }
+
+        final BigInteger[] half = pair(n / 2);
+        final BigInteger a = half[0]; // F(k)
+        final BigInteger b = half[1]; // F(k + 1)
+
+        final BigInteger even = a.multiply( b.shiftLeft(1).subtract(a) ); // F(2k)
+        final BigInteger odd = a.multiply(a).add( b.multiply(b) ); // F(2k + 1)
+
+        return (n % 2 == 0)
+            ? new BigInteger[] { even, odd }
+            : new BigInteger[] { odd, even.add(odd) }
+        ;
+    }
+
+    private static void fill(final BigInteger[] values, final int from) {
+        for (int i = from; i < values.length; i++) {
+            values[i] = values[i - 1].add( values[i - 2] );
+        }
+    }
+
+    private static void checkIndex(final long n) {
+        if (n < 0)
+            throw new IllegalArgumentException("Fibonacci index must not be negative: " + n);
+    }
+
+    private static long[] longValues() {
+        final long[] values = new long[MAX_LONG_INDEX + 1];
+        values[1] = 1;
+
+        for (int i = 2; i < values.length; i++) {
+            values[i] = values[i - 1] + values[i - 2];
+        }
+
+        return values;
+    }
+}
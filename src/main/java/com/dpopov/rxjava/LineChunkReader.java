@@ -0,0 +1,253 @@
+package com.dpopov.rxjava;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a {@link ReadableByteChannel} into one large direct buffer and splits the lines inside that buffer.
+ * <br/>
+ * Only one of {@link #nextLine()}, {@link #nextLineSequence()}, {@link #nextChunk()} and {@link #nextInts()} must be used for one reader.
+ * Not thread-safe: it is meant to be the state of a single {@code Flowable.generate} source.
+ */
+public class LineChunkReader implements Closeable {
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final ReadableByteChannel channel;
+    private final Charset charset;
+
+    private ByteBuffer buffer; // always in "read" mode: [position, limit) are the bytes not yet handed out
+    private boolean eof;
+
+    private byte[] lineBytes = new byte[256]; // scratch for decoding one line, grows up to the longest line
+    private AsciiIntParser intParser;
+    private CharsetDecoder decoder;
+    private CharBuffer chars; // decoded chunk for nextLineSequence
+    private int charsPosition;
+
+    public static LineChunkReader open(final Path path) throws IOException {
+        return open(path, DEFAULT_BUFFER_SIZE);
+    }
+    public static LineChunkReader open(final Path path, final int bufferSize) throws IOException {
+        return create( FileChannel.open(path, StandardOpenOption.READ), bufferSize, StandardCharsets.UTF_8 );
+    }
+
+    public static LineChunkReader create(final ReadableByteChannel channel, final int bufferSize, final Charset charset) {
+        return new LineChunkReader(channel, bufferSize, charset);
+    }
+
+    private LineChunkReader(final ReadableByteChannel channel, final int bufferSize, final Charset charset) {
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+
+        this.channel = channel;
+        this.charset = charset;
+
+        buffer = ByteBuffer.allocateDirect(bufferSize);
+        buffer.flip(); // nothing read yet
+    }
+
+    /**
+     * @return next line without the line break ({@code \n} or {@code \r\n}), or {@code null} if the input is over
+     * @throws IOException in case of the channel read failure
+     */
+    public String nextLine() throws IOException {
+        int scanned = 0;
+
+        while (true) {
+            final int lineBreak = indexOfLineBreak(buffer.position() + scanned);
+            if (lineBreak >= 0) {
+                return readLine(lineBreak, lineBreak + 1);
+            }
+
+            scanned = buffer.remaining(); // no need to search these bytes again after refill
+            if ( !fill() ) {
+                return buffer.hasRemaining() ? readLine(buffer.limit(), buffer.limit()) : null; // last line without line break
+            }
+        }
+    }
+
+    /**
+     * Lines are views over a char buffer decoded once per chunk, so no {@code String} is created per line.
+     * Each chunk buffer is a fresh one, therefore the returned sequence stays valid after the next call.
+     *
+     * @return next line without the line break, or {@code null} if the input is over
+     * @throws IOException in case of the channel read failure
+     */
+    public CharSequence nextLineSequence() throws IOException {
+        while ( chars == null || charsPosition >= chars.limit() ) {
+            final ByteBuffer chunk = nextChunkSlice();
+            if (chunk == null) {
+                return null;
+            }
+
+            if (decoder == null) {
+                decoder = charset.newDecoder() // replaces malformed bytes as nextLine() does, instead of throwing
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                ;
+            }
+
+            chars = decoder.decode(chunk); // one char[] per chunk, lines share it
+            charsPosition = 0;
+        }
+
+        final int start = charsPosition;
+        int end = start;
+        while ( end < chars.limit() && chars.get(end) != LF ) {
+            end++;
+        }
+
+        charsPosition = end + 1;
+
+        if ( end > start && chars.get(end - 1) == CR ) {
+            end--;
+        }
+
+        return chars.subSequence(start, end); // chars position is always 0, so indexes are absolute
+    }
+
+    /**
+     * @return next chunk that contains only complete lines (the last line of the input may be without line break),
+     * or {@code null} if the input is over. The returned buffer is a copy and is not touched by further reads.
+     * @throws IOException in case of the channel read failure
+     */
+    public ByteBuffer nextChunk() throws IOException {
+        final ByteBuffer slice = nextChunkSlice();
+        if (slice == null) {
+            return null;
+        }
+
+        final ByteBuffer chunk = ByteBuffer.allocate( slice.remaining() );
+        chunk.put(slice);
+        chunk.flip();
+        return chunk;
+    }
+
+    /**
+     * Parses a chunk of lines with one integer per line straight from the direct buffer, without a {@code String} or a boxed {@code Integer} per line.
+     *
+     * @return integers of the next chunk, or {@code null} if the input is over. Chunks may be of different sizes, empty lines are skipped.
+     * @throws IOException in case of the channel read failure
+     * @throws NumberFormatException if a line is not an integer
+     */
+    public int[] nextInts() throws IOException {
+        final ByteBuffer slice = nextChunkSlice();
+        if (slice == null) {
+            return null;
+        }
+
+        if (intParser == null) {
+            intParser = new AsciiIntParser();
+        }
+
+        return intParser.parseLines(slice);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return view of the internal buffer with complete lines, valid only until the next read
+     */
+    private ByteBuffer nextChunkSlice() throws IOException {
+        while (true) {
+            final int lineBreak = lastIndexOfLineBreak();
+            if (lineBreak >= 0) {
+                return slice(lineBreak + 1);
+            }
+
+            if ( !fill() ) {
+                return buffer.hasRemaining() ? slice( buffer.limit() ) : null;
+            }
+        }
+    }
+
+    private ByteBuffer slice(final int end) {
+        final ByteBuffer slice = buffer.duplicate();
+        slice.limit(end);
+        buffer.position(end);
+        return slice;
+    }
+
+    private String readLine(final int lineBreak, final int nextLineStart) {
+        int length = lineBreak - buffer.position();
+        if ( length > 0 && buffer.get(lineBreak - 1) == CR ) {
+            length--;
+        }
+
+        if (length > lineBytes.length) {
+            lineBytes = new byte[ Math.max(length, lineBytes.length * 2) ];
+        }
+
+        buffer.get(lineBytes, 0, length); // bulk copy out of the direct buffer
+        buffer.position(nextLineStart);
+
+        return new String(lineBytes, 0, length, charset);
+    }
+
+    /**
+     * Moves not handed out bytes to the buffer start and reads more data after them.
+     * @return {@code false} if the channel is over
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+
+        buffer.compact();
+
+        if ( !buffer.hasRemaining() ) { // whole buffer is one incomplete line
+            final ByteBuffer bigger = ByteBuffer.allocateDirect( buffer.capacity() * 2 );
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+
+        final int read = channel.read(buffer);
+        buffer.flip();
+
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+
+        return true;
+    }
+
+    private int indexOfLineBreak(final int from) {
+        final int limit = buffer.limit();
+        for (int i = from; i < limit; i++) {
+            if ( buffer.get(i) == LF ) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private int lastIndexOfLineBreak() {
+        final int position = buffer.position();
+        for (int i = buffer.limit() - 1; i >= position; i--) {
+            if ( buffer.get(i) == LF ) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
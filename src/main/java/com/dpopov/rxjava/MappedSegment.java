@@ -0,0 +1,165 @@
+package com.dpopov.rxjava;
+
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Newline-aligned part of a memory-mapped file. Segments of one file do not overlap and each of them starts at a line start,
+ * so every segment can be split into lines independently of the others.
+ */
+public class MappedSegment {
+    private static final int MAX_SEGMENT_SIZE = 1 << 30; // one MappedByteBuffer can not be larger than Integer.MAX_VALUE, leave room for the line alignment
+    private static final int SCAN_BUFFER_SIZE = 4096;
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final int index;
+    private final long offset;
+    private final MappedByteBuffer buffer;
+    private final Charset charset;
+
+    private MappedSegment(final int index, final long offset, final MappedByteBuffer buffer, final Charset charset) {
+        this.index = index;
+        this.offset = offset;
+        this.buffer = buffer;
+        this.charset = charset;
+    }
+
+    /**
+     * Maps the file in {@code count} segments of about the same size (more, if one segment would be too big for a single mapping).
+     * The mappings stay valid after the channel is closed.
+     *
+     * @param path file to map
+     * @param count wanted segments count
+     * @return segments in the file order
+     * @throws IOException in case of the file open, read or map failure
+     */
+    public static List<MappedSegment> split(final Path path, final int count) throws IOException {
+        if (count <= 0)
+            throw new IllegalArgumentException("count must be positive: " + count);
+
+        try ( final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ) ) {
+            final long size = channel.size();
+            final long segmentsCount = Math.max( count, (size + MAX_SEGMENT_SIZE - 1) / MAX_SEGMENT_SIZE );
+
+            final List<MappedSegment> segments = new ArrayList<>();
+            final ByteBuffer scanBuffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+
+            long start = 0;
+            for (long i = 1; i <= segmentsCount && start < size; i++) {
+                final long end = (i == segmentsCount) ? size : nextLineStart( channel, Math.max(start, size * i / segmentsCount), scanBuffer );
+
+                if (end > start) {
+                    final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                    segments.add( new MappedSegment(segments.size(), start, mapped, StandardCharsets.UTF_8) );
+                }
+
+                start = end;
+            }
+
+            return segments;
+        }
+    }
+
+    public int getIndex() {
+        return index;
+    }
+    public long getOffset() {
+        return offset;
+    }
+    public int getSize() {
+        return buffer.capacity();
+    }
+
+    /**
+     * @return lines of this segment, emitted on the requesting thread and only as many as requested
+     */
+    public Flowable<String> lines() {
+        return Flowable.generate(
+              LineCursor::new
+            , (LineCursor cursor, Emitter<String> emitter) -> {
+                final String line = cursor.nextLine();
+
+                if (line == null) {
+                    emitter.onComplete();
+                }
+                else {
+                    emitter.onNext(line);
+                }
+            }
+        );
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MappedSegment #%d [offset: %d, size: %d]", index, offset, getSize());
+    }
+
+    /**
+     * @return position right after the first line break at or after {@code from}, or the file size if there is no line break
+     */
+    private static long nextLineStart(final FileChannel channel, final long from, final ByteBuffer scanBuffer) throws IOException {
+        long position = from;
+
+        while (true) {
+            scanBuffer.clear();
+            final int read = channel.read(scanBuffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+
+            for (int i = 0; i < read; i++) {
+                if ( scanBuffer.get(i) == LF ) {
+                    return position + i + 1;
+                }
+            }
+
+            position += read;
+        }
+    }
+
+    private class LineCursor {
+        private final ByteBuffer lines = buffer.duplicate(); // own position for each subscriber
+        private byte[] lineBytes = new byte[256];
+
+        private String nextLine() {
+            final int start = lines.position();
+            final int limit = lines.limit();
+            if (start >= limit) {
+                return null;
+            }
+
+            int end = start;
+            while ( end < limit && lines.get(end) != LF ) {
+                end++;
+            }
+
+            final int nextLineStart = Math.min(end + 1, limit);
+            if ( end > start && lines.get(end - 1) == CR ) {
+                end--;
+            }
+
+            final int length = end - start;
+            if (length > lineBytes.length) {
+                lineBytes = new byte[ Math.max(length, lineBytes.length * 2) ];
+            }
+
+            lines.get(lineBytes, 0, length);
+            lines.position(nextLineStart);
+
+            return new String(lineBytes, 0, length, charset);
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.dpopov.rxjava;
 
 import java.util.concurrent.TimeUnit;
 
+import com.dpopov.rxjava.resilience.Backoff;
+import com.dpopov.rxjava.resilience.Retry;
+import com.dpopov.rxjava.resilience.RetryBudget;
 import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.ObservableEmitter;
@@ -11,6 +14,13 @@ public class RetryWhenDemo {
 	public static void main(String[] args) throws InterruptedException {
 		final int[] counterHolder = { 0 };
 
+		final Retry retry = Retry.builder()
+			.maxAttempts(100)
+			.backoff( Backoff.exponential(10, 1000, TimeUnit.MILLISECONDS, Backoff.Jitter.DECORRELATED) )
+			.retryOn( RuntimeException.class, e -> e.getMessage().startsWith("Exception from source observable") )
+			.budget( RetryBudget.create(5, 10) ) // shared by all the streams of this dependency: 10 retries at once, then 5 per second
+			.build();
+
 		Observable
 			.create(emitter -> {
 				while ( !emitter.isDisposed() ) {
@@ -35,29 +45,19 @@ public class RetryWhenDemo {
 				//				System.out.println("subscribing");
 //				emitter.onError(new RuntimeException("always fails"));/
 			})
-			.retryWhen(attempts -> {
-				Observable<Throwable> attempts1 = attempts;
-
-				Observable<Integer> integerObservable = attempts1
-					.zipWith(
-						Observable.range(1, 100), // another source
-						(Throwable n, Integer i) -> i // zipper BiFunction
-					);
-
-				Observable<Long> longObservable = integerObservable
-					.flatMap(i -> {
-//						System.out.println("delay retry by " + i + " second(s)");
-//						return Observable.timer(i, TimeUnit.SECONDS);
-
-//						System.out.println("Immediate error.");
-//						return Observable.error(new RuntimeException("Immediate error exception."));
-
-						System.out.println("Immediate retry.");
-						return Observable.just(666L);
-					});
-
-				return longObservable;
-			})
+			// hand-built retryWhen: zipWith(range(1, 100)) limits the attempts, flatMap(just(666L)) retries at once.
+			// Thousands of streams doing it hammer a failing dependency all at the same instant.
+//			.retryWhen(attempts -> attempts
+//				.zipWith(
+//					Observable.range(1, 100), // another source
+//					(Throwable n, Integer i) -> i // zipper BiFunction
+//				)
+//				.flatMap(i -> {
+//					System.out.println("Immediate retry.");
+//					return Observable.just(666L);
+//				})
+//			)
+			.compose( retry.observable() ) // jittered backoff, shared budget, delays on one timing wheel
 			.subscribe(
 				(x) -> System.out.println("In subscribe.onNext. Value: " + x),
 
@@ -73,6 +73,7 @@ public class RetryWhenDemo {
 
 		if (true) {
 			sleepAndExit();
+			System.out.println(retry);
 			return;
 		}
 /*
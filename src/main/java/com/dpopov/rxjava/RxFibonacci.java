@@ -1,9 +1,57 @@
 package com.dpopov.rxjava;
 
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
+import io.reactivex.Single;
+
+import java.math.BigInteger;
 
 public class RxFibonacci {
 
+    /**
+     * @param index index in the sequence, starting from 0
+     * @return F(index) from the shared {@link FibonacciEngine}, without generating the sequence from the start
+     */
+    public static Single<BigInteger> getFibonacciNumber(final long index) {
+        return Single.fromCallable( () -> FibonacciEngine.getInstance().get(index) );
+    }
+
+    public static Flowable<BigInteger> getFibonacciFlowable() {
+        return getFibonacciFlowable(0);
+    }
+
+    /**
+     * Flowable.generate calls the generator once per requested item, so a slow consumer behind {@code observeOn} gets only what it requested.
+     *
+     * @param startIndex index of the first emitted number
+     * @return infinite sequence F(startIndex), F(startIndex + 1), ...
+     */
+    public static Flowable<BigInteger> getFibonacciFlowable(final long startIndex) {
+        return Flowable.generate(
+              () -> new BigPair( FibonacciEngine.getInstance().get(startIndex), FibonacciEngine.getInstance().get(startIndex + 1) ) // O(log n) resume point
+            , (BigPair pair, Emitter<BigInteger> emitter) -> {
+                emitter.onNext(pair.current);
+                return new BigPair( pair.next, pair.current.add(pair.next) );
+            }
+        );
+    }
+
+    /**
+     * @param startIndex index of the first emitted number
+     * @return F(startIndex), F(startIndex + 1), ... as {@code long}, fails with {@link ArithmeticException} after F({@value FibonacciEngine#MAX_LONG_INDEX})
+     */
+    public static Flowable<Long> getFibonacciLongs(final long startIndex) {
+        return Flowable.generate(
+              () -> new long[] { startIndex } // index of the next number
+            , (long[] index, Emitter<Long> emitter) -> {
+                emitter.onNext( FibonacciEngine.getInstance().getLong(index[0]) ); // getLong throws ArithmeticException past the long range, generate turns it into onError
+                index[0]++;
+            }
+        );
+    }
+
+    // ignores the downstream demand: with an async observeOn after it, the queue grows until OutOfMemoryError. Use getFibonacciFlowable.
     public static Observable<Integer> getFibonacciNumbers() {
         return Observable.create( subscriber -> {
             int prev = 0;
@@ -26,4 +74,14 @@ public class RxFibonacci {
 //            subscriber.onError();
         } );
     }
+
+    private static class BigPair {
+        private final BigInteger current;
+        private final BigInteger next;
+
+        private BigPair(final BigInteger current, final BigInteger next) {
+            this.current = current;
+            this.next = next;
+        }
+    }
 }
\ No newline at end of file
@@ -1,14 +1,32 @@
 package com.dpopov.rxjava;
 
+import com.dpopov.rxjava.schedulers.VirtualThreadScheduler;
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.parallel.ParallelFlowable;
 import io.reactivex.schedulers.Schedulers;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
 
 public class RxReader {
 
     public static Observable<String> lines(final BufferedReader reader) {
+        return lines( reader, Schedulers.io() );
+    }
+
+    /**
+     * @param scheduler scheduler to block on, e.g. {@link VirtualThreadScheduler} for thousands of concurrent readers
+     */
+    public static Observable<String> lines(final BufferedReader reader, final Scheduler scheduler) {
         return Observable.<String>create( subscriber -> {
             String line;
 
@@ -22,11 +40,138 @@ public class RxReader {
 
             subscriber.onComplete();
         } )
-        .subscribeOn(Schedulers.io()) // run a code on Schedulers.io() thread
+        .subscribeOn(scheduler) // run a code on the scheduler thread, Schedulers.io() by default
         ;
     }
 
     public static Observable<String> linesFromInput() {
         return lines( new BufferedReader(new InputStreamReader(System.in)) );
     }
-}
\ No newline at end of file
+
+
+    // Flowable sources over FileChannel. Flowable.generate calls the generator once per requested item,
+    // so only request(n) lines are read out of the direct buffer, and the heap does not grow with the file size.
+
+    public static Flowable<String> lines(final Path path) {
+        return lines(path, LineChunkReader.DEFAULT_BUFFER_SIZE);
+    }
+    public static Flowable<String> lines(final Path path, final int bufferSize) {
+        return lines( path, bufferSize, Schedulers.io() );
+    }
+    public static Flowable<String> lines(final Path path, final int bufferSize, final Scheduler scheduler) {
+        return generate( () -> LineChunkReader.open(path, bufferSize), LineChunkReader::nextLine, scheduler );
+    }
+
+    /**
+     * @param path file to read
+     * @return lines as views over a chunk decoded once, without a {@code String} per line
+     */
+    public static Flowable<CharSequence> lineSequences(final Path path) {
+        return lineSequences(path, LineChunkReader.DEFAULT_BUFFER_SIZE);
+    }
+    public static Flowable<CharSequence> lineSequences(final Path path, final int bufferSize) {
+        return generate( () -> LineChunkReader.open(path, bufferSize), LineChunkReader::nextLineSequence );
+    }
+
+    /**
+     * @param path file to read
+     * @return chunks of complete lines, about {@code bufferSize} bytes each
+     */
+    public static Flowable<ByteBuffer> chunks(final Path path) {
+        return chunks(path, LineChunkReader.DEFAULT_BUFFER_SIZE);
+    }
+    public static Flowable<ByteBuffer> chunks(final Path path, final int bufferSize) {
+        return generate( () -> LineChunkReader.open(path, bufferSize), LineChunkReader::nextChunk );
+    }
+
+    /**
+     * @param path file with one integer per line
+     * @return integers parsed straight from the read buffer, one {@code int[]} per chunk, without a {@code String} or an {@code Integer} per line
+     */
+    public static Flowable<int[]> intBatches(final Path path) {
+        return intBatches(path, LineChunkReader.DEFAULT_BUFFER_SIZE);
+    }
+    public static Flowable<int[]> intBatches(final Path path, final int bufferSize) {
+        return generate( () -> LineChunkReader.open(path, bufferSize), LineChunkReader::nextInts );
+    }
+
+    public static Flowable<int[]> intBatchesFromInput() {
+        return generate(
+              () -> LineChunkReader.create( Channels.newChannel(System.in), LineChunkReader.DEFAULT_BUFFER_SIZE, StandardCharsets.UTF_8 )
+            , LineChunkReader::nextInts
+        );
+    }
+
+    // Memory-mapped mode: the file is cut into newline-aligned segments, and each segment is split into lines on its own computation thread.
+
+    /**
+     * @param path file to map
+     * @param parallelism rails count, usually {@code Runtime.getRuntime().availableProcessors()}
+     * @return lines on {@code parallelism} computation rails, line order is kept only inside one segment.
+     * Stages like {@code map(Integer::parseInt)} applied to the result run on all rails.
+     */
+    public static ParallelFlowable<String> parallelLines(final Path path, final int parallelism) {
+        return segments(path, parallelism)
+            .parallel(parallelism)
+            .runOn( Schedulers.computation() )
+            .concatMap(MappedSegment::lines) // a rail handles its segments one after another
+        ;
+    }
+
+    /**
+     * Same as {@link #parallelLines(Path, int)} with a {@code mapper} applied on the rails, but merged back in the file order.
+     *
+     * @param path file to map
+     * @param parallelism segments split and mapped at the same time
+     * @param mapper function applied to each line on a computation thread
+     * @return mapped lines in the file order
+     */
+    public static <R> Flowable<R> mappedLines(final Path path, final int parallelism, final Function<? super String, ? extends R> mapper) {
+        return segments(path, parallelism)
+            .concatMapEager( // subscribes to all segments at once, but emits them in order
+                  segment -> segment.lines()
+                    .map(mapper)
+                    .subscribeOn( Schedulers.computation() )
+                , parallelism
+                , Flowable.bufferSize()
+            )
+        ;
+    }
+
+    public static Flowable<MappedSegment> segments(final Path path, final int count) {
+        return Flowable
+            .fromCallable( () -> MappedSegment.split(path, count) ) // maps the file only on subscribe
+            .flatMapIterable(segments -> segments)
+        ;
+    }
+
+    /**
+     * @param readerSupplier opens the reader for each subscriber
+     * @param next returns next item of the reader or {@code null} if the reader is over
+     */
+    public static <T> Flowable<T> generate(final Callable<LineChunkReader> readerSupplier, final Function<LineChunkReader, T> next) {
+        return generate( readerSupplier, next, Schedulers.io() );
+    }
+
+    /**
+     * @param scheduler scheduler for the blocking reads, e.g. {@link VirtualThreadScheduler}
+     */
+    public static <T> Flowable<T> generate(final Callable<LineChunkReader> readerSupplier, final Function<LineChunkReader, T> next, final Scheduler scheduler) {
+        return Flowable.generate(
+              readerSupplier
+            , (LineChunkReader reader, Emitter<T> emitter) -> {
+                final T item = next.apply(reader);
+
+                if (item == null) {
+                    emitter.onComplete();
+                }
+                else {
+                    emitter.onNext(item);
+                }
+            }
+            , LineChunkReader::close // called on complete, error and cancel
+        )
+        .subscribeOn(scheduler) // blocking reads and the requests from downstream both go to the scheduler thread
+        ;
+    }
+}
@@ -3,6 +3,7 @@ package com.dpopov.rxjava;
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
+import com.dpopov.rxjava.schedulers.HashedWheelScheduler;
 import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
 
@@ -38,7 +39,7 @@ public class StartWithTest {
 		final String[] values = { "zero", "one", "two", "three", "four", "five", "six", "seven", "eight", "nine" };
 
 		return Observable
-			.interval(1, TimeUnit.SECONDS)
+			.interval(1, TimeUnit.SECONDS, HashedWheelScheduler.getInstance())
 			.map(i -> {
 				final String value = values[i.intValue() % values.length];
 				System.out.printf("I am emitting value: %s%n", value);
@@ -1,28 +1,53 @@
 package com.dpopov.rxjava;
 
-import java.text.SimpleDateFormat;
+import com.dpopov.rxjava.logging.AsyncLogger;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
 
 public final class Utils {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss:SSS").withZone( ZoneId.systemDefault() ); // immutable, unlike SimpleDateFormat
+    private static final AsyncLogger LOGGER = AsyncLogger.create(System.out);
+
+    // the separators are printed after the pending log lines, so that the log of a demo section does not spill into the next one
 
     public static void printMethodStart(final String methodName) {
+        LOGGER.flush();
         System.out.printf("========== [%s started] ========== \n", methodName);
     }
     public static void printSeparator() {
+        LOGGER.flush();
         System.out.println("===================================");
     }
 
 
+    /**
+     * Asynchronous: the line is written by the logger thread, and may come after the {@code System.out} output that follows this call.
+     */
     public static void log(final Class clazz, final String s) {
-        // todo: use logger
-        System.out.printf("[%s] %s \n", clazz.getSimpleName(), s);
+        LOGGER.log(clazz, s);
+    }
+
+    /**
+     * Same as {@code log(clazz, s + value)}, but without building the string on the calling thread.
+     */
+    public static void log(final Class clazz, final String s, final long value) {
+        LOGGER.log(clazz, s, value);
+    }
+
+    /**
+     * Waits until all the lines logged so far are written.
+     */
+    public static void flushLog() {
+        LOGGER.flush();
     }
 
     public static String formatDate() {
-        return formatDate( new Date() );
+        return DATE_FORMAT.format( Instant.now() );
     }
     public static String formatDate(final Date date) {
-        final SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss:SSS");
-        return format.format(date);
+        return DATE_FORMAT.format( date.toInstant() );
     }
 }
\ No newline at end of file
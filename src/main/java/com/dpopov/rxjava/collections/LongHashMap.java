@@ -0,0 +1,201 @@
+package com.dpopov.rxjava.collections;
+
+import java.util.Arrays;
+
+/**
+ * Map of primitive {@code long} keys, open addressing with linear probing over two parallel arrays: no boxed key and no entry object
+ * per mapping, so millions of keys cost two array slots each instead of a {@code HashMap.Node} and a {@code Long}.
+ * <br/>
+ * A removal shifts the following entries of its probe run back (no tombstones), so lookups stay short however many keys come and go.
+ * The arrays grow at half load and shrink again when the map gets 8 times emptier, down to the initial capacity:
+ * a burst of keys does not keep its memory after the keys are removed.
+ * <br/>
+ * Not thread-safe. Null values are not allowed, a null slot is a free one.
+ */
+public class LongHashMap<V> {
+    private static final int MIN_CAPACITY = 8;
+
+    private final int initialCapacity;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public static <V> LongHashMap<V> create() {
+        return create(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * @param expectedSize mappings that fit without growing
+     */
+    public static <V> LongHashMap<V> create(final int expectedSize) {
+        return new LongHashMap<>(expectedSize);
+    }
+
+    private LongHashMap(final int expectedSize) {
+        if (expectedSize < 0 || expectedSize > (1 << 29))
+            throw new IllegalArgumentException("expectedSize must be in [0, 2^29]: " + expectedSize);
+
+        initialCapacity = Math.max( MIN_CAPACITY, 1 << (32 - Integer.numberOfLeadingZeros(expectedSize * 2 - 1)) );
+        allocate(initialCapacity);
+    }
+
+    /**
+     * Murmur3 finalizer: neighbouring keys (e.g. sequential ids) spread over the whole table, in the low and in the high bits.
+     */
+    public static long hash(final long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return current length of the arrays
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(final long key) {
+        final int slot = find(key);
+        return (slot < 0) ? null : (V) values[slot];
+    }
+
+    public boolean containsKey(final long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * @return previous value of the key, {@code null} if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(final long key, final V value) {
+        if (value == null)
+            throw new NullPointerException("LongHashMap does not accept null values");
+
+        int slot = (int) hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                final V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+
+        if (++size > capacity() / 2) {
+            rehash( capacity() * 2 );
+        }
+        return null;
+    }
+
+    /**
+     * @return removed value, {@code null} if the key was not there
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(final long key) {
+        final int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+
+        final V removed = (V) values[slot];
+        shiftBack(slot);
+
+        if (--size < capacity() / 16 && capacity() > initialCapacity) { // 8 times below the growth load
+            rehash( Math.max( initialCapacity, capacity() / 4 ) );
+        }
+        return removed;
+    }
+
+    public void clear() {
+        size = 0;
+        if (capacity() > initialCapacity) {
+            allocate(initialCapacity);
+        }
+        else {
+            Arrays.fill(values, null);
+        }
+    }
+
+    /**
+     * @return slot of the key, -1 if it is not there
+     */
+    private int find(final long key) {
+        int slot = (int) hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Empties the slot, moving back the next entries of the run that would not be found past the hole (Knuth's algorithm R).
+     */
+    private void shiftBack(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == null) {
+                break;
+            }
+
+            final int home = (int) hash(keys[slot]) & mask;
+            if ( ((slot - home) & mask) >= ((slot - hole) & mask) ) { // its home is at or before the hole, cyclically
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+
+        values[hole] = null;
+    }
+
+    private void rehash(final int capacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = (int) hash(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LongHashMap [size: %d, capacity: %d]", size, capacity());
+    }
+}
@@ -0,0 +1,110 @@
+package com.dpopov.rxjava.concurrent;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Unbounded lock-free queue for any number of producers and one consumer thread at a time, Dmitry Vyukov's intrusive node design.
+ * <br/>
+ * A producer swaps its node into the producer end with one {@code getAndSet} and then links the previous node to it, so producers never retry
+ * and never wait for each other. The consumer follows the links without any atomic operation; between the swap and the link
+ * it sees the queue a bit shorter, and {@link #poll()} waits the few instructions until the link is written.
+ * <br/>
+ * Null elements are not allowed.
+ *
+ * @see <a href="http://www.1024cores.net/home/lock-free-algorithms/queues/non-intrusive-mpsc-node-based-queue">Non-intrusive MPSC node-based queue</a>
+ */
+public class MpscLinkedQueue<E> extends MpscLinkedQueueConsumerNode<E> {
+
+    public static <E> MpscLinkedQueue<E> create() {
+        return new MpscLinkedQueue<>();
+    }
+
+    private MpscLinkedQueue() {
+        final Node<E> stub = new Node<>(null);
+        consumerNode = stub;
+        producerNode = stub;
+    }
+
+    /**
+     * Any thread.
+     */
+    @SuppressWarnings("unchecked")
+    public void offer(final E element) {
+        if (element == null)
+            throw new NullPointerException("MpscLinkedQueue does not accept null elements");
+
+        final Node<E> node = new Node<>(element);
+        final Node<E> previous = PRODUCER_NODE.getAndSet(this, node);
+        previous.lazySet(node); // the link: the consumer can reach the node from now on
+    }
+
+    /**
+     * Consumer thread only.
+     *
+     * @return the oldest element or {@code null} if the queue is empty
+     */
+    public E poll() {
+        final Node<E> current = consumerNode;
+        Node<E> next = current.get();
+
+        if (next == null) {
+            if (current == producerNode) { // empty
+                return null;
+            }
+
+            do { // a producer has swapped the node in and is about to link it
+                Thread.onSpinWait();
+                next = current.get();
+            }
+            while (next == null);
+        }
+
+        final E element = next.element;
+        next.element = null; // the node becomes the stub, do not keep the element reachable
+        consumerNode = next;
+        return element;
+    }
+
+    /**
+     * Consumer thread only.
+     */
+    public boolean isEmpty() {
+        return consumerNode == producerNode;
+    }
+
+    /**
+     * Its value is the link to the next node.
+     */
+    static final class Node<E> extends AtomicReference<Node<E>> {
+        E element;
+
+        Node(final E element) {
+            this.element = element;
+        }
+    }
+}
+
+// Same padding as RingBuffer: the producer end is written by all the producers, the consumer end by the consumer only.
+
+abstract class MpscLinkedQueuePad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class MpscLinkedQueueProducerNode<E> extends MpscLinkedQueuePad0 {
+    @SuppressWarnings("rawtypes")
+    static final AtomicReferenceFieldUpdater<MpscLinkedQueueProducerNode, MpscLinkedQueue.Node> PRODUCER_NODE =
+        AtomicReferenceFieldUpdater.newUpdater(MpscLinkedQueueProducerNode.class, MpscLinkedQueue.Node.class, "producerNode");
+
+    volatile MpscLinkedQueue.Node<E> producerNode;
+}
+
+abstract class MpscLinkedQueuePad1<E> extends MpscLinkedQueueProducerNode<E> {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class MpscLinkedQueueConsumerNode<E> extends MpscLinkedQueuePad1<E> {
+    MpscLinkedQueue.Node<E> consumerNode;
+
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+}
@@ -0,0 +1,18 @@
+package com.dpopov.rxjava.concurrent;
+
+/**
+ * What a bounded buffer does with a new element when it is full.
+ */
+public enum OverflowPolicy {
+    /** Removes the oldest buffered element to make room for the new one. */
+    DROP_OLDEST,
+
+    /** Drops the new element. */
+    DROP_LATEST,
+
+    /** Fails, for Rx with {@code MissingBackpressureException}. */
+    ERROR,
+
+    /** The producer waits until there is room. Never use it when the producer thread is the one that frees the room. */
+    BLOCK
+}
@@ -0,0 +1,149 @@
+package com.dpopov.rxjava.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue over a preallocated power-of-two array, Dmitry Vyukov's design: each slot has a sequence number,
+ * a producer claims a slot with one CAS on the producer index and publishes the element by advancing the slot sequence.
+ * <br/>
+ * Any number of producers may {@link #offer(Object)} at once. The consumer side is CAS-based too, so producers can {@link #poll()}
+ * the oldest element to make room while the consumer drains (see {@link OverflowPolicy#DROP_OLDEST}).
+ * The two indexes are padded to different cache lines, so producers and the consumer do not invalidate each other's line.
+ * <br/>
+ * Null elements are not allowed.
+ *
+ * @see <a href="http://www.1024cores.net/home/lock-free-algorithms/queues/bounded-mpmc-queue">Bounded MPMC queue</a>
+ */
+public class RingBuffer<E> extends RingBufferConsumerIndex {
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences; // sequence == index: free for the producer of index, index + 1: filled for the consumer of index
+
+    public static <E> RingBuffer<E> create(final int capacity) {
+        return new RingBuffer<>(capacity);
+    }
+
+    private RingBuffer(final int capacity) {
+        if (capacity < 2 || capacity > (1 << 30))
+            throw new IllegalArgumentException("capacity must be in [2, 2^30]: " + capacity);
+
+        final int size = roundToPowerOfTwo(capacity);
+        mask = size - 1;
+        elements = new AtomicReferenceArray<>(size);
+
+        final long[] initial = new long[size];
+        for (int i = 0; i < size; i++) {
+            initial[i] = i;
+        }
+        sequences = new AtomicLongArray(initial);
+    }
+
+    /**
+     * @return capacity rounded up to a power of two
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return elements in the buffer, not exact while producers and consumers run
+     */
+    public int size() {
+        final long size = producerIndex - consumerIndex;
+        return (int) Math.max( 0, Math.min(size, capacity()) );
+    }
+
+    public boolean isEmpty() {
+        return producerIndex == consumerIndex;
+    }
+
+    /**
+     * @return {@code false} if the buffer is full
+     */
+    public boolean offer(final E element) {
+        if (element == null)
+            throw new NullPointerException("RingBuffer does not accept null elements");
+
+        long index = producerIndex;
+        while (true) {
+            final int slot = (int) index & mask;
+            final long difference = sequences.get(slot) - index;
+
+            if (difference == 0) { // the slot is free
+                if ( PRODUCER_INDEX.compareAndSet(this, index, index + 1) ) {
+                    elements.lazySet(slot, element);
+                    sequences.set(slot, index + 1); // publish. A full volatile write, so that a later volatile read of the caller can not pass it
+                    return true;
+                }
+
+                index = producerIndex; // another producer took it
+            }
+            else if (difference < 0) { // the consumer has not freed the slot since the previous round: full
+                return false;
+            }
+            else { // the slot is filled by another producer already, the index is stale
+                index = producerIndex;
+            }
+        }
+    }
+
+    /**
+     * @return the oldest element, or {@code null} if the buffer is empty (or the oldest element is being published right now)
+     */
+    public E poll() {
+        long index = consumerIndex;
+        while (true) {
+            final int slot = (int) index & mask;
+            final long difference = sequences.get(slot) - (index + 1);
+
+            if (difference == 0) { // the slot is filled
+                if ( CONSUMER_INDEX.compareAndSet(this, index, index + 1) ) {
+                    final E element = elements.get(slot);
+                    elements.lazySet(slot, null);
+                    sequences.lazySet(slot, index + mask + 1); // free for the producer of the next round
+                    return element;
+                }
+
+                index = consumerIndex;
+            }
+            else if (difference < 0) { // not published yet
+                return null;
+            }
+            else { // taken by another consumer already
+                index = consumerIndex;
+            }
+        }
+    }
+
+    private static int roundToPowerOfTwo(final int value) {
+        return 1 << (32 - Integer.numberOfLeadingZeros(value - 1));
+    }
+}
+
+// The indexes are in a class hierarchy with padding fields between them: the JVM may reorder the fields of one class, but not across classes.
+
+abstract class RingBufferPad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class RingBufferProducerIndex extends RingBufferPad0 {
+    static final AtomicLongFieldUpdater<RingBufferProducerIndex> PRODUCER_INDEX =
+        AtomicLongFieldUpdater.newUpdater(RingBufferProducerIndex.class, "producerIndex");
+
+    volatile long producerIndex;
+}
+
+abstract class RingBufferPad1 extends RingBufferProducerIndex {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class RingBufferConsumerIndex extends RingBufferPad1 {
+    static final AtomicLongFieldUpdater<RingBufferConsumerIndex> CONSUMER_INDEX =
+        AtomicLongFieldUpdater.newUpdater(RingBufferConsumerIndex.class, "consumerIndex");
+
+    volatile long consumerIndex;
+
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+}
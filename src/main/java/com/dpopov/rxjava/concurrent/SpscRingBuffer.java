@@ -0,0 +1,84 @@
+package com.dpopov.rxjava.concurrent;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded queue for exactly one producer thread and one consumer thread at a time, over a preallocated power-of-two array.
+ * <br/>
+ * The slots themselves say whether they are free (null) or filled, FastFlow style: the producer and the consumer keep their indexes
+ * in their own fields and never read each other's, so the only shared cache lines are the ones of the slots in use.
+ * An offer or a poll is one ordered write and one volatile read, without any CAS.
+ * <br/>
+ * Null elements are not allowed.
+ */
+public class SpscRingBuffer<E> {
+    private final AtomicReferenceArray<E> elements;
+    private final int mask;
+
+    // the producer and the consumer fields are written by different threads, keep them apart
+    private long p00, p01, p02, p03, p04, p05, p06, p07;
+    private long producerIndex;
+    private long p10, p11, p12, p13, p14, p15, p16, p17;
+    private long consumerIndex;
+    private long p20, p21, p22, p23, p24, p25, p26, p27;
+
+    public static <E> SpscRingBuffer<E> create(final int capacity) {
+        return new SpscRingBuffer<>(capacity);
+    }
+
+    private SpscRingBuffer(final int capacity) {
+        if (capacity < 1 || capacity > (1 << 30))
+            throw new IllegalArgumentException("capacity must be in [1, 2^30]: " + capacity);
+
+        final int size = 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1));
+        elements = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Producer thread only.
+     *
+     * @return {@code false} if the queue is full
+     */
+    public boolean offer(final E element) {
+        if (element == null)
+            throw new NullPointerException("SpscRingBuffer does not accept null elements");
+
+        final int slot = (int) producerIndex & mask;
+        if (elements.get(slot) != null) { // the consumer has not taken it yet: full
+            return false;
+        }
+
+        elements.lazySet(slot, element);
+        producerIndex++;
+        return true;
+    }
+
+    /**
+     * Consumer thread only.
+     *
+     * @return the oldest element or {@code null} if the queue is empty
+     */
+    public E poll() {
+        final int slot = (int) consumerIndex & mask;
+        final E element = elements.get(slot);
+        if (element == null) {
+            return null;
+        }
+
+        elements.lazySet(slot, null);
+        consumerIndex++;
+        return element;
+    }
+
+    /**
+     * Consumer thread only.
+     */
+    public boolean isEmpty() {
+        return elements.get( (int) consumerIndex & mask ) == null;
+    }
+}
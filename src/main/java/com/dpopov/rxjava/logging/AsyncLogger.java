@@ -0,0 +1,255 @@
+package com.dpopov.rxjava.logging;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logger that only copies the arguments of a call into a preallocated event and returns, one background thread formats and writes the events.
+ * <br/>
+ * The events are in a lock-free ring with a sequence per slot (same algorithm as {@link com.dpopov.rxjava.concurrent.RingBuffer},
+ * but the slots are reused instead of holding references), so logging threads do not serialize on the {@code System.out} lock,
+ * and a call costs one CAS, a few field writes and a clock read, with no allocation.
+ * A message with a number ({@link #log(Class, String, long)}) is concatenated by the writer, not by the caller.
+ * <br/>
+ * The writer formats into one reused {@code StringBuilder}, the time prefix is formatted once per second and the millis are appended by arithmetic.
+ * It writes to the output in batches: when its buffer is full or the ring is empty, and {@link #flush()} waits for the batch
+ * with its last event, so it returns under a steady load too.
+ * <br/>
+ * If the ring is full, callers wait for the writer, nothing is lost while the writer thread is alive. An event that fails to format
+ * is written as the exception instead. A shutdown hook writes what is left at exit.
+ */
+public class AsyncLogger {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final int BATCH_CHARS = 8192;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private static final DateTimeFormatter SECOND_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss:").withZone( ZoneId.systemDefault() );
+
+    private static final byte LOG = 0;
+    private static final byte LOG_VALUE = 1;
+
+    private final LogEvent[] events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong producerIndex = new AtomicLong();
+    private volatile long writtenIndex; // events before it are written and flushed
+
+    private final Writer output;
+    private final Thread writer;
+
+    // writer thread only
+    private final StringBuilder line = new StringBuilder(256);
+    private final char[] batch = new char[BATCH_CHARS];
+    private int batchLength;
+    private long batchedIndex; // events before it are in the batch or written
+    private long cachedSecond = -1;
+    private String cachedSecondPrefix;
+
+    public static AsyncLogger create(final OutputStream output) {
+        return create(output, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity events in the ring, rounded up to a power of two
+     */
+    public static AsyncLogger create(final OutputStream output, final int capacity) {
+        final AsyncLogger logger = new AsyncLogger(output, capacity);
+        logger.writer.start();
+        Runtime.getRuntime().addShutdownHook( new Thread(logger::flush, "async-logger-shutdown") );
+        return logger;
+    }
+
+    private AsyncLogger(final OutputStream output, final int capacity) {
+        if (capacity < 2 || capacity > (1 << 30))
+            throw new IllegalArgumentException("capacity must be in [2, 2^30]: " + capacity);
+
+        final int size = 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1));
+        mask = size - 1;
+
+        events = new LogEvent[size];
+        final long[] initial = new long[size];
+        for (int i = 0; i < size; i++) {
+            events[i] = new LogEvent();
+            initial[i] = i;
+        }
+        sequences = new AtomicLongArray(initial);
+
+        this.output = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+
+        writer = new Thread(this::writeLoop, "async-logger");
+        writer.setDaemon(true);
+    }
+
+    /**
+     * Writes {@code HH:mm:ss:SSS [ClassName] message}, the time is of this call.
+     */
+    public void log(final Class<?> source, final String message) {
+        publish(LOG, source, message, 0);
+    }
+
+    /**
+     * Writes {@code HH:mm:ss:SSS [ClassName] message + value}, the time is of this call and the concatenation is done by the writer.
+     */
+    public void log(final Class<?> source, final String message, final long value) {
+        publish(LOG_VALUE, source, message, value);
+    }
+
+    /**
+     * Waits until everything logged before this call is written.
+     */
+    public void flush() {
+        final long target = producerIndex.get();
+        while (writtenIndex < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    private void publish(final byte kind, final Class<?> source, final String message, final long value) {
+        final long timestamp = System.currentTimeMillis();
+
+        long index = producerIndex.get();
+        while (true) {
+            final int slot = (int) index & mask;
+            final long difference = sequences.get(slot) - index;
+
+            if (difference == 0) {
+                if ( producerIndex.compareAndSet(index, index + 1) ) {
+                    final LogEvent event = events[slot];
+                    event.kind = kind;
+                    event.timestamp = timestamp;
+                    event.source = source;
+                    event.message = message;
+                    event.value = value;
+
+                    sequences.lazySet(slot, index + 1); // publish, ordered after the fields
+                    return;
+                }
+            }
+            else if (difference < 0) { // full: wait for the writer, a log line is not dropped
+                if ( !writer.isAlive() ) { // nobody would free a slot
+                    return;
+                }
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+
+            index = producerIndex.get();
+        }
+    }
+
+    private void writeLoop() {
+        long index = 0;
+
+        while (true) {
+            final int slot = (int) index & mask;
+
+            if (sequences.get(slot) != index + 1) { // nothing published
+                writeBatch();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            final LogEvent event = events[slot];
+            try {
+                format(event);
+            }
+            catch (final RuntimeException e) { // e.g. a null source, the slot is freed anyway
+                line.setLength(0);
+                line.append("Failed to format a log event: ").append(e).append(" \n");
+            }
+            event.source = null; // do not keep the message alive
+            event.message = null;
+            sequences.lazySet(slot, index + mask + 1); // free for the next round
+
+            appendLine(); // writes the previous events first when the batch is full
+            batchedIndex = ++index;
+        }
+    }
+
+    private void format(final LogEvent event) {
+        line.setLength(0);
+
+        appendTime(event.timestamp);
+        line.append(" [").append( event.source.getSimpleName() ).append("] ").append(event.message);
+        if (event.kind == LOG_VALUE) {
+            line.append(event.value);
+        }
+        line.append(" \n");
+    }
+
+    /**
+     * {@code HH:mm:ss:SSS}, the {@code HH:mm:ss:} part is formatted once per second.
+     */
+    private void appendTime(final long timestamp) {
+        final long second = Math.floorDiv(timestamp, 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedSecondPrefix = SECOND_FORMAT.format( Instant.ofEpochSecond(second) );
+        }
+
+        final int millis = Math.floorMod(timestamp, 1000);
+        line.append(cachedSecondPrefix)
+            .append( (char) ('0' + millis / 100) )
+            .append( (char) ('0' + millis / 10 % 10) )
+            .append( (char) ('0' + millis % 10) )
+        ;
+    }
+
+    private void appendLine() {
+        final int length = line.length();
+        if (batchLength + length > batch.length) {
+            writeBatch();
+        }
+
+        if (length > batch.length) { // longer than the whole batch
+            write( line.toString().toCharArray(), length );
+            return;
+        }
+
+        line.getChars(0, length, batch, batchLength);
+        batchLength += length;
+    }
+
+    private void writeBatch() {
+        if (batchLength != 0) {
+            write(batch, batchLength);
+            batchLength = 0;
+        }
+
+        writtenIndex = batchedIndex;
+    }
+
+    private void write(final char[] chars, final int length) {
+        try {
+            output.write(chars, 0, length);
+            output.flush();
+        }
+        catch (final IOException e) {
+            e.printStackTrace(); // nowhere else to report it
+        }
+    }
+
+    /**
+     * Preallocated slot of the ring, written by one producer and then read by the writer, ordered by the slot sequence.
+     */
+    private static final class LogEvent {
+        private byte kind;
+        private long timestamp;
+        private Class<?> source;
+        private String message;
+        private long value;
+    }
+}
@@ -0,0 +1,137 @@
+package com.dpopov.rxjava.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of nanosecond values, with the log-linear buckets of HdrHistogram: values below 64 have one bucket each,
+ * every next power of two is split into 32 buckets. So a bucket is at most about 3% wide, for the whole {@code long} range, in 1888 counters.
+ * <br/>
+ * {@link #record(long)} is one atomic increment of the bucket plus two striped adders, from any number of threads.
+ * Percentiles are read from the counts without stopping the writers, so they may miss the values recorded meanwhile.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // 32
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2; // 64 values below it are exact
+    private static final int BUCKETS = LINEAR_LIMIT + (Long.SIZE - 1 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public static LatencyHistogram create() {
+        return new LatencyHistogram();
+    }
+
+    private LatencyHistogram() {
+    }
+
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+
+        counts.incrementAndGet( bucket(value) );
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        final long count = total.sum();
+        return (count == 0) ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return highest value of the bucket that holds the percentile, 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long count = 0;
+        final long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+
+        if (count == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max( 1, (long) Math.ceil(percentile / 100.0 * count) );
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min( highestValue(i), getMax() );
+            }
+        }
+
+        return getMax();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    static int bucket(final long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+
+        final int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS; // value >>> shift is in [32, 64)
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestValue(final int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+
+        final int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        final long mantissa = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ( (mantissa + 1) << shift ) - 1;
+    }
+
+    /**
+     * @return nanos as {@code 850ns}, {@code 12.3us}, {@code 4.5ms} or {@code 1.2s}
+     */
+    public static String format(final long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 1_000_000) {
+            return String.format("%.1fus", nanos / 1_000.0);
+        }
+        if (nanos < TimeUnit.SECONDS.toNanos(1)) {
+            return String.format("%.1fms", nanos / 1_000_000.0);
+        }
+        return String.format("%.1fs", nanos / 1_000_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+              "p50: %s, p99: %s, p99.9: %s, max: %s"
+            , format( getValueAtPercentile(50) )
+            , format( getValueAtPercentile(99) )
+            , format( getValueAtPercentile(99.9) )
+            , format( getMax() )
+        );
+    }
+}
@@ -0,0 +1,77 @@
+package com.dpopov.rxjava.metrics;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableSubscriber;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * rxjava2 {@code Flowable} assembled while {@link RxMetrics} is installed, same as {@link MeteredObservable}.
+ */
+final class MeteredFlowable<T> extends Flowable<T> {
+    private final Flowable<T> source;
+    private final StageMetrics stage;
+
+    MeteredFlowable(final Flowable<T> source, final StageMetrics stage) {
+        this.source = source;
+        this.stage = stage;
+    }
+
+    StageMetrics getStage() {
+        return stage;
+    }
+
+    @Override
+    protected void subscribeActual(final Subscriber<? super T> subscriber) {
+        stage.subscriptions.increment();
+        source.subscribe( new MeteredSubscriber<>(subscriber, stage) );
+    }
+
+    private static final class MeteredSubscriber<T> implements FlowableSubscriber<T>, Subscription {
+        private final Subscriber<? super T> downstream;
+        private final StageMetrics stage;
+        private Subscription upstream;
+
+        private MeteredSubscriber(final Subscriber<? super T> downstream, final StageMetrics stage) {
+            this.downstream = downstream;
+            this.stage = stage;
+        }
+
+        @Override
+        public void onSubscribe(final Subscription s) {
+            upstream = s;
+            downstream.onSubscribe(this); // not the upstream subscription, so that the downstream does not fuse past this stage
+        }
+
+        @Override
+        public void onNext(final T t) {
+            stage.items.increment();
+
+            final long start = System.nanoTime();
+            downstream.onNext(t);
+            stage.latency.record( System.nanoTime() - start );
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            stage.errors.increment();
+            downstream.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            stage.completions.increment();
+            downstream.onComplete();
+        }
+
+        @Override
+        public void request(final long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            upstream.cancel();
+        }
+    }
+}
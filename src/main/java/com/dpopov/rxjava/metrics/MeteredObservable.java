@@ -0,0 +1,80 @@
+package com.dpopov.rxjava.metrics;
+
+import io.reactivex.Observable;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * rxjava2 {@code Observable} assembled while {@link RxMetrics} is installed: counts what the wrapped operator emits
+ * and times the downstream {@code onNext}.
+ */
+final class MeteredObservable<T> extends Observable<T> {
+    private final Observable<T> source;
+    private final StageMetrics stage;
+
+    MeteredObservable(final Observable<T> source, final StageMetrics stage) {
+        this.source = source;
+        this.stage = stage;
+    }
+
+    StageMetrics getStage() {
+        return stage;
+    }
+
+    @Override
+    protected void subscribeActual(final Observer<? super T> observer) {
+        stage.subscriptions.increment();
+        source.subscribe( new MeteredObserver<>(observer, stage) );
+    }
+
+    /**
+     * Is the {@code Disposable} for the downstream too: passing the upstream one would let the downstream fuse with it and skip {@code onNext}.
+     */
+    private static final class MeteredObserver<T> implements Observer<T>, Disposable {
+        private final Observer<? super T> downstream;
+        private final StageMetrics stage;
+        private Disposable upstream;
+
+        private MeteredObserver(final Observer<? super T> downstream, final StageMetrics stage) {
+            this.downstream = downstream;
+            this.stage = stage;
+        }
+
+        @Override
+        public void onSubscribe(final Disposable d) {
+            upstream = d;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(final T t) {
+            stage.items.increment();
+
+            final long start = System.nanoTime();
+            downstream.onNext(t);
+            stage.latency.record( System.nanoTime() - start );
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            stage.errors.increment();
+            downstream.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            stage.completions.increment();
+            downstream.onComplete();
+        }
+
+        @Override
+        public void dispose() {
+            upstream.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return upstream.isDisposed();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.dpopov.rxjava.metrics;
+
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * rxjava1 {@code OnSubscribe} created while {@link RxMetrics} is installed, same as {@link MeteredObservable}.
+ */
+final class MeteredOnSubscribe<T> implements Observable.OnSubscribe<T> {
+    private final Observable.OnSubscribe<T> source;
+    private final StageMetrics stage;
+
+    MeteredOnSubscribe(final Observable.OnSubscribe<T> source, final StageMetrics stage) {
+        this.source = source;
+        this.stage = stage;
+    }
+
+    StageMetrics getStage() {
+        return stage;
+    }
+
+    @Override
+    public void call(final Subscriber<? super T> child) {
+        stage.subscriptions.increment();
+        source.call( new MeteredSubscriber<>(child, stage) );
+    }
+
+    private static final class MeteredSubscriber<T> extends Subscriber<T> {
+        private final Subscriber<? super T> child;
+        private final StageMetrics stage;
+
+        private MeteredSubscriber(final Subscriber<? super T> child, final StageMetrics stage) {
+            super(child); // shares the subscriptions and passes setProducer to the child
+            this.child = child;
+            this.stage = stage;
+        }
+
+        @Override
+        public void onNext(final T t) {
+            stage.items.increment();
+
+            final long start = System.nanoTime();
+            child.onNext(t);
+            stage.latency.record( System.nanoTime() - start );
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            stage.errors.increment();
+            child.onError(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            stage.completions.increment();
+            child.onCompleted();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.dpopov.rxjava.metrics;
+
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.internal.fuseable.HasUpstreamObservableSource;
+import io.reactivex.internal.fuseable.HasUpstreamPublisher;
+import io.reactivex.plugins.RxJavaPlugins;
+import rx.plugins.RxJavaHooks;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-operator throughput and latency, through the assembly hooks of rxjava2 ({@code RxJavaPlugins}) and rxjava1 ({@code RxJavaHooks}).
+ * <br/>
+ * After {@link #install()}, every {@code Observable} and {@code Flowable} operator assembled is wrapped, and each stage
+ * (operator class plus the first application frame of its assembly, e.g. {@code ObservableObserveOn @ App.main:50}) gets:
+ * <ul>
+ *     <li>emitted items and items/sec since the previous snapshot;</li>
+ *     <li>a histogram of the downstream {@code onNext} time, which includes all the synchronous stages after it;</li>
+ *     <li>for {@code observeOn} and {@code onBackpressureBuffer}, the queue depth: upstream items minus emitted items;</li>
+ *     <li>for {@code onBackpressureDrop} and {@code onBackpressureLatest}, the dropped count, from the same difference.</li>
+ * </ul>
+ * Other counters, e.g. the drops of {@code RingBufferBackpressureOperator}, are added with {@link #registerGauge(String, LongSupplier)}.
+ * <br/>
+ * The wrappers hide the operator fusion and cost two {@code nanoTime} calls per item and stage, so install it to find a bottleneck,
+ * not for every run. Operators assembled before {@link #install()} are not measured.
+ *
+ * <pre>
+ * RxMetrics.install();
+ * final Disposable dump = RxMetrics.startDump(5, TimeUnit.SECONDS, System.err::println);
+ * </pre>
+ */
+public final class RxMetrics {
+    private static final ConcurrentMap<String, StageMetrics> STAGES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongSupplier> GAUGES = new ConcurrentSkipListMap<>();
+    private static final AtomicLong ASSEMBLY_ORDER = new AtomicLong();
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private RxMetrics() {
+    }
+
+    /**
+     * Replaces the Observable and Flowable assembly hooks of rxjava2 and the Observable create hook of rxjava1.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static void install() {
+        RxJavaPlugins.setOnObservableAssembly( observable -> new MeteredObservable( observable, stage(observable) ) );
+        RxJavaPlugins.setOnFlowableAssembly( flowable -> new MeteredFlowable( flowable, stage(flowable) ) );
+        RxJavaHooks.setOnObservableCreate( onSubscribe -> new MeteredOnSubscribe( onSubscribe, stage(onSubscribe) ) );
+    }
+
+    /**
+     * Operators assembled after this are not wrapped, the collected metrics stay.
+     */
+    public static void uninstall() {
+        RxJavaPlugins.setOnObservableAssembly(null);
+        RxJavaPlugins.setOnFlowableAssembly(null);
+        RxJavaHooks.setOnObservableCreate(null);
+    }
+
+    /**
+     * @param name name in the dump
+     * @param gauge current value, called on each snapshot
+     */
+    public static void registerGauge(final String name, final LongSupplier gauge) {
+        GAUGES.put(name, gauge);
+    }
+
+    /**
+     * @return stages in the assembly order, which is the upstream to downstream order within one chain
+     */
+    public static List<StageSnapshot> snapshot() {
+        final List<StageMetrics> stages = new ArrayList<>( STAGES.values() );
+        stages.sort( Comparator.comparingLong(StageMetrics::getOrder) );
+
+        final List<StageSnapshot> snapshots = new ArrayList<>( stages.size() );
+        for (final StageMetrics stage : stages) {
+            snapshots.add( stage.snapshot() );
+        }
+        return snapshots;
+    }
+
+    public static Map<String, Long> gauges() {
+        final Map<String, Long> values = new TreeMap<>();
+        GAUGES.forEach( (name, gauge) -> values.put(name, gauge.getAsLong()) );
+        return values;
+    }
+
+    /**
+     * @return one line per stage and per gauge
+     */
+    public static String dump() {
+        final StringBuilder builder = new StringBuilder("RxMetrics:");
+
+        for (final StageSnapshot stage : snapshot()) {
+            builder.append("\n  ").append(stage);
+        }
+        gauges().forEach( (name, value) -> builder.append("\n  ").append(name).append(": ").append(value) );
+
+        return builder.toString();
+    }
+
+    /**
+     * @param output receives {@link #dump()} every {@code period}, on a daemon thread
+     * @return disposable that stops the dumps
+     */
+    public static Disposable startDump(final long period, final TimeUnit unit, final Consumer<String> output) {
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "rx-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // a plain executor, not an rx interval: it must not measure itself
+        executor.scheduleAtFixedRate( () -> output.accept( dump() ), period, period, unit );
+        return Disposables.fromRunnable(executor::shutdownNow);
+    }
+
+    /**
+     * Forgets all the stages and gauges.
+     */
+    public static void reset() {
+        STAGES.clear();
+        GAUGES.clear();
+    }
+
+    private static StageMetrics stage(final Observable<?> observable) {
+        final StageMetrics stage = stage( observable.getClass().getSimpleName() );
+
+        if (observable instanceof HasUpstreamObservableSource) {
+            final Object upstream = ( (HasUpstreamObservableSource<?>) observable ).source();
+            if (upstream instanceof MeteredObservable) {
+                stage.setUpstream( ( (MeteredObservable<?>) upstream ).getStage() );
+            }
+        }
+
+        return stage;
+    }
+
+    private static StageMetrics stage(final Flowable<?> flowable) {
+        final StageMetrics stage = stage( flowable.getClass().getSimpleName() );
+
+        if (flowable instanceof HasUpstreamPublisher) {
+            final Object upstream = ( (HasUpstreamPublisher<?>) flowable ).source();
+            if (upstream instanceof MeteredFlowable) {
+                stage.setUpstream( ( (MeteredFlowable<?>) upstream ).getStage() );
+            }
+        }
+
+        return stage;
+    }
+
+    /**
+     * rxjava1 has no public upstream accessor: {@code lift} creates an {@code OnSubscribeLift} with {@code parent} and {@code operator} fields,
+     * other operators mostly keep their upstream in a {@code source} field. They are read by reflection, if it fails the stage just has no upstream.
+     */
+    private static StageMetrics stage(final rx.Observable.OnSubscribe<?> onSubscribe) {
+        final Object operator = field(onSubscribe, "operator");
+        final Class<?> type = (operator != null) ? operator.getClass() : onSubscribe.getClass();
+        final StageMetrics stage = stage( type.isSynthetic() ? "OnSubscribe lambda" : type.getSimpleName() );
+
+        Object upstream = field(onSubscribe, "parent");
+        if (upstream == null) {
+            upstream = field(onSubscribe, "source");
+        }
+        if (upstream instanceof rx.Observable) {
+            upstream = field(upstream, "onSubscribe");
+        }
+        if (upstream instanceof MeteredOnSubscribe) {
+            stage.setUpstream( ( (MeteredOnSubscribe<?>) upstream ).getStage() );
+        }
+
+        return stage;
+    }
+
+    private static StageMetrics stage(final String operator) {
+        final String place = assemblyPlace();
+        return STAGES.computeIfAbsent( operator + " @ " + place, key -> new StageMetrics(operator, place, ASSEMBLY_ORDER.getAndIncrement()) );
+    }
+
+    /**
+     * @return first frame out of rxjava and this class, e.g. {@code App.main:50}
+     */
+    private static String assemblyPlace() {
+        return STACK_WALKER.walk( frames -> frames
+            .filter( frame -> !isLibraryFrame( frame.getClassName() ) )
+            .findFirst()
+            .map( frame -> simpleName( frame.getClassName() ) + "." + frame.getMethodName() + ":" + frame.getLineNumber() )
+            .orElse("unknown")
+        );
+    }
+
+    private static boolean isLibraryFrame(final String className) {
+        return className.startsWith("io.reactivex.")
+            || className.startsWith("rx.")
+            || className.startsWith("java.")
+            || className.equals( RxMetrics.class.getName() )
+            || className.startsWith( RxMetrics.class.getName() + "$" ) // the hook lambdas
+        ;
+    }
+
+    private static String simpleName(final String className) {
+        return className.substring( className.lastIndexOf('.') + 1 );
+    }
+
+    private static Object field(final Object target, final String name) {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                final Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return field.get(target);
+            }
+            catch (final NoSuchFieldException e) {
+                // look in the superclass
+            }
+            catch (final ReflectiveOperationException | RuntimeException e) { // e.g. inaccessible
+                return null;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,96 @@
+package com.dpopov.rxjava.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one operator at one assembly place, e.g. {@code ObservableObserveOn @ App.main:50}. All the subscriptions of the operator
+ * assembled at that place add up here, so operators assembled per item (inside {@code flatMap}) do not create a stage per item.
+ */
+public class StageMetrics {
+    private final String operator;
+    private final String assemblyPlace;
+    private final long order; // assembly order, for the dump
+
+    private volatile StageMetrics upstream;
+
+    final LongAdder items = new LongAdder();
+    final LongAdder subscriptions = new LongAdder();
+    final LongAdder completions = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LatencyHistogram latency = LatencyHistogram.create(); // of the downstream onNext, so it includes the stages after this one
+
+    // for the rate since the previous snapshot
+    private long lastItems;
+    private long lastNanos = System.nanoTime();
+
+    StageMetrics(final String operator, final String assemblyPlace, final long order) {
+        this.operator = operator;
+        this.assemblyPlace = assemblyPlace;
+        this.order = order;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public String getAssemblyPlace() {
+        return assemblyPlace;
+    }
+
+    long getOrder() {
+        return order;
+    }
+
+    public StageMetrics getUpstream() {
+        return upstream;
+    }
+
+    void setUpstream(final StageMetrics upstream) {
+        if (this.upstream == null && upstream != this) {
+            this.upstream = upstream;
+        }
+    }
+
+    /**
+     * Operators with a queue between their input and output: the backlog is what came from the upstream and was not emitted yet.
+     */
+    boolean isQueue() {
+        return operator.contains("ObserveOn") || operator.contains("OnBackpressureBuffer");
+    }
+
+    /**
+     * Operators that throw away what they can not emit: everything from the upstream that was not emitted is dropped.
+     */
+    boolean isDropping() {
+        return operator.contains("OnBackpressureDrop") || operator.contains("OnBackpressureLatest");
+    }
+
+    synchronized StageSnapshot snapshot() {
+        final long now = System.nanoTime();
+        final long itemsNow = items.sum();
+
+        final double itemsPerSecond = (now == lastNanos) ? 0 : (itemsNow - lastItems) * 1_000_000_000.0 / (now - lastNanos);
+        lastItems = itemsNow;
+        lastNanos = now;
+
+        final StageMetrics up = upstream;
+        final long upstreamItems = (up == null) ? -1 : up.items.sum();
+        final long notEmitted = (up == null) ? 0 : Math.max(0, upstreamItems - itemsNow);
+
+        return new StageSnapshot(
+              operator
+            , assemblyPlace
+            , subscriptions.sum()
+            , itemsNow
+            , itemsPerSecond
+            , upstreamItems
+            , isQueue() ? notEmitted : 0
+            , isDropping() ? notEmitted : 0
+            , completions.sum()
+            , errors.sum()
+            , latency.getValueAtPercentile(50)
+            , latency.getValueAtPercentile(99)
+            , latency.getMax()
+        );
+    }
+}
@@ -0,0 +1,149 @@
+package com.dpopov.rxjava.metrics;
+
+/**
+ * Values of {@link StageMetrics} at one moment.
+ */
+public class StageSnapshot {
+    private final String operator;
+    private final String assemblyPlace;
+    private final long subscriptions;
+    private final long items;
+    private final double itemsPerSecond;
+    private final long upstreamItems;
+    private final long queueDepth;
+    private final long droppedCount;
+    private final long completions;
+    private final long errors;
+    private final long latencyP50;
+    private final long latencyP99;
+    private final long latencyMax;
+
+    StageSnapshot(
+          final String operator
+        , final String assemblyPlace
+        , final long subscriptions
+        , final long items
+        , final double itemsPerSecond
+        , final long upstreamItems
+        , final long queueDepth
+        , final long droppedCount
+        , final long completions
+        , final long errors
+        , final long latencyP50
+        , final long latencyP99
+        , final long latencyMax
+    ) {
+        this.operator = operator;
+        this.assemblyPlace = assemblyPlace;
+        this.subscriptions = subscriptions;
+        this.items = items;
+        this.itemsPerSecond = itemsPerSecond;
+        this.upstreamItems = upstreamItems;
+        this.queueDepth = queueDepth;
+        this.droppedCount = droppedCount;
+        this.completions = completions;
+        this.errors = errors;
+        this.latencyP50 = latencyP50;
+        this.latencyP99 = latencyP99;
+        this.latencyMax = latencyMax;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public String getAssemblyPlace() {
+        return assemblyPlace;
+    }
+
+    public long getSubscriptions() {
+        return subscriptions;
+    }
+
+    /**
+     * @return items emitted by the operator
+     */
+    public long getItems() {
+        return items;
+    }
+
+    /**
+     * @return emission rate since the previous snapshot of the stage
+     */
+    public double getItemsPerSecond() {
+        return itemsPerSecond;
+    }
+
+    /**
+     * @return items emitted by the instrumented upstream stage, -1 if the upstream is not known (a source, or an rxjava1 operator)
+     */
+    public long getUpstreamItems() {
+        return upstreamItems;
+    }
+
+    /**
+     * @return items waiting in the queue of {@code observeOn} or {@code onBackpressureBuffer}, 0 for other operators
+     */
+    public long getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return items dropped by {@code onBackpressureDrop} or {@code onBackpressureLatest}, 0 for other operators
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public long getCompletions() {
+        return completions;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return median time of the downstream {@code onNext}, in nanos
+     */
+    public long getLatencyP50() {
+        return latencyP50;
+    }
+
+    public long getLatencyP99() {
+        return latencyP99;
+    }
+
+    public long getLatencyMax() {
+        return latencyMax;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder()
+            .append( String.format(
+                  "%-40s %-40s subs: %d, items: %d (%.0f/s), onNext p50: %s, p99: %s, max: %s"
+                , operator
+                , assemblyPlace
+                , subscriptions
+                , items
+                , itemsPerSecond
+                , LatencyHistogram.format(latencyP50)
+                , LatencyHistogram.format(latencyP99)
+                , LatencyHistogram.format(latencyMax)
+            ) )
+        ;
+
+        if (queueDepth > 0) {
+            builder.append(", queued: ").append(queueDepth);
+        }
+        if (droppedCount > 0) {
+            builder.append(", dropped: ").append(droppedCount);
+        }
+        if (errors > 0) {
+            builder.append(", errors: ").append(errors);
+        }
+
+        return builder.toString();
+    }
+}
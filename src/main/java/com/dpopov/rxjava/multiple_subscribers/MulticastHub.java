@@ -0,0 +1,455 @@
+package com.dpopov.rxjava.multiple_subscribers;
+
+import com.dpopov.rxjava.concurrent.OverflowPolicy;
+import com.dpopov.rxjava.concurrent.SpscRingBuffer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Observer;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.functions.Consumer;
+import io.reactivex.observables.ConnectableObservable;
+import io.reactivex.schedulers.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@code publish()} where every subscriber has its own bounded queue and its own overflow policy, and gets the items on its own scheduler worker.
+ * <br/>
+ * The source is subscribed once on {@link #connect()}. Its thread only puts the same item reference into the queue of each subscriber
+ * (a single-producer / single-consumer {@link SpscRingBuffer}), so a slow subscriber fills its own queue instead of holding back the others:
+ * <ul>
+ *     <li>{@link OverflowPolicy#BLOCK} - the source waits for this subscriber, and so do all the others. The default, nothing is lost.</li>
+ *     <li>{@link OverflowPolicy#DROP_LATEST} - the new item is dropped for this subscriber only.</li>
+ *     <li>{@link OverflowPolicy#DROP_OLDEST} with capacity 1 - conflation: the subscriber gets the latest item when it is ready, see {@link #latest()}.</li>
+ *     <li>{@link OverflowPolicy#ERROR} - this subscriber gets {@code MissingBackpressureException} after the queued items and is removed.</li>
+ * </ul>
+ *
+ * <pre>
+ * final MulticastHub&lt;Tick&gt; hub = MulticastHub.from(ticks);
+ * hub.subscribe(tick -&gt; store(tick)); // BLOCK, gets every tick
+ * hub.withOverflow(OverflowPolicy.DROP_LATEST, 1024).subscribe(tick -&gt; chart(tick));
+ * hub.latest().subscribe(tick -&gt; show(tick));
+ * hub.connect();
+ * </pre>
+ */
+public class MulticastHub<T> extends ConnectableObservable<T> {
+    public static final int DEFAULT_CAPACITY = Observable.bufferSize();
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final ObservableSource<T> source;
+    private final Scheduler scheduler;
+
+    private final AtomicReference<HubConnection<T>> current = new AtomicReference<>();
+
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder blockedCount = new LongAdder();
+
+    public static <T> MulticastHub<T> from(final ObservableSource<T> source) {
+        return from( source, Schedulers.newThread() ); // a thread per subscriber: computation() would put slow and fast ones on the same core
+    }
+
+    /**
+     * @param scheduler each subscriber gets its items on its own worker of this scheduler. The workers must not share a thread,
+     *                  otherwise the slow subscribers hold back the fast ones anyway, e.g. {@code VirtualThreadScheduler} for the blocking ones.
+     */
+    public static <T> MulticastHub<T> from(final ObservableSource<T> source, final Scheduler scheduler) {
+        return new MulticastHub<>(source, scheduler);
+    }
+
+    private MulticastHub(final ObservableSource<T> source, final Scheduler scheduler) {
+        this.source = source;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @return items dropped for all the subscribers, with {@link OverflowPolicy#DROP_LATEST} or by conflation
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * @return times the source had to wait for a full {@link OverflowPolicy#BLOCK} subscriber
+     */
+    public long getBlockedCount() {
+        return blockedCount.sum();
+    }
+
+    /**
+     * @return view of this hub whose subscribers get a queue of {@code capacity} items (rounded up to a power of two) and the {@code policy}.
+     * {@link OverflowPolicy#DROP_OLDEST} is supported with capacity 1 only: the source thread can not take the oldest item from a single-consumer queue.
+     */
+    public Observable<T> withOverflow(final OverflowPolicy policy, final int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+
+        if (policy == OverflowPolicy.DROP_OLDEST && capacity != 1)
+            throw new IllegalArgumentException("DROP_OLDEST is supported with capacity 1 only (conflation): " + capacity);
+
+        return new Observable<T>() {
+            @Override
+            protected void subscribeActual(final Observer<? super T> observer) {
+                add(observer, policy, capacity);
+            }
+        };
+    }
+
+    /**
+     * @return view of this hub whose subscribers get only the latest item, the ones that came while they were busy are dropped
+     */
+    public Observable<T> latest() {
+        return withOverflow(OverflowPolicy.DROP_OLDEST, 1);
+    }
+
+    @Override
+    protected void subscribeActual(final Observer<? super T> observer) {
+        add(observer, OverflowPolicy.BLOCK, DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public void connect(final Consumer<? super Disposable> connection) {
+        HubConnection<T> hubConnection;
+        while (true) {
+            hubConnection = current.get();
+            if ( hubConnection != null && !hubConnection.isDisposed() ) {
+                break;
+            }
+
+            final HubConnection<T> fresh = new HubConnection<>(this);
+            if ( current.compareAndSet(hubConnection, fresh) ) {
+                hubConnection = fresh;
+                break;
+            }
+        }
+
+        final boolean doConnect = hubConnection.connected.compareAndSet(false, true);
+
+        try {
+            connection.accept(hubConnection);
+        }
+        catch (final Throwable e) {
+            Exceptions.throwIfFatal(e);
+            throw Exceptions.propagate(e);
+        }
+
+        if (doConnect) {
+            source.subscribe(hubConnection);
+        }
+    }
+
+    private void add(final Observer<? super T> observer, final OverflowPolicy policy, final int capacity) {
+        final HubSubscriber<T> subscriber = new HubSubscriber<>( observer, policy, capacity, scheduler.createWorker(), this );
+        observer.onSubscribe(subscriber);
+
+        while (true) {
+            final HubConnection<T> hubConnection = current.get();
+            if (hubConnection == null) { // never connected or the previous source has terminated
+                current.compareAndSet( null, new HubConnection<>(this) );
+                continue;
+            }
+
+            if ( hubConnection.isDisposed() ) { // the subscribers of a disposed connection get nothing more, wait for the next one
+                current.compareAndSet(hubConnection, null);
+                continue;
+            }
+
+            if ( hubConnection.add(subscriber) ) {
+                subscriber.connection = hubConnection;
+                if ( subscriber.isDisposed() ) { // disposed before it got the connection
+                    hubConnection.remove(subscriber);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Subscriber to the source: one per {@link #connect()}, hands every item to all the subscribers of the hub.
+     */
+    private static final class HubConnection<T> implements Observer<T>, Disposable {
+        private static final HubSubscriber<?>[] EMPTY = new HubSubscriber<?>[0];
+        private static final HubSubscriber<?>[] TERMINATED = new HubSubscriber<?>[0];
+        private static final Disposable DISPOSED = Disposables.empty(); // own instance, the upstream can not pass it
+
+        private final MulticastHub<T> hub;
+        private final AtomicReference<HubSubscriber<?>[]> subscribers = new AtomicReference<>(EMPTY); // copy on write, read for each item
+        private final AtomicReference<Disposable> upstream = new AtomicReference<>();
+        private final AtomicBoolean connected = new AtomicBoolean();
+
+        private HubConnection(final MulticastHub<T> hub) {
+            this.hub = hub;
+        }
+
+        @Override
+        public void onSubscribe(final Disposable d) {
+            if ( !upstream.compareAndSet(null, d) ) {
+                d.dispose();
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onNext(final T t) {
+            for ( final HubSubscriber<?> subscriber : subscribers.get() ) {
+                ( (HubSubscriber<T>) subscriber ).offer(t); // the same reference for everyone, no copies
+            }
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            terminate(e);
+        }
+
+        @Override
+        public void onComplete() {
+            terminate(null);
+        }
+
+        private void terminate(final Throwable e) {
+            hub.current.compareAndSet(this, null); // new subscribers wait for the next connect
+
+            for ( final HubSubscriber<?> subscriber : subscribers.getAndSet(TERMINATED) ) {
+                subscriber.terminate(e);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            final Disposable d = upstream.getAndSet(DISPOSED);
+            if (d == DISPOSED) {
+                return;
+            }
+
+            if (d != null) {
+                d.dispose();
+            }
+
+            hub.current.compareAndSet(this, null);
+
+            for ( final HubSubscriber<?> subscriber : subscribers.getAndSet(TERMINATED) ) { // same as publish(): the subscribers just get nothing more
+                subscriber.dispose(); // but their workers and queues are released
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return upstream.get() == DISPOSED;
+        }
+
+        private boolean add(final HubSubscriber<T> subscriber) {
+            while (true) {
+                final HubSubscriber<?>[] current = subscribers.get();
+                if (current == TERMINATED) {
+                    return false;
+                }
+
+                final HubSubscriber<?>[] next = new HubSubscriber<?>[current.length + 1];
+                System.arraycopy(current, 0, next, 0, current.length);
+                next[current.length] = subscriber;
+
+                if ( subscribers.compareAndSet(current, next) ) {
+                    return true;
+                }
+            }
+        }
+
+        private void remove(final HubSubscriber<?> subscriber) {
+            while (true) {
+                final HubSubscriber<?>[] current = subscribers.get();
+
+                int index = -1;
+                for (int i = 0; i < current.length; i++) {
+                    if (current[i] == subscriber) {
+                        index = i;
+                        break;
+                    }
+                }
+
+                if (index < 0) { // removed already or terminated
+                    return;
+                }
+
+                final HubSubscriber<?>[] next;
+                if (current.length == 1) {
+                    next = EMPTY;
+                }
+                else {
+                    next = new HubSubscriber<?>[current.length - 1];
+                    System.arraycopy(current, 0, next, 0, index);
+                    System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+                }
+
+                if ( subscribers.compareAndSet(current, next) ) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * One subscriber of the hub. {@link #offer(Object)} and {@link #terminate(Throwable)} come from the source thread (the only producer),
+     * the drain runs on the worker (the only consumer), queue-drain with {@code wip}.
+     */
+    private static final class HubSubscriber<T> implements Disposable, Runnable {
+        private final Observer<? super T> downstream;
+        private final OverflowPolicy policy;
+        private final SpscRingBuffer<T> queue; // null when conflating
+        private final AtomicReference<T> latest = new AtomicReference<>(); // conflation slot
+        private final Scheduler.Worker worker;
+        private final MulticastHub<T> hub;
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile HubConnection<T> connection;
+        private volatile boolean done;
+        private Throwable error; // published by done
+        private volatile boolean disposed;
+
+        private HubSubscriber(
+              final Observer<? super T> downstream
+            , final OverflowPolicy policy
+            , final int capacity
+            , final Scheduler.Worker worker
+            , final MulticastHub<T> hub
+        ) {
+            this.downstream = downstream;
+            this.policy = policy;
+            this.queue = (policy == OverflowPolicy.DROP_OLDEST) ? null : SpscRingBuffer.create(capacity);
+            this.worker = worker;
+            this.hub = hub;
+        }
+
+        private void offer(final T t) {
+            if (done || disposed) {
+                return;
+            }
+
+            if (queue == null) {
+                if (latest.getAndSet(t) != null) {
+                    hub.droppedCount.increment();
+                }
+            }
+            else if ( !queue.offer(t) ) {
+                switch (policy) {
+                    case DROP_LATEST:
+                        hub.droppedCount.increment();
+                        return;
+
+                    case BLOCK:
+                        hub.blockedCount.increment();
+                        do {
+                            schedule(); // the drain might have finished just before the offer
+                            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                        }
+                        while ( !disposed && !queue.offer(t) );
+                        break;
+
+                    default: // ERROR
+                        remove();
+                        terminate( new MissingBackpressureException("Subscriber queue of " + queue.capacity() + " items is full") );
+                        return;
+                }
+            }
+
+            schedule();
+        }
+
+        private void terminate(final Throwable e) {
+            if (done) {
+                return;
+            }
+
+            error = e;
+            done = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                worker.schedule(this);
+            }
+        }
+
+        private T poll() {
+            return (queue == null) ? latest.getAndSet(null) : queue.poll();
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                while (true) {
+                    if (disposed) {
+                        return;
+                    }
+
+                    final boolean isDone = done; // read before the poll: empty after done means nothing more comes
+                    final T t = poll();
+
+                    if (t == null) {
+                        if (isDone) {
+                            disposed = true;
+                            worker.dispose();
+
+                            final Throwable e = error;
+                            if (e != null) {
+                                downstream.onError(e);
+                            }
+                            else {
+                                downstream.onComplete();
+                            }
+                            return;
+                        }
+                        break;
+                    }
+
+                    try {
+                        downstream.onNext(t);
+                    }
+                    catch (final Throwable e) {
+                        Exceptions.throwIfFatal(e);
+                        dispose(); // removed from the connection, a blocked source stops waiting for it
+                        downstream.onError(e);
+                        return;
+                    }
+                }
+
+                missed = wip.addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+
+        @Override
+        public void dispose() {
+            if (disposed) {
+                return;
+            }
+
+            disposed = true;
+            remove();
+            worker.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        private void remove() {
+            final HubConnection<T> hubConnection = connection;
+            if (hubConnection != null) {
+                hubConnection.remove(this);
+            }
+        }
+    }
+}
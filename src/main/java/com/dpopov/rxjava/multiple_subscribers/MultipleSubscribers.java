@@ -1,10 +1,16 @@
 package com.dpopov.rxjava.multiple_subscribers;
 
 import com.dpopov.rxjava.Utils;
+import com.dpopov.rxjava.concurrent.OverflowPolicy;
 import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.observables.ConnectableObservable;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * @see <a href="https://www.baeldung.com/rxjava-multiple-subscribers-observable">https://www.baeldung.com/rxjava-multiple-subscribers-observable</a>
  */
@@ -13,6 +19,7 @@ public class MultipleSubscribers {
     public static void main(String[] args) throws InterruptedException {
         executeMultipleSubscribersOnObservable();
         executeMultipleSubscribersOnConnectableObservable();
+        executeMultipleSubscribersOnMulticastHub();
     }
 
     private static void executeMultipleSubscribersOnObservable() {
@@ -25,8 +32,8 @@ public class MultipleSubscribers {
         log("Subscribing to Observable...");
 
         // Subscription from rxjava 1 is Disposable in rxjava 2
-        final Disposable subscriber1 = observable.subscribe(i -> log("subscriber#1 gets " + i) );
-        final Disposable subscriber2 = observable.subscribe( i -> log("subscriber#2 gets " + i) );
+        final Disposable subscriber1 = observable.subscribe(i -> log("subscriber#1 gets ", i) );
+        final Disposable subscriber2 = observable.subscribe( i -> log("subscriber#2 gets ", i) );
 
         // Subscription.unsubscribe is replaced by Disposable.dispose
         // @see https://blog.kaush.co/2017/06/21/rxjava-1-rxjava-2-disposing-subscriptions/
@@ -48,8 +55,8 @@ public class MultipleSubscribers {
         log("Subscribing to ConnectableObservable...");
 
         // Subscription from rxjava 1 is Disposable in rxjava 2
-        final Disposable subscriber1 = connectableObservable.subscribe(i -> log("subscriber#1 gets " + i) );
-        final Disposable subscriber2 = connectableObservable.subscribe( i -> log("subscriber#2 gets " + i) );
+        final Disposable subscriber1 = connectableObservable.subscribe(i -> log("subscriber#1 gets ", i) );
+        final Disposable subscriber2 = connectableObservable.subscribe( i -> log("subscriber#2 gets ", i) );
 
         log("Subscribed to ConnectableObservable...");
 
@@ -77,6 +84,58 @@ public class MultipleSubscribers {
     }
 
 
+    private static void executeMultipleSubscribersOnMulticastHub() throws InterruptedException {
+        Utils.printMethodStart("executeMultipleSubscribersOnMulticastHub");
+
+        // MulticastHub is a ConnectableObservable too, but each subscriber has its own queue and overflow policy
+        // and gets the items on its own thread, so the slow subscribers do not hold back the fast one
+        final int count = 100_000;
+        final MulticastHub<Integer> hub = MulticastHub.from( Observable.range(1, count) );
+
+        final CountDownLatch completed = new CountDownLatch(3);
+        final AtomicInteger fastReceived = new AtomicInteger();
+        final AtomicInteger droppingReceived = new AtomicInteger();
+        final AtomicInteger latestReceived = new AtomicInteger();
+
+        log("Subscribing to MulticastHub...");
+
+        // BLOCK by default: gets every item
+        hub
+            .doOnComplete(completed::countDown)
+            .subscribe( i -> fastReceived.incrementAndGet() );
+
+        // slow, drops the items that do not fit into its 1024 items queue
+        hub.withOverflow(OverflowPolicy.DROP_LATEST, 1024)
+            .doOnComplete(completed::countDown)
+            .subscribe( i -> {
+                droppingReceived.incrementAndGet();
+                LockSupport.parkNanos( TimeUnit.MICROSECONDS.toNanos(10) );
+            } );
+
+        // slow, gets only the latest item when it is ready
+        hub.latest()
+            .doOnComplete(completed::countDown)
+            .subscribe( i -> {
+                latestReceived.incrementAndGet();
+                Thread.sleep(1);
+            } );
+
+        log("Connecting to MulticastHub...");
+        final Disposable disposableFromConnect = hub.connect(); // source is walked once, the same Integer goes to each queue
+
+        completed.await();
+
+        log("fast subscriber got: ", fastReceived.get());
+        log("dropping subscriber got: ", droppingReceived.get());
+        log("conflating subscriber got: ", latestReceived.get());
+        log("dropped: ", hub.getDroppedCount());
+
+        disposableFromConnect.dispose();
+
+        Utils.printSeparator();
+    }
+
+
     private static ConnectableObservable<Integer> getConnectableObservable() {
         return getObservable().publish(); // publish returns a ConnectableObservable
     }
@@ -86,18 +145,21 @@ public class MultipleSubscribers {
             subscriber.onNext( getValue(1) );
             subscriber.onNext( getValue(2) );
         } )
-            .doOnNext( i -> log( String.format("doOnNext. Value: %d", i) ) )
+            .doOnNext( i -> log("doOnNext. Value: ", i) )
             .doOnDispose( () -> log("Clearing Observable resources on dispose.") ) // doOnDispose replaced doOnUnsubscribe
             .doFinally( () -> log("Clearing Observable resources on finally.") )
         ;
     }
 
     private static Integer getValue(final int i) {
-        log("Getting " + i);
+        log("Getting ", i);
         return i;
     }
 
     private static void log(final String s) {
         Utils.log(MultipleSubscribers.class, s);
     }
+    private static void log(final String s, final long value) {
+        Utils.log(MultipleSubscribers.class, s, value);
+    }
 }
\ No newline at end of file
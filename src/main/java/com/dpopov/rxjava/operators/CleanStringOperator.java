@@ -0,0 +1,115 @@
+package com.dpopov.rxjava.operators;
+
+import io.reactivex.FlowableOperator;
+import io.reactivex.FlowableSubscriber;
+import io.reactivex.ObservableOperator;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * rxjava2 version of {@link com.dpopov.rxjava.v1.operators.ToCleanStringOperator}: use with {@code Observable#lift} or {@code Flowable#lift}.
+ * Each subscriber gets its own {@link StringCleaner}, so the scratch buffer is never shared between threads.
+ */
+public class CleanStringOperator implements ObservableOperator<String, String>, FlowableOperator<String, String> {
+
+    public static CleanStringOperator create() {
+        return new CleanStringOperator();
+    }
+
+    private CleanStringOperator() {
+    }
+
+    @Override
+    public Observer<? super String> apply(final Observer<? super String> observer) {
+        return new CleanObserver(observer);
+    }
+
+    @Override
+    public Subscriber<? super String> apply(final Subscriber<? super String> subscriber) {
+        return new CleanSubscriber(subscriber);
+    }
+
+    private static final class CleanObserver implements Observer<String>, Disposable {
+        private final Observer<? super String> downstream;
+        private final StringCleaner cleaner = StringCleaner.create();
+        private Disposable upstream;
+
+        private CleanObserver(final Observer<? super String> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(final Disposable d) {
+            upstream = d;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(final String s) {
+            downstream.onNext( cleaner.clean(s) );
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            downstream.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            downstream.onComplete();
+        }
+
+        @Override
+        public void dispose() {
+            upstream.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return upstream.isDisposed();
+        }
+    }
+
+    private static final class CleanSubscriber implements FlowableSubscriber<String>, Subscription {
+        private final Subscriber<? super String> downstream;
+        private final StringCleaner cleaner = StringCleaner.create();
+        private Subscription upstream;
+
+        private CleanSubscriber(final Subscriber<? super String> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(final Subscription s) {
+            upstream = s;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(final String s) {
+            downstream.onNext( cleaner.clean(s) ); // one in, one out: the downstream requests go to the upstream as they are
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            downstream.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            downstream.onComplete();
+        }
+
+        @Override
+        public void request(final long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            upstream.cancel();
+        }
+    }
+}
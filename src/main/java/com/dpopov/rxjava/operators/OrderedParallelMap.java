@@ -0,0 +1,333 @@
+package com.dpopov.rxjava.operators;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.FlowableOperator;
+import io.reactivex.FlowableSubscriber;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@code concatMap(x -> just(mapper(x)))} with the mapper running on {@code parallelism} workers at once: use with {@code Flowable#lift}
+ * or {@link #observable(Function, int)}.
+ * <br/>
+ * Item n goes to worker n % parallelism, and its result is put into slot n of a reorder ring. The results are emitted strictly in the input order:
+ * a slow item holds back the finished ones after it, but not the work on them.
+ * At most {@code maxInFlight} items are requested from the upstream and not yet emitted, so the ring never overflows and a slow downstream
+ * stops the upstream as usual.
+ * <br/>
+ * A mapper error is emitted in its place in the order, after the results before it. An upstream error is emitted after the items already received.
+ *
+ * <pre>
+ * indexes.lift( OrderedParallelMap.create(FibonacciEngine.getInstance()::get, cores) )
+ * </pre>
+ */
+public class OrderedParallelMap<T, R> implements FlowableOperator<R, T> {
+    private final Function<? super T, ? extends R> mapper;
+    private final int parallelism;
+    private final int maxInFlight;
+    private final Scheduler scheduler;
+
+    public static <T, R> OrderedParallelMap<T, R> create(final Function<? super T, ? extends R> mapper, final int parallelism) {
+        return create( mapper, parallelism, parallelism * 32, Schedulers.computation() );
+    }
+
+    /**
+     * @param maxInFlight items mapped or waiting for their turn at most, rounded up to a power of two
+     * @param scheduler each of the {@code parallelism} workers is one worker of this scheduler
+     */
+    public static <T, R> OrderedParallelMap<T, R> create(
+          final Function<? super T, ? extends R> mapper
+        , final int parallelism
+        , final int maxInFlight
+        , final Scheduler scheduler
+    ) {
+        return new OrderedParallelMap<>(mapper, parallelism, maxInFlight, scheduler);
+    }
+
+    /**
+     * Same for an {@code Observable}: it has no backpressure, so the items over {@code maxInFlight} are buffered before the operator.
+     */
+    public static <T, R> ObservableTransformer<T, R> observable(final Function<? super T, ? extends R> mapper, final int parallelism) {
+        final OrderedParallelMap<T, R> operator = create(mapper, parallelism);
+
+        return upstream -> upstream
+            .toFlowable(BackpressureStrategy.BUFFER)
+            .lift(operator)
+            .toObservable()
+        ;
+    }
+
+    private OrderedParallelMap(final Function<? super T, ? extends R> mapper, final int parallelism, final int maxInFlight, final Scheduler scheduler) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+
+        if (maxInFlight < parallelism || maxInFlight > (1 << 30))
+            throw new IllegalArgumentException( String.format("maxInFlight must be in [parallelism, 2^30]: %d", maxInFlight) );
+
+        this.mapper = mapper;
+        this.parallelism = parallelism;
+        this.maxInFlight = 1 << (32 - Integer.numberOfLeadingZeros(maxInFlight - 1));
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Subscriber<? super T> apply(final Subscriber<? super R> subscriber) {
+        final Scheduler.Worker[] workers = new Scheduler.Worker[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = scheduler.createWorker(); // tasks of one worker run one after another, on one thread for computation()
+        }
+
+        return new OrderedMapSubscriber<>(subscriber, mapper, workers, maxInFlight);
+    }
+
+    /**
+     * Result slot of a failed mapping.
+     */
+    private static final class Failure {
+        private final Throwable error;
+
+        private Failure(final Throwable error) {
+            this.error = error;
+        }
+    }
+
+    private static final class OrderedMapSubscriber<T, R> implements FlowableSubscriber<T>, Subscription {
+        private final Subscriber<? super R> downstream;
+        private final Function<? super T, ? extends R> mapper;
+        private final Scheduler.Worker[] workers;
+
+        private final AtomicReferenceArray<Object> results; // reorder ring: slot of item n is n & mask, null until mapped
+        private final int mask;
+        private final int limit; // upstream is requested in batches of this size
+
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private Subscription upstream;
+        private volatile long received; // written by the upstream thread only
+        private volatile boolean done;
+        private Throwable error; // published by done
+        private volatile boolean cancelled;
+
+        // drain only
+        private long emitted;
+        private int consumed; // emitted since the last upstream request
+
+        private OrderedMapSubscriber(
+              final Subscriber<? super R> downstream
+            , final Function<? super T, ? extends R> mapper
+            , final Scheduler.Worker[] workers
+            , final int maxInFlight
+        ) {
+            this.downstream = downstream;
+            this.mapper = mapper;
+            this.workers = workers;
+
+            results = new AtomicReferenceArray<>(maxInFlight);
+            mask = maxInFlight - 1;
+            limit = maxInFlight - (maxInFlight >> 2);
+        }
+
+        @Override
+        public void onSubscribe(final Subscription s) {
+            upstream = s;
+            downstream.onSubscribe(this);
+            s.request(mask + 1);
+        }
+
+        @Override
+        public void onNext(final T t) {
+            if (done) {
+                return;
+            }
+
+            final long index = received;
+            received = index + 1;
+
+            workers[ (int) (index % workers.length) ].schedule( () -> map(index, t) );
+        }
+
+        private void map(final long index, final T t) {
+            if (cancelled) {
+                return;
+            }
+
+            Object result;
+            try {
+                result = mapper.apply(t);
+                if (result == null) {
+                    result = new Failure( new NullPointerException("The mapper returned null") );
+                }
+            }
+            catch (final Throwable e) {
+                Exceptions.throwIfFatal(e);
+                result = new Failure(e);
+            }
+
+            results.set( (int) index & mask, result );
+            drain();
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            if (done) {
+                return;
+            }
+
+            error = e;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                cancel();
+                downstream.onError( new IllegalArgumentException("n > 0 required but it was " + n) );
+                return;
+            }
+
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                next = current + n;
+                if (next < 0) { // Long.MAX_VALUE means unbounded
+                    next = Long.MAX_VALUE;
+                }
+            }
+            while ( !requested.compareAndSet(current, next) );
+
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+
+            cancelled = true;
+            upstream.cancel();
+            disposeWorkers();
+
+            if (wip.getAndIncrement() == 0) {
+                clear();
+            }
+        }
+
+        /**
+         * Queue-drain, whoever moves {@code wip} from 0 emits: workers finish in any order, but only the drain emits, in slot order.
+         */
+        @SuppressWarnings("unchecked")
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            do {
+                final long demand = requested.get();
+                long count = 0;
+
+                while (count != demand) {
+                    if (cancelled) {
+                        clear();
+                        return;
+                    }
+
+                    final boolean isDone = done; // read before the slot: a null slot after done means nothing more comes
+                    final int slot = (int) emitted & mask;
+                    final Object result = results.get(slot);
+
+                    if (result == null) {
+                        if ( isDone && emitted == received ) {
+                            terminate();
+                            return;
+                        }
+                        break;
+                    }
+
+                    if (result instanceof Failure) {
+                        cancel();
+                        downstream.onError( ( (Failure) result ).error );
+                        return;
+                    }
+
+                    results.lazySet(slot, null);
+                    emitted++;
+                    count++;
+                    downstream.onNext( (R) result );
+
+                    if (++consumed == limit) {
+                        consumed = 0;
+                        upstream.request(limit);
+                    }
+                }
+
+                if (count == demand) {
+                    if (cancelled) {
+                        clear();
+                        return;
+                    }
+
+                    if ( done && emitted == received ) {
+                        terminate();
+                        return;
+                    }
+                }
+
+                if (count != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-count);
+                }
+
+                missed = wip.addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+
+        private void terminate() {
+            cancelled = true; // nothing else is emitted
+            disposeWorkers();
+
+            final Throwable e = error;
+            if (e != null) {
+                downstream.onError(e);
+            }
+            else {
+                downstream.onComplete();
+            }
+        }
+
+        private void disposeWorkers() {
+            for (final Scheduler.Worker worker : workers) {
+                worker.dispose();
+            }
+        }
+
+        private void clear() {
+            for (int i = 0; i <= mask; i++) {
+                results.lazySet(i, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.dpopov.rxjava.operators;
+
+/**
+ * Removes non-alphanumeric characters, same as {@code s.replaceAll("[^A-Za-z0-9]", "")}, but in one pass over the string,
+ * with an ASCII lookup table instead of a regex, and with a scratch buffer reused between calls.
+ * <br/>
+ * Not thread-safe: create one cleaner per subscriber.
+ */
+public class StringCleaner {
+    private static final boolean[] ALPHANUMERIC = alphanumeric();
+
+    private char[] scratch = new char[64];
+
+    public static StringCleaner create() {
+        return new StringCleaner();
+    }
+
+    private StringCleaner() {
+    }
+
+    public static boolean isAlphanumeric(final char c) {
+        return c < ALPHANUMERIC.length && ALPHANUMERIC[c];
+    }
+
+    /**
+     * @param s string to clean
+     * @return {@code s} itself if it has only alphanumeric characters, otherwise a new string without the other characters
+     */
+    public String clean(final String s) {
+        final int length = s.length();
+
+        int i = 0;
+        while ( i < length && isAlphanumeric(s.charAt(i)) ) {
+            i++;
+        }
+
+        if (i == length) { // nothing to remove, no allocation
+            return s;
+        }
+
+        if (scratch.length < length) {
+            scratch = new char[ Math.max(length, scratch.length * 2) ];
+        }
+
+        s.getChars(0, i, scratch, 0); // clean prefix
+        int size = i;
+
+        for (i++; i < length; i++) { // char at i is not alphanumeric
+            final char c = s.charAt(i);
+            if ( isAlphanumeric(c) ) {
+                scratch[size++] = c;
+            }
+        }
+
+        return new String(scratch, 0, size);
+    }
+
+    private static boolean[] alphanumeric() {
+        final boolean[] table = new boolean[128];
+
+        for (char c = '0'; c <= '9'; c++) table[c] = true;
+        for (char c = 'A'; c <= 'Z'; c++) table[c] = true;
+        for (char c = 'a'; c <= 'z'; c++) table[c] = true;
+
+        return table;
+    }
+}
@@ -0,0 +1,73 @@
+package com.dpopov.rxjava.resilience;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delay before each retry: exponential from {@code base} up to {@code max}, with jitter so that the streams failing together
+ * do not retry together.
+ *
+ * @see <a href="https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/">Exponential Backoff And Jitter</a>
+ */
+public class Backoff {
+    public enum Jitter {
+        /** {@code min(max, base * 2^attempt)}, every stream retries at the same time. */
+        NONE,
+
+        /** A random delay in {@code [0, min(max, base * 2^attempt)]}. */
+        FULL,
+
+        /** A random delay in {@code [base, previous delay * 3]}, up to {@code max}: grows like the exponential one, but from the last delay. */
+        DECORRELATED
+    }
+
+    private final long baseNanos;
+    private final long maxNanos;
+    private final Jitter jitter;
+
+    public static Backoff fixed(final long delay, final TimeUnit unit) {
+        return new Backoff( unit.toNanos(delay), unit.toNanos(delay), Jitter.NONE );
+    }
+
+    public static Backoff exponential(final long base, final long max, final TimeUnit unit, final Jitter jitter) {
+        return new Backoff( unit.toNanos(base), unit.toNanos(max), jitter );
+    }
+
+    private Backoff(final long baseNanos, final long maxNanos, final Jitter jitter) {
+        if (baseNanos < 0 || maxNanos < baseNanos)
+            throw new IllegalArgumentException( String.format("Wrong backoff bounds: [%d, %d] ns", baseNanos, maxNanos) );
+
+        this.baseNanos = baseNanos;
+        this.maxNanos = maxNanos;
+        this.jitter = jitter;
+    }
+
+    /**
+     * @param attempt retry number, from 1
+     * @param previousNanos delay before the previous retry, 0 for the first one
+     */
+    public long delayNanos(final int attempt, final long previousNanos) {
+        switch (jitter) {
+            case FULL:
+                return ThreadLocalRandom.current().nextLong( exponential(attempt) + 1 );
+
+            case DECORRELATED:
+                final long upper = Math.min( maxNanos, Math.max(baseNanos, previousNanos) * 3 );
+                return (upper <= baseNanos) ? baseNanos : ThreadLocalRandom.current().nextLong(baseNanos, upper + 1);
+
+            default:
+                return exponential(attempt);
+        }
+    }
+
+    private long exponential(final int attempt) {
+        final int shift = Math.min(attempt - 1, 62);
+        final long delay = baseNanos << shift;
+        return (delay >>> shift != baseNanos || delay > maxNanos) ? maxNanos : delay; // overflow or over max
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Backoff [base: %d ms, max: %d ms, jitter: %s]", TimeUnit.NANOSECONDS.toMillis(baseNanos), TimeUnit.NANOSECONDS.toMillis(maxNanos), jitter);
+    }
+}
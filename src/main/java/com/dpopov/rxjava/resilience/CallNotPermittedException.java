@@ -0,0 +1,11 @@
+package com.dpopov.rxjava.resilience;
+
+/**
+ * Error of a call to an open {@link CircuitBreaker}: the source was not subscribed.
+ */
+public class CallNotPermittedException extends RuntimeException {
+
+    public CallNotPermittedException(final CircuitBreaker breaker) {
+        super("Circuit is " + breaker.getState() + ", call not permitted", null, false, false); // no stack trace, it is thrown all the time while open
+    }
+}
@@ -0,0 +1,444 @@
+package com.dpopov.rxjava.resilience;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker as a transformer for {@code compose}: stops subscribing to a source that keeps failing or answering slowly.
+ * <br/>
+ * One subscription is one call: it fails with an error, succeeds with the completion, is slow if it takes longer than {@code slowCallDuration}.
+ * <ul>
+ *     <li>CLOSED - calls go through and are recorded in a {@link SlidingWindow} of the last {@code windowSize} calls.
+ *     Once there are {@code minimumCalls}, a failure rate or a slow call rate at the threshold opens the circuit.</li>
+ *     <li>OPEN - calls are not subscribed: {@link CallNotPermittedException} or the fallback right away.
+ *     The first call after {@code openDuration} moves to HALF_OPEN.</li>
+ *     <li>HALF_OPEN - {@code halfOpenCalls} trial calls go through, the others are not permitted. Their rates close or open the circuit again.</li>
+ * </ul>
+ * The state is one {@code AtomicReference} moved by CAS, there are no locks and no timers. Transitions are published by {@link #stateChanges()}.
+ *
+ * <pre>
+ * final CircuitBreaker breaker = CircuitBreaker.builder()
+ *     .failureRateThreshold(0.5f)
+ *     .slowCallDuration(2, TimeUnit.SECONDS)
+ *     .openDuration(30, TimeUnit.SECONDS)
+ *     .build();
+ *
+ * source.compose( breaker.observable(cached) )
+ * </pre>
+ */
+public class CircuitBreaker {
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final float failureRateThreshold;
+    private final float slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final List<Class<? extends Throwable>> ignored;
+    private final Scheduler scheduler;
+
+    private final AtomicReference<Circuit> circuit;
+    private final Subject<Transition> transitions = PublishSubject.<Transition>create().toSerialized(); // CAS winners of any thread
+    private final LongAdder notPermitted = new LongAdder();
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private CircuitBreaker(final Builder builder) {
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallNanos = builder.slowCallNanos;
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+        this.openNanos = builder.openNanos;
+        this.halfOpenCalls = builder.halfOpenCalls;
+        this.ignored = new ArrayList<>(builder.ignored);
+        this.scheduler = builder.scheduler;
+
+        circuit = new AtomicReference<>( closed() );
+    }
+
+    public <T> ObservableTransformer<T, T> observable() {
+        return upstream -> Observable.defer( () -> {
+            final Call call = tryCall();
+            if (call == null) {
+                return Observable.error( new CallNotPermittedException(this) );
+            }
+
+            return upstream
+                .doOnError(call::onError)
+                .doOnComplete(call::onComplete)
+                .doOnDispose(call::onDispose)
+            ;
+        } );
+    }
+
+    /**
+     * @param fallback subscribed instead of the source while the call is not permitted. Errors of a permitted call still go downstream
+     */
+    public <T> ObservableTransformer<T, T> observable(final Observable<T> fallback) {
+        final ObservableTransformer<T, T> breaker = observable();
+        return upstream -> Observable.wrap( breaker.apply(upstream) )
+            .onErrorResumeNext( (final Throwable e) -> (e instanceof CallNotPermittedException) ? fallback : Observable.error(e) );
+    }
+
+    public <T> FlowableTransformer<T, T> flowable() {
+        return upstream -> Flowable.defer( () -> {
+            final Call call = tryCall();
+            if (call == null) {
+                return Flowable.error( new CallNotPermittedException(this) );
+            }
+
+            return upstream
+                .doOnError(call::onError)
+                .doOnComplete(call::onComplete)
+                .doOnCancel(call::onDispose)
+            ;
+        } );
+    }
+
+    public <T> FlowableTransformer<T, T> flowable(final Flowable<T> fallback) {
+        final FlowableTransformer<T, T> breaker = flowable();
+        return upstream -> Flowable.fromPublisher( breaker.apply(upstream) )
+            .onErrorResumeNext( (final Throwable e) -> (e instanceof CallNotPermittedException) ? fallback : Flowable.error(e) );
+    }
+
+    /**
+     * @return transitions from now on. Not replayed, see {@link #getState()} for the current one
+     */
+    public Observable<Transition> stateChanges() {
+        return transitions.hide();
+    }
+
+    /**
+     * @return current state. OPEN stays OPEN after {@code openDuration} until the next call
+     */
+    public State getState() {
+        return circuit.get().state;
+    }
+
+    /**
+     * @return failure rate of the calls in the window of the current state
+     */
+    public float getFailureRate() {
+        return circuit.get().window.getFailureRate();
+    }
+
+    public float getSlowCallRate() {
+        return circuit.get().window.getSlowCallRate();
+    }
+
+    /**
+     * @return calls not subscribed because the circuit was open
+     */
+    public long getNotPermittedCount() {
+        return notPermitted.sum();
+    }
+
+    @Override
+    public String toString() {
+        final Circuit current = circuit.get();
+        return String.format("CircuitBreaker [%s, calls: %d, failure rate: %.2f, slow call rate: %.2f, not permitted: %d]",
+            current.state, current.window.getCalls(), current.window.getFailureRate(), current.window.getSlowCallRate(), getNotPermittedCount());
+    }
+
+    /**
+     * @return permitted call, {@code null} if the call is not permitted
+     */
+    private Call tryCall() {
+        while (true) {
+            final Circuit current = circuit.get();
+
+            switch (current.state) {
+                case CLOSED:
+                    return new Call(current);
+
+                case OPEN:
+                    if (now() - current.openedAtNanos < openNanos) {
+                        notPermitted.increment();
+                        return null;
+                    }
+
+                    transition( current, halfOpen() ); // one thread wins, everyone tries again in HALF_OPEN
+                    break;
+
+                case HALF_OPEN:
+                    if ( current.permits.getAndDecrement() > 0 ) {
+                        return new Call(current);
+                    }
+
+                    current.permits.incrementAndGet();
+                    notPermitted.increment();
+                    return null;
+            }
+        }
+    }
+
+    private void record(final Circuit current, final int outcome) {
+        final int calls = current.window.record(outcome);
+
+        if (circuit.get() != current) { // the call started in a previous state
+            return;
+        }
+
+        switch (current.state) {
+            case CLOSED:
+                if ( calls >= minimumCalls && isOverThreshold(current.window) ) {
+                    transition( current, open(current.window) );
+                }
+                break;
+
+            case HALF_OPEN:
+                if (calls >= halfOpenCalls) {
+                    transition( current, isOverThreshold(current.window) ? open(current.window) : closed() );
+                }
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Ignored error or disposed call: nothing recorded, the trial call of HALF_OPEN is given back.
+     */
+    private void release(final Circuit current) {
+        if (current.state == State.HALF_OPEN) {
+            current.permits.incrementAndGet();
+        }
+    }
+
+    private boolean isOverThreshold(final SlidingWindow window) {
+        return window.getFailureRate() >= failureRateThreshold || window.getSlowCallRate() >= slowCallRateThreshold;
+    }
+
+    private void transition(final Circuit from, final Circuit to) {
+        if ( circuit.compareAndSet(from, to) ) {
+            transitions.onNext( new Transition(from.state, to.state) );
+        }
+    }
+
+    private boolean isIgnored(final Throwable e) {
+        for (final Class<? extends Throwable> type : ignored) {
+            if ( type.isInstance(e) ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private long now() {
+        return scheduler.now(TimeUnit.NANOSECONDS);
+    }
+
+    private Circuit closed() {
+        return new Circuit( State.CLOSED, new SlidingWindow(windowSize), 0, 0 );
+    }
+
+    private Circuit open(final SlidingWindow window) {
+        return new Circuit( State.OPEN, window, now(), 0 ); // keeps the window that opened it, for the rates
+    }
+
+    private Circuit halfOpen() {
+        return new Circuit( State.HALF_OPEN, new SlidingWindow(halfOpenCalls), 0, halfOpenCalls );
+    }
+
+    /**
+     * State with its own window, replaced as a whole on each transition. Calls of a replaced one are recorded in its window and forgotten.
+     */
+    private static final class Circuit {
+        private final State state;
+        private final SlidingWindow window;
+        private final long openedAtNanos;
+        private final AtomicInteger permits; // trial calls left in HALF_OPEN
+
+        private Circuit(final State state, final SlidingWindow window, final long openedAtNanos, final int permits) {
+            this.state = state;
+            this.window = window;
+            this.openedAtNanos = openedAtNanos;
+            this.permits = new AtomicInteger(permits);
+        }
+    }
+
+    /**
+     * One permitted subscription, recorded once: by its error, its completion or its dispose, whichever comes first.
+     */
+    private final class Call extends AtomicBoolean {
+        private final Circuit circuit;
+        private final long startNanos = now();
+
+        private Call(final Circuit circuit) {
+            this.circuit = circuit;
+        }
+
+        private void onError(final Throwable e) {
+            if ( compareAndSet(false, true) ) {
+                if ( isIgnored(e) ) {
+                    release(circuit);
+                }
+                else {
+                    record( circuit, isSlow() ? SlidingWindow.SLOW_FAILURE : SlidingWindow.FAILURE );
+                }
+            }
+        }
+
+        private void onComplete() {
+            if ( compareAndSet(false, true) ) {
+                record( circuit, isSlow() ? SlidingWindow.SLOW_SUCCESS : SlidingWindow.SUCCESS );
+            }
+        }
+
+        private void onDispose() {
+            if ( compareAndSet(false, true) ) {
+                release(circuit);
+            }
+        }
+
+        private boolean isSlow() {
+            return now() - startNanos >= slowCallNanos;
+        }
+    }
+
+    public static final class Transition {
+        private final State from;
+        private final State to;
+
+        private Transition(final State from, final State to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public State getFrom() {
+            return from;
+        }
+
+        public State getTo() {
+            return to;
+        }
+
+        @Override
+        public String toString() {
+            return from + " -> " + to;
+        }
+    }
+
+    public static final class Builder {
+        private float failureRateThreshold = 0.5f;
+        private float slowCallRateThreshold = 1.0f;
+        private long slowCallNanos = TimeUnit.SECONDS.toNanos(60);
+        private int windowSize = 100;
+        private int minimumCalls = 10;
+        private long openNanos = TimeUnit.SECONDS.toNanos(60);
+        private int halfOpenCalls = 10;
+        private final List<Class<? extends Throwable>> ignored = new ArrayList<>();
+        private Scheduler scheduler = Schedulers.computation();
+
+        private Builder() {
+        }
+
+        /**
+         * @param threshold failed calls to all the calls in the window, in (0, 1]
+         */
+        public Builder failureRateThreshold(final float threshold) {
+            this.failureRateThreshold = checkRate(threshold);
+            return this;
+        }
+
+        /**
+         * @param threshold slow calls, failed or not, to all the calls in the window, in (0, 1]
+         */
+        public Builder slowCallRateThreshold(final float threshold) {
+            this.slowCallRateThreshold = checkRate(threshold);
+            return this;
+        }
+
+        /**
+         * @param duration from the subscription to the error or the completion, for a call to be slow
+         */
+        public Builder slowCallDuration(final long duration, final TimeUnit unit) {
+            this.slowCallNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * @param windowSize last calls the rates of CLOSED are computed on
+         */
+        public Builder windowSize(final int windowSize) {
+            this.windowSize = checkPositive("windowSize", windowSize);
+            return this;
+        }
+
+        /**
+         * @param minimumCalls calls in the window before the circuit can open, at most {@code windowSize}
+         */
+        public Builder minimumCalls(final int minimumCalls) {
+            this.minimumCalls = checkPositive("minimumCalls", minimumCalls);
+            return this;
+        }
+
+        /**
+         * @param duration of OPEN before the trial calls
+         */
+        public Builder openDuration(final long duration, final TimeUnit unit) {
+            this.openNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        public Builder halfOpenCalls(final int halfOpenCalls) {
+            this.halfOpenCalls = checkPositive("halfOpenCalls", halfOpenCalls);
+            return this;
+        }
+
+        /**
+         * Errors of this class and its subclasses are neither failures nor successes, e.g. a validation error of the request.
+         */
+        public Builder ignore(final Class<? extends Throwable> type) {
+            ignored.add(type);
+            return this;
+        }
+
+        /**
+         * @param scheduler clock of the call durations and of OPEN, e.g. {@code TestScheduler}
+         */
+        public Builder scheduler(final Scheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public CircuitBreaker build() {
+            return new CircuitBreaker(this);
+        }
+
+        private static float checkRate(final float rate) {
+            if (rate <= 0 || rate > 1)
+                throw new IllegalArgumentException("Rate threshold must be in (0, 1]: " + rate);
+
+            return rate;
+        }
+
+        private static int checkPositive(final String name, final int value) {
+            if (value <= 0)
+                throw new IllegalArgumentException(name + " must be positive: " + value);
+
+            return value;
+        }
+    }
+}
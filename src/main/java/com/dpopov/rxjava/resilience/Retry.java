@@ -0,0 +1,216 @@
+package com.dpopov.rxjava.resilience;
+
+import com.dpopov.rxjava.schedulers.HashedWheelScheduler;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Predicate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code retryWhen} with a {@link Backoff}, error rules and a shared {@link RetryBudget}, as a transformer for {@code compose}.
+ * <br/>
+ * An error is retried if it matches a rule ({@link Builder#retryOn(Class)}; any error without rules), the stream has not used
+ * {@code maxAttempts} retries in a row and the budget has a token. Otherwise it goes downstream. An item resets the attempts.
+ * The delays are timers of one {@link HashedWheelScheduler} for all the streams, not one {@code ScheduledThreadPoolExecutor} task each.
+ *
+ * <pre>
+ * final Retry retry = Retry.builder()
+ *     .maxAttempts(5)
+ *     .backoff( Backoff.exponential(100, 10_000, TimeUnit.MILLISECONDS, Backoff.Jitter.FULL) )
+ *     .retryOn(IOException.class)
+ *     .budget(sharedBudget)
+ *     .build();
+ *
+ * source.compose( retry.observable() )
+ * </pre>
+ */
+public class Retry {
+    private final int maxAttempts;
+    private final Backoff backoff;
+    private final List<Rule<?>> rules;
+    private final RetryBudget budget;
+    private final Scheduler scheduler;
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder givenUp = new LongAdder();
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private Retry(final Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.backoff = builder.backoff;
+        this.rules = new ArrayList<>(builder.rules);
+        this.budget = builder.budget;
+        this.scheduler = builder.scheduler;
+    }
+
+    public <T> ObservableTransformer<T, T> observable() {
+        return upstream -> Observable.defer( () -> {
+            final Attempts attempts = new Attempts(); // per subscriber, the transformer is shared
+            return upstream
+                .doOnNext( t -> attempts.reset() )
+                .retryWhen( errors -> errors.flatMap( e -> attempts.next(e).toObservable() ) )
+            ;
+        } );
+    }
+
+    public <T> FlowableTransformer<T, T> flowable() {
+        return upstream -> Flowable.defer( () -> {
+            final Attempts attempts = new Attempts();
+            return upstream
+                .doOnNext( t -> attempts.reset() )
+                .retryWhen( errors -> errors.flatMap(attempts::next) )
+            ;
+        } );
+    }
+
+    /**
+     * @return retries done by all the streams
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * @return errors sent downstream because the rules, the attempts or the budget did not allow a retry
+     */
+    public long getGivenUpCount() {
+        return givenUp.sum();
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    private boolean isRetryable(final Throwable e) throws Exception {
+        if ( rules.isEmpty() ) {
+            return true;
+        }
+
+        for (final Rule<?> rule : rules) {
+            if ( rule.matches(e) ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Retry [retries: %d, given up: %d, %s, %s]", getRetryCount(), getGivenUpCount(), backoff, budget);
+    }
+
+    /**
+     * Retries in a row of one subscriber. Errors come one at a time, after the resubscription, so no synchronization.
+     */
+    private final class Attempts {
+        private int attempt;
+        private long previousDelayNanos;
+
+        private void reset() {
+            attempt = 0;
+            previousDelayNanos = 0;
+        }
+
+        private Flowable<Long> next(final Throwable e) throws Exception {
+            if ( attempt >= maxAttempts || !isRetryable(e) || !budget.tryAcquire() ) {
+                givenUp.increment();
+                return Flowable.error(e);
+            }
+
+            attempt++;
+            retries.increment();
+
+            final long delayNanos = backoff.delayNanos(attempt, previousDelayNanos);
+            previousDelayNanos = delayNanos;
+
+            return Flowable.timer(delayNanos, TimeUnit.NANOSECONDS, scheduler);
+        }
+    }
+
+    private static final class Rule<E extends Throwable> {
+        private final Class<E> type;
+        private final Predicate<? super E> predicate;
+
+        private Rule(final Class<E> type, final Predicate<? super E> predicate) {
+            this.type = type;
+            this.predicate = predicate;
+        }
+
+        private boolean matches(final Throwable e) throws Exception {
+            return type.isInstance(e) && predicate.test( type.cast(e) );
+        }
+    }
+
+    public static final class Builder {
+        private int maxAttempts = 3;
+        private Backoff backoff = Backoff.exponential(100, 10_000, TimeUnit.MILLISECONDS, Backoff.Jitter.FULL);
+        private final List<Rule<?>> rules = new ArrayList<>();
+        private RetryBudget budget = RetryBudget.unlimited();
+        private Scheduler scheduler = HashedWheelScheduler.getInstance();
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxAttempts retries in a row, without an item in between
+         */
+        public Builder maxAttempts(final int maxAttempts) {
+            if (maxAttempts < 0)
+                throw new IllegalArgumentException("maxAttempts must not be negative: " + maxAttempts);
+
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder backoff(final Backoff backoff) {
+            this.backoff = backoff;
+            return this;
+        }
+
+        /**
+         * Retries the errors of this class and its subclasses. Without any rule, all the errors are retried.
+         */
+        public Builder retryOn(final Class<? extends Throwable> type) {
+            return retryOn( type, e -> true );
+        }
+
+        /**
+         * Retries the errors of this class for which the predicate is {@code true}, e.g. only HTTP 503 of an {@code HttpException}.
+         */
+        public <E extends Throwable> Builder retryOn(final Class<E> type, final Predicate<? super E> predicate) {
+            rules.add( new Rule<>(type, predicate) );
+            return this;
+        }
+
+        /**
+         * @param budget shared by the streams of one dependency
+         */
+        public Builder budget(final RetryBudget budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        /**
+         * @param scheduler timers of the delays, e.g. {@code TestScheduler}
+         */
+        public Builder scheduler(final Scheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public Retry build() {
+            return new Retry(this);
+        }
+    }
+}
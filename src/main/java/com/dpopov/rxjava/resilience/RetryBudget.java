@@ -0,0 +1,83 @@
+package com.dpopov.rxjava.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket shared by the {@link Retry} of many streams: at most {@code burst} retries at once, refilled at {@code retriesPerSecond}.
+ * When a dependency fails for everyone, the retries of all the streams together stay under this rate, instead of each stream retrying on its own.
+ * <br/>
+ * Lock-free, GCRA form of the bucket: the only state is the time when the bucket is full again, moved by {@code interval} per token with a CAS.
+ * There is no refill thread.
+ */
+public class RetryBudget {
+    private final long intervalNanos; // one token
+    private final long burstNanos; // the whole bucket
+
+    private final AtomicLong fullAt; // System.nanoTime() when the bucket is full again, in the past when it is full
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @return budget that never runs out
+     */
+    public static RetryBudget unlimited() {
+        return new RetryBudget(0, 1);
+    }
+
+    public static RetryBudget create(final double retriesPerSecond, final int burst) {
+        if (retriesPerSecond <= 0)
+            throw new IllegalArgumentException("retriesPerSecond must be positive: " + retriesPerSecond);
+
+        return new RetryBudget( (long) (TimeUnit.SECONDS.toNanos(1) / retriesPerSecond), burst );
+    }
+
+    private RetryBudget(final long intervalNanos, final int burst) {
+        if (burst <= 0)
+            throw new IllegalArgumentException("burst must be positive: " + burst);
+
+        this.intervalNanos = intervalNanos;
+        this.burstNanos = intervalNanos * burst;
+        this.fullAt = new AtomicLong( System.nanoTime() - burstNanos );
+    }
+
+    /**
+     * @return {@code true} if a retry is allowed now, its token is taken
+     */
+    public boolean tryAcquire() {
+        if (intervalNanos == 0) {
+            acquired.increment();
+            return true;
+        }
+
+        final long now = System.nanoTime();
+        while (true) {
+            final long current = fullAt.get();
+            final long next = Math.max(current, now - burstNanos) + intervalNanos;
+
+            if (next - now > 0) { // would take more tokens than there are
+                rejected.increment();
+                return false;
+            }
+
+            if ( fullAt.compareAndSet(current, next) ) {
+                acquired.increment();
+                return true;
+            }
+        }
+    }
+
+    public long getAcquiredCount() {
+        return acquired.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RetryBudget [acquired: %d, rejected: %d]", getAcquiredCount(), getRejectedCount());
+    }
+}
@@ -0,0 +1,79 @@
+package com.dpopov.rxjava.resilience;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outcomes of the last {@code size} calls of a {@link CircuitBreaker}, lock-free.
+ * <br/>
+ * A call takes the next slot of a ring with one {@code getAndIncrement} and swaps its outcome in; the counters get the difference
+ * between the new and the replaced outcome, so they are exact once the concurrent calls are recorded. All in one {@code long}:
+ * calls, failures and slow calls in 21 bits each, updated with one {@code addAndGet}.
+ */
+class SlidingWindow {
+    static final int SUCCESS = 1;
+    static final int FAILURE = 2;
+    static final int SLOW_SUCCESS = 3;
+    static final int SLOW_FAILURE = 4;
+
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+    private static final long CALL = 1L;
+    private static final long FAILED_CALL = 1L << BITS;
+    private static final long SLOW_CALL = 1L << (2 * BITS);
+
+    private final AtomicIntegerArray outcomes; // 0 for a slot not used yet
+    private final AtomicLong index = new AtomicLong();
+    private final AtomicLong counters = new AtomicLong();
+
+    SlidingWindow(final int size) {
+        if (size <= 0 || size > MASK)
+            throw new IllegalArgumentException("Window size must be in [1, 2^21): " + size);
+
+        outcomes = new AtomicIntegerArray(size);
+    }
+
+    /**
+     * @return calls recorded in the window after this one
+     */
+    int record(final int outcome) {
+        final int slot = (int) ( index.getAndIncrement() % outcomes.length() );
+        final int replaced = outcomes.getAndSet(slot, outcome);
+
+        final long updated = counters.addAndGet( weight(outcome) - weight(replaced) );
+        return calls(updated);
+    }
+
+    int getCalls() {
+        return calls( counters.get() );
+    }
+
+    /**
+     * @return failed calls to all the calls, 0 if there are no calls
+     */
+    float getFailureRate() {
+        final long current = counters.get();
+        final int calls = calls(current);
+        return (calls == 0) ? 0 : (float) ( (current >>> BITS) & MASK ) / calls;
+    }
+
+    float getSlowCallRate() {
+        final long current = counters.get();
+        final int calls = calls(current);
+        return (calls == 0) ? 0 : (float) ( (current >>> (2 * BITS)) & MASK ) / calls;
+    }
+
+    private static int calls(final long counters) {
+        return (int) (counters & MASK);
+    }
+
+    private static long weight(final int outcome) {
+        switch (outcome) {
+            case SUCCESS:      return CALL;
+            case FAILURE:      return CALL + FAILED_CALL;
+            case SLOW_SUCCESS: return CALL + SLOW_CALL;
+            case SLOW_FAILURE: return CALL + FAILED_CALL + SLOW_CALL;
+            default:           return 0;
+        }
+    }
+}
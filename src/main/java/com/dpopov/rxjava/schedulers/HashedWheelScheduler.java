@@ -0,0 +1,421 @@
+package com.dpopov.rxjava.schedulers;
+
+import com.dpopov.rxjava.concurrent.MpscLinkedQueue;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * rxjava2 {@code Scheduler} for lots of delays: hierarchical hashed timing wheels (Varghese and Lauck, the Linux timer wheel),
+ * instead of the {@code ScheduledThreadPoolExecutor} heap behind {@code computation()} timers. Plug it into the time operators:
+ * {@code delay(500, MILLISECONDS, HashedWheelScheduler.getInstance())}, {@code interval(1, SECONDS, HashedWheelScheduler.getInstance())}.
+ * <br/>
+ * Level 0 has one bucket per tick, each bucket of level {@code k} covers {@code wheelSize^k} ticks. A delayed task goes into the lowest level
+ * whose current turn holds its deadline tick, and moves down a level each time the wheel reaches its bucket, until it is due in level 0.
+ * So a bucket only has tasks of its own turn and a tick touches only the due tasks, whatever the delays; only the deadlines beyond
+ * the top level count full turns there.
+ * <br/>
+ * Scheduling is one lock-free queue offer, cancelling is one CAS and one queue offer. The buckets belong to the one wheel thread:
+ * on each tick it moves the new tasks into them, unlinks the cancelled ones, moves the tasks of the reached buckets down
+ * and takes the due ones out of the current level 0 bucket.
+ * Delays are rounded up to the tick, so this is for timeouts and backoffs, not for precise timing.
+ * <br/>
+ * Due tasks are not run on the wheel thread: each worker of this scheduler runs its tasks on a worker of the {@code runner}
+ * scheduler (computation by default), one after another as rxjava requires.
+ */
+public class HashedWheelScheduler extends Scheduler {
+    public static final long DEFAULT_TICK_MILLIS = 10;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+    public static final int DEFAULT_LEVELS = 4; // 512^4 ticks of 10 ms are 21 years
+
+    private static final AtomicInteger WHEEL_COUNTER = new AtomicInteger(); // before INSTANCE, its constructor uses it
+
+    private static final HashedWheelScheduler INSTANCE = create( DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE, DEFAULT_LEVELS, Schedulers.computation() );
+
+    private final long tickNanos;
+    private final Bucket[][] wheels; // [level][slot]
+    private final int bits; // log2 of the wheel size
+    private final int mask;
+    private final Scheduler runner;
+
+    private final MpscLinkedQueue<Timeout> added = MpscLinkedQueue.create(); // wheel thread is the consumer
+    private final MpscLinkedQueue<Timeout> cancelled = MpscLinkedQueue.create();
+    private final AtomicLong pending = new AtomicLong();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final Thread thread;
+    private final long startNanos = System.nanoTime(); // the deadlines and the ticks count from here
+    private volatile boolean shutdown;
+
+    public static HashedWheelScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return scheduler with as many levels as fit in the tick counter, {@link #DEFAULT_LEVELS} at most
+     */
+    public static HashedWheelScheduler create(final long tick, final TimeUnit unit, final int wheelSize, final Scheduler runner) {
+        final int bits = Math.max( 1, 32 - Integer.numberOfLeadingZeros(wheelSize - 1) );
+        return create( tick, unit, wheelSize, Math.min(DEFAULT_LEVELS, 62 / bits), runner );
+    }
+
+    /**
+     * @param tick duration of one level 0 slot, the resolution of the delays
+     * @param wheelSize slots in each level, rounded up to a power of two
+     * @param levels wheels, the top one covers {@code tick * wheelSize^levels}. Longer delays wait for some full turns of it, 1 level is a plain hashed wheel
+     * @param runner runs the due tasks
+     */
+    public static HashedWheelScheduler create(final long tick, final TimeUnit unit, final int wheelSize, final int levels, final Scheduler runner) {
+        return new HashedWheelScheduler( unit.toNanos(tick), wheelSize, levels, runner );
+    }
+
+    private HashedWheelScheduler(final long tickNanos, final int wheelSize, final int levels, final Scheduler runner) {
+        if (tickNanos < TimeUnit.MILLISECONDS.toNanos(1))
+            throw new IllegalArgumentException("tick must be at least 1 ms: " + tickNanos + " ns");
+
+        if (wheelSize < 2 || wheelSize > (1 << 30))
+            throw new IllegalArgumentException("wheelSize must be in [2, 2^30]: " + wheelSize);
+
+        bits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        if (levels <= 0 || levels * bits > 62)
+            throw new IllegalArgumentException("levels must be in [1, " + (62 / bits) + "] for wheelSize " + wheelSize + ": " + levels);
+
+        this.tickNanos = tickNanos;
+        this.runner = runner;
+
+        final int size = 1 << bits;
+        wheels = new Bucket[levels][size];
+        for (final Bucket[] wheel : wheels) {
+            for (int i = 0; i < size; i++) {
+                wheel[i] = new Bucket();
+            }
+        }
+        mask = size - 1;
+
+        thread = new Thread(this::run, "hashed-wheel-" + WHEEL_COUNTER.getAndIncrement());
+        thread.setDaemon(true);
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new WheelWorker( this, runner.createWorker() );
+    }
+
+    /**
+     * @return delayed tasks not yet due nor cancelled
+     */
+    public long getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Stops the wheel thread, the pending tasks never run.
+     */
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        LockSupport.unpark(thread);
+    }
+
+    private Disposable schedule(final WheelWorker worker, final Runnable task, final long delayNanos) {
+        if ( started.compareAndSet(false, true) ) {
+            thread.start();
+        }
+
+        final long deadline = System.nanoTime() - startNanos + delayNanos;
+        final Timeout timeout = new Timeout( worker, task, Math.max(deadline, 0) );
+
+        pending.incrementAndGet();
+        if ( !worker.timeouts.add(timeout) ) { // the worker is disposed meanwhile, add cancelled it
+            return timeout;
+        }
+
+        added.offer(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        long tick = (System.nanoTime() - startNanos) / tickNanos; // the buckets before the start are empty
+
+        while (!shutdown) {
+            final long tickDeadline = (tick + 1) * tickNanos;
+
+            long sleepNanos;
+            while ( (sleepNanos = tickDeadline - (System.nanoTime() - startNanos)) > 0 && !shutdown ) {
+                LockSupport.parkNanos(sleepNanos);
+            }
+
+            transferAdded(tick);
+            removeCancelled();
+
+            for (int level = wheels.length - 1; level > 0; level--) { // from the top, a task can move down several levels at once
+                if ( ( tick & ((1L << (bits * level)) - 1) ) == 0 ) { // start of a slot of this level
+                    cascade(level, tick);
+                }
+            }
+
+            wheels[0][ (int) tick & mask ].expire();
+            tick++;
+        }
+    }
+
+    /**
+     * New timeouts into their buckets. The ones already due go into the current level 0 bucket.
+     */
+    private void transferAdded(final long currentTick) {
+        Timeout timeout;
+        while ( (timeout = added.poll()) != null ) {
+            if ( !timeout.isWaiting() ) { // cancelled
+                continue;
+            }
+
+            timeout.deadlineTick = (timeout.deadlineNanos + tickNanos - 1) / tickNanos - 1; // due by the end of the tick
+            place(timeout, currentTick);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ( (timeout = cancelled.poll()) != null ) {
+            if (timeout.bucket != null) { // still in the added queue otherwise, skipped there
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void cascade(final int level, final long currentTick) {
+        final Bucket bucket = wheels[level][ (int) (currentTick >>> (bits * level)) & mask ];
+
+        for (final Timeout timeout : bucket.cascade()) {
+            place(timeout, currentTick);
+        }
+    }
+
+    /**
+     * Into the level of the highest block of bits where the deadline tick differs from the current one: the wheel reaches
+     * that bucket in this turn of the level, at the latest on the deadline.
+     */
+    private void place(final Timeout timeout, final long currentTick) {
+        final long deadlineTick = Math.max(timeout.deadlineTick, currentTick);
+        final long difference = deadlineTick ^ currentTick;
+        final int level = (difference == 0) ? 0 : (63 - Long.numberOfLeadingZeros(difference)) / bits;
+
+        if (level < wheels.length) {
+            timeout.remainingRounds = 0;
+            wheels[level][ (int) (deadlineTick >>> (bits * level)) & mask ].add(timeout);
+            return;
+        }
+
+        // beyond the top level: count its turns before the deadline one. The reached bucket of this tick is still ahead
+        final int top = wheels.length - 1;
+        final int topShift = bits * wheels.length;
+        final long slot = (deadlineTick >>> (bits * top)) & mask;
+        final long slotTickInCurrentTurn = ( (currentTick >>> topShift) << topShift ) | ( slot << (bits * top) );
+
+        timeout.remainingRounds = (deadlineTick >>> topShift) - (currentTick >>> topShift) - (slotTickInCurrentTurn < currentTick ? 1 : 0);
+        wheels[top][ (int) slot ].add(timeout);
+    }
+
+    /**
+     * Keeps its timeouts until they run or are cancelled, so that disposing it cancels the pending ones, as rxjava workers do.
+     */
+    private static final class WheelWorker extends Worker {
+        private final HashedWheelScheduler wheel;
+        private final Worker runnerWorker;
+        private final CompositeDisposable timeouts = new CompositeDisposable();
+
+        private WheelWorker(final HashedWheelScheduler wheel, final Worker runnerWorker) {
+            this.wheel = wheel;
+            this.runnerWorker = runnerWorker;
+        }
+
+        @Override
+        public Disposable schedule(final Runnable run, final long delay, final TimeUnit unit) {
+            if ( isDisposed() ) {
+                return Disposables.disposed();
+            }
+
+            final Runnable task = RxJavaPlugins.onSchedule(run);
+            final long delayNanos = unit.toNanos(delay);
+
+            if (delayNanos <= 0) {
+                return runnerWorker.schedule(task);
+            }
+
+            return wheel.schedule(this, task, delayNanos);
+        }
+
+        @Override
+        public void dispose() {
+            timeouts.dispose(); // no longer pending nor holding their tasks, unlinked from the buckets on the next tick
+            runnerWorker.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return timeouts.isDisposed();
+        }
+    }
+
+    /**
+     * One delayed task, an intrusive node of its bucket list. When due, it is handed to the runner as is, so it can still be disposed there.
+     */
+    private static final class Timeout extends AtomicInteger implements Disposable, Runnable {
+        private static final int WAITING = 0;
+        private static final int EXPIRED = 1; // handed to the runner
+        private static final int DONE = 2;
+        private static final int CANCELLED = 3;
+
+        private final WheelWorker worker;
+        private final Runnable task;
+        private final long deadlineNanos; // since the wheel start
+
+        // wheel thread only
+        private long deadlineTick;
+        private long remainingRounds; // full turns of the top level
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(final WheelWorker worker, final Runnable task, final long deadlineNanos) {
+            this.worker = worker;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public void run() {
+            if ( compareAndSet(EXPIRED, DONE) ) {
+                worker.timeouts.delete(this);
+                task.run();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if ( compareAndSet(WAITING, CANCELLED) ) {
+                worker.wheel.pending.decrementAndGet();
+                worker.wheel.cancelled.offer(this); // unlinked from its bucket on the next tick
+            }
+            else {
+                compareAndSet(EXPIRED, CANCELLED);
+            }
+            worker.timeouts.delete(this); // a no-op when the worker disposes it
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return get() >= DONE;
+        }
+
+        private boolean isWaiting() {
+            return get() == WAITING;
+        }
+
+        private boolean expire() {
+            if ( !compareAndSet(WAITING, EXPIRED) ) {
+                return false;
+            }
+
+            worker.wheel.pending.decrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts, wheel thread only.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(final Timeout timeout) {
+            timeout.bucket = this;
+
+            if (head == null) {
+                head = timeout;
+                tail = timeout;
+            }
+            else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        private void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+
+                if (timeout.remainingRounds > 0) { // level 0 is the top one, a plain hashed wheel
+                    timeout.remainingRounds--;
+                    timeout = next;
+                    continue;
+                }
+
+                remove(timeout);
+                if ( timeout.expire() && !timeout.worker.isDisposed() ) {
+                    timeout.worker.runnerWorker.schedule(timeout);
+                }
+
+                timeout = next;
+            }
+        }
+
+        /**
+         * @return timeouts to place again, the ones with full turns left stay here for one turn less
+         */
+        private List<Timeout> cascade() {
+            final List<Timeout> moved = new ArrayList<>();
+
+            Timeout timeout = head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+
+                if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                }
+                else {
+                    remove(timeout);
+                    moved.add(timeout);
+                }
+
+                timeout = next;
+            }
+
+            return moved;
+        }
+
+        private void remove(final Timeout timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            }
+            else {
+                head = timeout.next;
+            }
+
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            }
+            else {
+                tail = timeout.previous;
+            }
+
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.dpopov.rxjava.schedulers;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedulers over JDK 21 virtual threads, one virtual thread per task.
+ * <br/>
+ * Use it instead of {@code Schedulers.io()} for sources that block (readers over sockets and pipes, {@code Observable.create} loops):
+ * {@code io()} keeps one platform thread with its own stack per busy worker, while a blocked virtual thread only parks
+ * and releases its carrier thread, so tens of thousands of blocking sources cost a few KB each.
+ * Do not use it for CPU work, there are only as many carrier threads as cores.
+ *
+ * <pre>
+ * RxReader.lines(reader, VirtualThreadScheduler.getInstance().scheduler())
+ * </pre>
+ */
+public class VirtualThreadScheduler {
+    private static final VirtualThreadScheduler INSTANCE = new VirtualThreadScheduler("rx-virtual-");
+
+    private final String namePrefix;
+    private final ExecutorService executor;
+
+    private final Scheduler scheduler;
+    private final rx.Scheduler v1Scheduler;
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong active = new AtomicLong();
+    private final AtomicLong peakActive = new AtomicLong();
+
+    public static VirtualThreadScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param namePrefix thread name prefix, a counter is appended to it: {@code prefix0, prefix1, ...}
+     */
+    public static VirtualThreadScheduler create(final String namePrefix) {
+        return new VirtualThreadScheduler(namePrefix);
+    }
+
+    private VirtualThreadScheduler(final String namePrefix) {
+        this.namePrefix = namePrefix;
+
+        final ThreadFactory factory = Thread.ofVirtual()
+            .name(namePrefix, 0)
+            .factory()
+        ;
+        executor = Executors.newThreadPerTaskExecutor(factory);
+
+        scheduler = Schedulers.from(this::execute); // rxjava2
+        v1Scheduler = rx.schedulers.Schedulers.from(this::execute); // rxjava1
+    }
+
+    /**
+     * @return rxjava2 scheduler
+     */
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return rxjava1 scheduler over the same threads and metrics
+     */
+    public rx.Scheduler v1Scheduler() {
+        return v1Scheduler;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    /**
+     * @return tasks submitted so far, each one got its own virtual thread
+     */
+    public long getStartedCount() {
+        return started.get();
+    }
+
+    /**
+     * @return tasks that ended, with or without an exception. There is no failed count: rxjava reports the failures of its tasks
+     * downstream as {@code onError} or to the plugins error handler, most of them never reach the scheduler
+     */
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * @return tasks running or blocked right now
+     */
+    public long getActiveCount() {
+        return active.get();
+    }
+
+    public long getPeakActiveCount() {
+        return peakActive.get();
+    }
+
+    /**
+     * Interrupts the running tasks. Schedulers of this instance reject new tasks after that.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void execute(final Runnable task) {
+        started.incrementAndGet();
+        final long nowActive = active.incrementAndGet();
+        peakActive.accumulateAndGet(nowActive, Math::max);
+
+        try {
+            executor.execute( () -> {
+                try {
+                    task.run();
+                }
+                finally {
+                    active.decrementAndGet();
+                    completed.incrementAndGet();
+                }
+            } );
+        }
+        catch (final RuntimeException e) { // rejected after shutdown
+            active.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+              "VirtualThreadScheduler [%s, started: %d, active: %d, peak active: %d, completed: %d]"
+            , namePrefix
+            , getStartedCount()
+            , getActiveCount()
+            , getPeakActiveCount()
+            , getCompletedCount()
+        );
+    }
+}
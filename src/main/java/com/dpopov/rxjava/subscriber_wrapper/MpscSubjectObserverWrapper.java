@@ -0,0 +1,141 @@
+package com.dpopov.rxjava.subscriber_wrapper;
+
+import com.dpopov.rxjava.concurrent.MpscLinkedQueue;
+import io.reactivex.Observer;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.subjects.Subject;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link SubjectDisposableObserverWrapper} that may be subscribed to several upstreams at once, without {@code Subject#toSerialized()}.
+ * <br/>
+ * Concurrent {@code onNext} calls only put the item into a lock-free {@link MpscLinkedQueue} (queue-drain with {@code wip}).
+ * The thread that finds the wrapper idle becomes the drain and delivers everything queued so far to the subject, the others return at once.
+ * So the items of all the upstreams reach the subject one after another in batches, and each upstream keeps its own order.
+ * <br/>
+ * {@link #dispose()} disposes all the upstreams and stops taking new items; the items already taken are still delivered, each one once.
+ * Same as {@code merge}, the subject completes when all the upstreams subscribed so far have completed, and the first error terminates it
+ * without waiting for the others; in both cases after the items taken before. A synchronous upstream may complete before the next one is subscribed,
+ * so subscribe them with {@code subscribeOn}: it calls {@code onSubscribe} right away.
+ */
+public class MpscSubjectObserverWrapper<T> implements Observer<T>, Disposable {
+	private final Subject<T> subject;
+	private final MpscLinkedQueue<T> queue = MpscLinkedQueue.create();
+	private final CompositeDisposable upstreams = new CompositeDisposable();
+	private final AtomicInteger wip = new AtomicInteger();
+	private final AtomicInteger active = new AtomicInteger(); // upstreams subscribed and not completed
+
+	private volatile boolean done;
+	private Throwable error; // published by done
+	private volatile boolean disposed;
+	private boolean terminated; // drain only
+
+	private MpscSubjectObserverWrapper(final Subject<T> subject) {
+		this.subject = subject;
+	}
+
+	public static <T> MpscSubjectObserverWrapper<T> create(final Subject<T> subject) {
+		return new MpscSubjectObserverWrapper<>(subject);
+	}
+
+	@Override
+	public void onSubscribe(final Disposable d) {
+		if ( disposed || !upstreams.add(d) ) { // add disposes it if the composite is disposed already
+			d.dispose();
+			return;
+		}
+
+		active.incrementAndGet();
+	}
+
+	@Override
+	public void onNext(final T t) {
+		if (done || disposed) {
+			return;
+		}
+
+		queue.offer(t);
+		drain();
+	}
+
+	@Override
+	public void onError(final Throwable e) {
+		if (done) {
+			return;
+		}
+
+		error = e;
+		done = true;
+		drain();
+	}
+
+	@Override
+	public void onComplete() {
+		if (active.decrementAndGet() != 0 || done) { // the others are still producing
+			return;
+		}
+
+		done = true;
+		drain();
+	}
+
+	@Override
+	public void dispose() {
+		if (!disposed) {
+			disposed = true; // checked before offer: an item either is taken and delivered, or is not taken at all
+			upstreams.dispose();
+		}
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return disposed;
+	}
+
+	public Disposable subscribe(final Consumer<? super T> onNext) {
+		return subject.subscribe(onNext);
+	}
+
+	private void drain() {
+		if (wip.getAndIncrement() != 0) {
+			return;
+		}
+
+		int missed = 1;
+		do {
+			if (terminated) {
+				return;
+			}
+
+			while (true) {
+				final boolean isDone = done; // read before the poll: empty after done means all the items before the terminal event are delivered
+				final T t = queue.poll();
+
+				if (t == null) {
+					if (isDone) {
+						terminated = true;
+						upstreams.dispose();
+
+						final Throwable e = error;
+						if (e != null) {
+							subject.onError(e);
+						}
+						else {
+							subject.onComplete();
+						}
+						return;
+					}
+					break;
+				}
+
+				subject.onNext(t);
+			}
+
+			missed = wip.addAndGet(-missed);
+		}
+		while (missed != 0);
+	}
+}
@@ -0,0 +1,337 @@
+package com.dpopov.rxjava.subscriber_wrapper;
+
+import io.reactivex.Observable;
+import io.reactivex.Observer;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.Subject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@code ReplaySubject} that keeps its history off the heap, in an {@link OffHeapSegmentLog} of direct buffers, bounded by bytes and by age.
+ * <br/>
+ * Items are serialized once by the {@link ReplaySerializer} on {@link #onNext(Object)}, and each subscriber reads its own copy back.
+ * A long history costs direct memory instead of old generation objects, so it does not make the GC pauses longer.
+ * <br/>
+ * {@link #subscribe(Observer)} replays from the oldest item kept, {@link #fromOffset(long)} from a given one.
+ * A subscriber that is behind by more than the log keeps loses the evicted items and goes on from the oldest one kept.
+ * Same as {@code ReplaySubject}, a subscriber that has caught up gets the new items on the {@code onNext} thread.
+ *
+ * <pre>
+ * final OffHeapReplaySubject&lt;String&gt; subject = OffHeapReplaySubject.create( ReplaySerializer.utf8(), 64 &lt;&lt; 20, 10, TimeUnit.MINUTES );
+ * source.subscribe(subject);
+ * subject.fromOffset(lastSeenOffset + 1).subscribe(...);
+ * </pre>
+ */
+public class OffHeapReplaySubject<T> extends Subject<T> {
+	public static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+
+	@SuppressWarnings("rawtypes")
+	private static final ReplayDisposable[] EMPTY = new ReplayDisposable[0];
+	@SuppressWarnings("rawtypes")
+	private static final ReplayDisposable[] TERMINATED = new ReplayDisposable[0];
+
+	private final OffHeapSegmentLog<T> log;
+	private final Scheduler scheduler; // clock of the record timestamps
+
+	@SuppressWarnings("unchecked")
+	private final AtomicReference<ReplayDisposable<T>[]> subscribers = new AtomicReference<>(EMPTY);
+
+	private volatile boolean done;
+	private Throwable error; // published by done
+
+	/**
+	 * Bounded by bytes only.
+	 */
+	public static <T> OffHeapReplaySubject<T> create(final ReplaySerializer<T> serializer, final long maxBytes) {
+		return create( serializer, DEFAULT_SEGMENT_SIZE, maxBytes, Long.MAX_VALUE, TimeUnit.MILLISECONDS, Schedulers.computation() );
+	}
+
+	public static <T> OffHeapReplaySubject<T> create(final ReplaySerializer<T> serializer, final long maxBytes, final long maxAge, final TimeUnit unit) {
+		return create( serializer, DEFAULT_SEGMENT_SIZE, maxBytes, maxAge, unit, Schedulers.computation() );
+	}
+
+	/**
+	 * @param segmentSize bytes of one direct buffer, the unit of allocation and eviction. An item must fit into one segment
+	 * @param maxBytes direct memory of the history at most, rounded down to the segments
+	 * @param scheduler gives the current time, e.g. {@code TestScheduler}
+	 */
+	public static <T> OffHeapReplaySubject<T> create(
+		  final ReplaySerializer<T> serializer
+		, final int segmentSize
+		, final long maxBytes
+		, final long maxAge
+		, final TimeUnit unit
+		, final Scheduler scheduler
+	) {
+		return new OffHeapReplaySubject<>( new OffHeapSegmentLog<>( serializer, segmentSize, maxBytes, unit.toMillis(maxAge) ), scheduler );
+	}
+
+	private OffHeapReplaySubject(final OffHeapSegmentLog<T> log, final Scheduler scheduler) {
+		this.log = log;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * @param offset index of the first item to replay, counting all the items this subject has got.
+	 *               Offsets already evicted start from the oldest item kept, future ones from the next item
+	 */
+	public Observable<T> fromOffset(final long offset) {
+		if (offset < 0)
+			throw new IllegalArgumentException("offset must not be negative: " + offset);
+
+		return new Observable<T>() {
+			@Override
+			protected void subscribeActual(final Observer<? super T> observer) {
+				subscribeFrom(observer, offset);
+			}
+		};
+	}
+
+	/**
+	 * @return offset of the oldest item kept, some of them might be expired already
+	 */
+	public long getFirstOffset() {
+		return log.getFirstOffset();
+	}
+
+	/**
+	 * @return offset the next item gets, i.e. the count of items got so far
+	 */
+	public long getNextOffset() {
+		return log.getNextOffset();
+	}
+
+	/**
+	 * @return direct memory used by the history
+	 */
+	public long getSizeInBytes() {
+		return log.getSizeInBytes();
+	}
+
+	public int getSegmentCount() {
+		return log.getSegmentCount();
+	}
+
+	@Override
+	protected void subscribeActual(final Observer<? super T> observer) {
+		subscribeFrom(observer, 0);
+	}
+
+	@Override
+	public void onSubscribe(final Disposable d) {
+		if (done) {
+			d.dispose();
+		}
+	}
+
+	@Override
+	public void onNext(final T t) {
+		if (t == null) {
+			onError( new NullPointerException("onNext called with null") );
+			return;
+		}
+
+		if (done) {
+			return;
+		}
+
+		log.append( t, now() );
+
+		for ( final ReplayDisposable<T> subscriber : subscribers.get() ) {
+			subscriber.replay();
+		}
+	}
+
+	@Override
+	public void onError(final Throwable e) {
+		if (done) {
+			return;
+		}
+
+		error = (e != null) ? e : new NullPointerException("onError called with null");
+		terminate();
+	}
+
+	@Override
+	public void onComplete() {
+		if (done) {
+			return;
+		}
+
+		terminate();
+	}
+
+	@Override
+	public boolean hasObservers() {
+		return subscribers.get().length != 0;
+	}
+
+	@Override
+	public boolean hasThrowable() {
+		return done && error != null;
+	}
+
+	@Override
+	public boolean hasComplete() {
+		return done && error == null;
+	}
+
+	@Override
+	public Throwable getThrowable() {
+		return done ? error : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void terminate() {
+		done = true;
+
+		for ( final ReplayDisposable<T> subscriber : subscribers.getAndSet(TERMINATED) ) {
+			subscriber.replay();
+		}
+	}
+
+	private void subscribeFrom(final Observer<? super T> observer, final long offset) {
+		final ReplayDisposable<T> subscriber = new ReplayDisposable<>(observer, this, offset);
+		observer.onSubscribe(subscriber);
+
+		if ( add(subscriber) && subscriber.isDisposed() ) {
+			remove(subscriber);
+			return;
+		}
+
+		subscriber.replay(); // history first, the items coming meanwhile are picked up by the same drain
+	}
+
+	private long now() {
+		return scheduler.now(TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return {@code false} if the subject has terminated, the subscriber then replays the history and gets the terminal event
+	 */
+	private boolean add(final ReplayDisposable<T> subscriber) {
+		while (true) {
+			final ReplayDisposable<T>[] current = subscribers.get();
+			if (current == TERMINATED) {
+				return false;
+			}
+
+			@SuppressWarnings({"unchecked", "rawtypes"})
+			final ReplayDisposable<T>[] next = new ReplayDisposable[current.length + 1];
+			System.arraycopy(current, 0, next, 0, current.length);
+			next[current.length] = subscriber;
+
+			if ( subscribers.compareAndSet(current, next) ) {
+				return true;
+			}
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void remove(final ReplayDisposable<T> subscriber) {
+		while (true) {
+			final ReplayDisposable<T>[] current = subscribers.get();
+
+			int index = -1;
+			for (int i = 0; i < current.length; i++) {
+				if (current[i] == subscriber) {
+					index = i;
+					break;
+				}
+			}
+
+			if (index < 0) {
+				return;
+			}
+
+			final ReplayDisposable<T>[] next;
+			if (current.length == 1) {
+				next = EMPTY;
+			}
+			else {
+				next = new ReplayDisposable[current.length - 1];
+				System.arraycopy(current, 0, next, 0, index);
+				System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+			}
+
+			if ( subscribers.compareAndSet(current, next) ) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * One subscriber with its cursor in the log. Queue-drain with {@code wip}: the subscribing thread replays the history,
+	 * the {@code onNext} thread the new items, never both at once.
+	 */
+	private static final class ReplayDisposable<T> extends AtomicInteger implements Disposable {
+		private final Observer<? super T> downstream;
+		private final OffHeapReplaySubject<T> subject;
+		private final OffHeapSegmentLog.Cursor cursor;
+
+		private volatile boolean disposed;
+
+		private ReplayDisposable(final Observer<? super T> downstream, final OffHeapReplaySubject<T> subject, final long offset) {
+			this.downstream = downstream;
+			this.subject = subject;
+			this.cursor = new OffHeapSegmentLog.Cursor(offset);
+		}
+
+		private void replay() {
+			if (getAndIncrement() != 0) {
+				return;
+			}
+
+			int missed = 1;
+			do {
+				while (true) {
+					if (disposed) {
+						return;
+					}
+
+					final boolean isDone = subject.done; // read before the log: nothing is appended after done
+					final T t = subject.log.read( cursor, subject.now() );
+
+					if (t == null) {
+						if (isDone) {
+							disposed = true;
+
+							final Throwable e = subject.error;
+							if (e != null) {
+								downstream.onError(e);
+							}
+							else {
+								downstream.onComplete();
+							}
+							return;
+						}
+						break;
+					}
+
+					downstream.onNext(t);
+				}
+
+				missed = addAndGet(-missed);
+			}
+			while (missed != 0);
+		}
+
+		@Override
+		public void dispose() {
+			if (!disposed) {
+				disposed = true;
+				subject.remove(this);
+			}
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return disposed;
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package com.dpopov.rxjava.subscriber_wrapper;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Append-only log of serialized items in direct {@code ByteBuffer} segments of the same size, the storage of {@link OffHeapReplaySubject}.
+ * <br/>
+ * A record is {@code [long timestamp][int length][length bytes]} and never crosses a segment. Offsets count the records from 0, for the whole life of the log.
+ * The oldest segments are evicted as a whole: when a new segment would exceed {@code maxBytes}, and when their newest record is older than {@code maxAge}.
+ * Their buffers are reused for the new segments, so the log allocates direct memory only until it reaches {@code maxBytes}.
+ * The heap only holds one small object per segment, whatever the count of records.
+ * <br/>
+ * All the methods hold the lock of the log: one writer and the replaying readers share the segment buffers.
+ */
+class OffHeapSegmentLog<T> {
+	private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+	private final ReplaySerializer<T> serializer;
+	private final int segmentSize;
+	private final int maxSegments;
+	private final long maxAgeMillis;
+
+	private final ArrayDeque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+
+	private Segment head; // oldest
+	private Segment tail; // written
+	private int segmentCount;
+
+	private long firstOffset; // first record of the head segment
+	private long nextOffset;
+
+	OffHeapSegmentLog(final ReplaySerializer<T> serializer, final int segmentSize, final long maxBytes, final long maxAgeMillis) {
+		if (segmentSize <= HEADER_SIZE)
+			throw new IllegalArgumentException("segmentSize is too small: " + segmentSize);
+
+		if (maxBytes < segmentSize)
+			throw new IllegalArgumentException( String.format("maxBytes must be at least segmentSize %d: %d", segmentSize, maxBytes) );
+
+		if (maxAgeMillis <= 0)
+			throw new IllegalArgumentException("maxAge must be positive: " + maxAgeMillis);
+
+		this.serializer = serializer;
+		this.segmentSize = segmentSize;
+		this.maxSegments = (int) Math.min( Integer.MAX_VALUE, maxBytes / segmentSize );
+		this.maxAgeMillis = maxAgeMillis;
+	}
+
+	synchronized void append(final T value, final long nowMillis) {
+		evictExpired(nowMillis);
+
+		if ( tail != null && write(tail, value, nowMillis) ) {
+			nextOffset++;
+			return;
+		}
+
+		final Segment segment = newSegment();
+		if ( !write(segment, value, nowMillis) ) {
+			freeBuffers.push(segment.buffer);
+			throw new IllegalArgumentException("Item does not fit into a segment of " + segmentSize + " bytes");
+		}
+
+		// the new segment is linked only with its first record, readers never see an empty segment
+		if (tail == null) {
+			head = segment;
+			firstOffset = segment.firstOffset;
+		}
+		else {
+			tail.next = segment;
+		}
+		tail = segment;
+		segmentCount++;
+		nextOffset++;
+	}
+
+	/**
+	 * @return the next record of the cursor, or {@code null} if the cursor has read everything.
+	 * Records evicted or expired before the cursor got to them are skipped.
+	 */
+	synchronized T read(final Cursor cursor, final long nowMillis) {
+		if ( cursor.segment == null || cursor.segment.evicted || cursor.offset < firstOffset ) {
+			seek( cursor, Math.max(cursor.offset, firstOffset) );
+		}
+
+		final long cutoff = nowMillis - maxAgeMillis;
+
+		while (cursor.offset < nextOffset) {
+			Segment segment = cursor.segment;
+			if (cursor.position == segment.end) { // read to the end of a full segment
+				segment = segment.next;
+				cursor.segment = segment;
+				cursor.position = 0;
+			}
+
+			final ByteBuffer buffer = segment.buffer;
+			final int position = cursor.position;
+			final long timestamp = buffer.getLong(position);
+			final int length = buffer.getInt(position + Long.BYTES);
+
+			cursor.position = position + HEADER_SIZE + length;
+			cursor.offset++;
+
+			if (timestamp < cutoff) {
+				continue;
+			}
+
+			buffer.limit(cursor.position).position(position + HEADER_SIZE);
+			try {
+				return serializer.read(buffer);
+			}
+			finally {
+				buffer.clear();
+			}
+		}
+
+		return null;
+	}
+
+	synchronized long getFirstOffset() {
+		return firstOffset;
+	}
+
+	synchronized long getNextOffset() {
+		return nextOffset;
+	}
+
+	synchronized int getSegmentCount() {
+		return segmentCount;
+	}
+
+	/**
+	 * @return direct memory held by the segments in use
+	 */
+	synchronized long getSizeInBytes() {
+		return (long) segmentCount * segmentSize;
+	}
+
+	private boolean write(final Segment segment, final T value, final long nowMillis) {
+		final ByteBuffer buffer = segment.buffer;
+		if (segment.end + HEADER_SIZE > buffer.capacity()) {
+			return false;
+		}
+
+		buffer.clear().position(segment.end + HEADER_SIZE);
+		try {
+			serializer.write(value, buffer);
+		}
+		catch (final BufferOverflowException e) {
+			return false; // once per segment, the record goes to the next one
+		}
+
+		final int length = buffer.position() - segment.end - HEADER_SIZE;
+		buffer.putLong(segment.end, nowMillis);
+		buffer.putInt(segment.end + Long.BYTES, length);
+		buffer.clear();
+
+		segment.end += HEADER_SIZE + length;
+		segment.newestTimestamp = nowMillis;
+		return true;
+	}
+
+	private Segment newSegment() {
+		while (segmentCount >= maxSegments) {
+			evictHead();
+		}
+
+		final ByteBuffer buffer = freeBuffers.isEmpty() ? ByteBuffer.allocateDirect(segmentSize) : freeBuffers.pop();
+		return new Segment(buffer, nextOffset);
+	}
+
+	private void evictExpired(final long nowMillis) {
+		final long cutoff = nowMillis - maxAgeMillis;
+		while ( head != null && head.newestTimestamp < cutoff ) {
+			evictHead();
+		}
+	}
+
+	private void evictHead() {
+		final Segment evicted = head;
+		evicted.evicted = true; // the cursors in it seek again
+		freeBuffers.push(evicted.buffer);
+
+		head = evicted.next;
+		segmentCount--;
+
+		if (head == null) {
+			tail = null;
+			firstOffset = nextOffset;
+		}
+		else {
+			firstOffset = head.firstOffset;
+		}
+	}
+
+	private void seek(final Cursor cursor, final long offset) {
+		cursor.offset = offset;
+		cursor.segment = null;
+		cursor.position = 0;
+
+		if (offset >= nextOffset) { // caught up, positioned at the end
+			cursor.offset = nextOffset;
+			cursor.segment = tail;
+			cursor.position = (tail == null) ? 0 : tail.end;
+			return;
+		}
+
+		Segment segment = head;
+		while (segment.next != null && segment.next.firstOffset <= offset) {
+			segment = segment.next;
+		}
+
+		int position = 0;
+		for (long skipped = segment.firstOffset; skipped < offset; skipped++) {
+			position += HEADER_SIZE + segment.buffer.getInt(position + Long.BYTES);
+		}
+
+		cursor.segment = segment;
+		cursor.position = position;
+	}
+
+	/**
+	 * Position of one reader: the offset of the next record and where it is.
+	 */
+	static final class Cursor {
+		private long offset;
+		private Segment segment;
+		private int position;
+
+		Cursor(final long offset) {
+			this.offset = offset;
+		}
+	}
+
+	private static final class Segment {
+		private final ByteBuffer buffer;
+		private final long firstOffset;
+		private int end; // write position
+		private long newestTimestamp;
+		private Segment next;
+		private boolean evicted;
+
+		private Segment(final ByteBuffer buffer, final long firstOffset) {
+			this.buffer = buffer;
+			this.firstOffset = firstOffset;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.dpopov.rxjava.subscriber_wrapper;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the items of {@link OffHeapReplaySubject} into its off-heap log and reads them back.
+ * <br/>
+ * Calls are never concurrent for one subject, so an instance may keep state (e.g. an encoder), but must not be shared by subjects then.
+ */
+public interface ReplaySerializer<T> {
+	/**
+	 * Writes {@code value} from the buffer position.
+	 *
+	 * @throws BufferOverflowException if the value does not fit into the remaining bytes, the log then retries in a new segment
+	 */
+	void write(T value, ByteBuffer buffer);
+
+	/**
+	 * @param buffer bytes of one value, from the position to the limit
+	 */
+	T read(ByteBuffer buffer);
+
+	static ReplaySerializer<Long> longs() {
+		return new ReplaySerializer<Long>() {
+			@Override
+			public void write(final Long value, final ByteBuffer buffer) {
+				buffer.putLong(value);
+			}
+
+			@Override
+			public Long read(final ByteBuffer buffer) {
+				return buffer.getLong();
+			}
+		};
+	}
+
+	/**
+	 * @return UTF-8 serializer with its own encoder, one per subject. A lone surrogate is written as {@code '?'}, as {@link String#getBytes} does
+	 */
+	static ReplaySerializer<String> utf8() {
+		final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE) // otherwise the encoding stops there and the rest of the string is lost
+		;
+
+		return new ReplaySerializer<String>() {
+			@Override
+			public void write(final String value, final ByteBuffer buffer) {
+				final CoderResult result = encoder.reset().encode( CharBuffer.wrap(value), buffer, true ); // straight into the direct buffer, no byte[]
+				if ( result.isOverflow() ) {
+					throw new BufferOverflowException();
+				}
+			}
+
+			@Override
+			public String read(final ByteBuffer buffer) {
+				return StandardCharsets.UTF_8.decode(buffer).toString();
+			}
+		};
+	}
+}
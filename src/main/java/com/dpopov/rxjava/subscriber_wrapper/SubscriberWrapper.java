@@ -2,6 +2,7 @@ package com.dpopov.rxjava.subscriber_wrapper;
 
 import java.util.concurrent.TimeUnit;
 
+import com.dpopov.rxjava.schedulers.HashedWheelScheduler;
 import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.subjects.BehaviorSubject;
@@ -25,6 +26,26 @@ public class SubscriberWrapper {
 		System.out.println("Testing with BehaviorSubject ended");
 		System.out.println("=================================");
 
+		System.out.println("===========================");
+		System.out.println("Testing with OffHeapReplaySubject");
+		final OffHeapReplaySubject<String> replaySubject = OffHeapReplaySubject.create(ReplaySerializer.utf8(), 1 << 20, 1, TimeUnit.MINUTES);
+		testWithSubject(replaySubject);
+
+		// history is kept off-heap, a late subscriber can start from any offset still kept
+		final Disposable lateSubscriber = replaySubject.fromOffset(2).subscribe(string -> {
+			System.out.printf("Value replayed to late subscriber: %s%n", string);
+		});
+		lateSubscriber.dispose();
+		System.out.printf("Replay history: %d items, %d bytes off-heap%n", replaySubject.getNextOffset() - replaySubject.getFirstOffset(), replaySubject.getSizeInBytes());
+		System.out.println("Testing with OffHeapReplaySubject ended");
+		System.out.println("=================================");
+
+		System.out.println("===========================");
+		System.out.println("Testing with several upstreams");
+		testWithSeveralUpstreams(PublishSubject.create());
+		System.out.println("Testing with several upstreams ended");
+		System.out.println("=================================");
+
 		System.out.println("Waiting more before program end. No emissions should happen...");
 		Thread.sleep(5000); // no emissions should happen from here
 		System.out.println("Program ended.");
@@ -62,11 +83,36 @@ public class SubscriberWrapper {
 		System.out.println("=======================================");
 	}
 
+	private static void testWithSeveralUpstreams(final Subject<String> subject) throws InterruptedException {
+		// SubjectDisposableObserverWrapper takes one upstream, several ones would need subject.toSerialized() which locks on each element
+		final MpscSubjectObserverWrapper<String> wrapper = MpscSubjectObserverWrapper.create(subject);
+
+		final Disposable disposableForSubjectObserver = wrapper.subscribe(string -> { // one thread at a time here, whatever upstream it comes from
+			System.out.printf("Next value got from wrapper on %s: %s%n", Thread.currentThread().getName(), string);
+		});
+
+		for (int i = 0; i < 3; i++) {
+			final String prefix = "upstream#" + i + " ";
+			createObservable()
+				.map(value -> prefix + value)
+				.subscribe(wrapper); // each upstream on its own computation thread
+		}
+
+		Thread.sleep(5000);
+
+		System.out.println("===============================");
+		System.out.println("Calling dispose from wrapper...");
+		wrapper.dispose(); // disposes all the upstreams, the values already taken are still delivered
+		System.out.println("Dispose from wrapper called.");
+
+		disposableForSubjectObserver.dispose();
+	}
+
 	private static Observable<String> createObservable() {
 		final String[] values = { "zero", "one", "two", "three", "four", "five", "six", "seven", "eight", "nine" };
 
 		return Observable
-			.interval(1, TimeUnit.SECONDS)
+			.interval(1, TimeUnit.SECONDS, HashedWheelScheduler.getInstance())
 			.map(i -> {
 				final String value = values[i.intValue() % values.length];
 				System.out.printf("I am emitting value: %s%n", value);
@@ -1,12 +1,27 @@
 package com.dpopov.rxjava.v1;
 
 import com.dpopov.rxjava.Utils;
+import com.dpopov.rxjava.concurrent.OverflowPolicy;
+import com.dpopov.rxjava.metrics.RxMetrics;
+import com.dpopov.rxjava.v1.batch.IntBatch;
+import com.dpopov.rxjava.v1.batch.IntBatchPool;
+import com.dpopov.rxjava.v1.batch.IntBatcher;
+import com.dpopov.rxjava.v1.operators.AdaptiveBatchController;
+import com.dpopov.rxjava.v1.operators.AdaptiveBufferOperator;
+import com.dpopov.rxjava.v1.operators.RingBufferBackpressureOperator;
+import com.dpopov.rxjava.v1.operators.SummarySampleOperator;
+import org.junit.Assert;
 import rx.BackpressureOverflow;
 import rx.Observable;
 import rx.schedulers.Schedulers;
 import rx.subjects.PublishSubject;
 
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.IntStream;
 
 /**
@@ -14,7 +29,13 @@ import java.util.stream.IntStream;
  */
 public class BackpressureBasics {
     public static void main(String[] args) throws InterruptedException {
+        if ( Boolean.getBoolean("rx.metrics") ) { // -Drx.metrics=true: shows which stage falls behind
+            RxMetrics.install();
+            RxMetrics.startDump(1, TimeUnit.SECONDS, System.err::println);
+        }
+
 //        tryColdObservable();
+        tryShardedWindows();
         tryHotObservable();
     }
 
@@ -32,6 +53,41 @@ public class BackpressureBasics {
         Utils.printSeparator();
     }
 
+    private static void tryShardedWindows() {
+        Utils.printMethodStart("tryShardedWindows");
+
+        final int count = 1_000_000;
+        final int windowSize = 10_000;
+        final ShardedWindowProcessor processor = ShardedWindowProcessor.create();
+
+        final List<WindowStats> windows = Observable.range(0, count)
+            .window(windowSize)
+            .flatMap(processor::process) // window n is computed on shard n % cores
+            .toList()
+            .toBlocking()
+            .single()
+        ;
+
+        long total = 0;
+        for (final WindowStats stats : windows) {
+            final int first = (int) stats.getWindowIndex() * windowSize; // windows of a range are consecutive
+
+            Assert.assertEquals(windowSize, stats.getCount());
+            Assert.assertEquals(first, stats.getFirst());
+            Assert.assertEquals(first + windowSize - 1, stats.getLast());
+            Assert.assertEquals(stats.getFirst(), stats.getMin());
+            Assert.assertEquals(stats.getLast(), stats.getMax());
+            total += stats.getCount();
+        }
+
+        Assert.assertEquals(count / windowSize, windows.size());
+        Assert.assertEquals(count, total); // no lost updates
+        log( String.format("%d windows on %d shards, last: %s", windows.size(), processor.getShardsCount(), windows.get(windows.size() - 1)) );
+
+        processor.shutdown();
+        Utils.printSeparator();
+    }
+
     private static void tryHotObservable() throws InterruptedException {
         final int intStreamStart = 1;
 
@@ -41,16 +97,45 @@ public class BackpressureBasics {
 
         Utils.printMethodStart("tryHotObservable");
 
+        // primitive ints go straight into pooled int[] batches, no Integer boxing and no List per batch.
+        // The pool has fewer batches than the observeOn buffer (128): when all of them are in use, IntBatcher waits for a release,
+        // so the producer is slowed down instead of failing with MissingBackpressureException
+        log("Using pooled int batches");
+        final IntBatchPool pool = IntBatchPool.create(16, 65_536);
+        final PublishSubject<IntBatch> batches = PublishSubject.create();
+        final CountDownLatch batchesDone = new CountDownLatch(1);
+
+        batches
+            .observeOn( Schedulers.computation() )
+            .subscribe( ComputeFunction::compute, Throwable::printStackTrace, batchesDone::countDown ) // compute(IntBatch) releases the batch
+        ;
+
+        final IntBatcher batcher = IntBatcher.create(pool, batches);
+        IntStream.range(intStreamStart, intStreamEnd) // does not honor backpressure, but the pool does
+            .forEach(batcher::onNext)
+        ;
+        batcher.onCompleted();
+
+        batchesDone.await();
+        log("Pooled int batches: " + pool.getFreeCount() + " free of 16");
+
+        Utils.printSeparator();
+
+
         // Hot Observable that will fail with MissingBackpressureException
         final PublishSubject<Integer> source = PublishSubject.create();
 
+        // batch size and time span are adapted to the measured compute time and arrival rate, so that a batch waits and computes within 200 ms
+        final AdaptiveBatchController controller = AdaptiveBatchController.create(200, TimeUnit.MILLISECONDS);
+
         source
 //            .buffer(100) // buffer returns Observable<List<T>>, buffer 100 is not enough
 //            .window(500) // window returns Observable<Observable<T>>. Can be useful if subscriber produces batch quicker than one-by-one. // todo: think about this
-            .window(1, 500, TimeUnit.MILLISECONDS) // window returns Observable<Observable<T>>. Can be useful if subscriber produces batch quicker than one-by-one. // todo: think about this
+//            .window(1, 500, TimeUnit.MILLISECONDS) // window returns Observable<Observable<T>>. Can be useful if subscriber produces batch quicker than one-by-one. // todo: think about this
 //            .buffer(1024) // buffer returns Observable<List<T>>, i.e. subscriber gets list of count values
+            .lift( AdaptiveBufferOperator.create(controller) ) // like buffer, but keeps adding to the current batch while the subscriber is busy, so no MissingBackpressureException below the max batch size
             .observeOn( Schedulers.computation() )
-            .subscribe( ComputeFunction::compute, Throwable::printStackTrace )
+            .subscribe( controller.timed(ComputeFunction::compute), Throwable::printStackTrace ) // timed reports the compute time to the controller
         ;
 
         IntStream.range(intStreamStart, intStreamEnd) // does not honor backpressure, obviously
@@ -61,21 +146,32 @@ public class BackpressureBasics {
         ;
 
         Thread.sleep(5000);
+        log("Adaptive batching: " + controller);
 
         Utils.printSeparator();
 
 
-        // skipping methods - just emit one value at some
-        log("Using sample");
+        // skipping methods - just emit one value at some. A summary per interval keeps what they skip: count, sum, min, max, last and quantiles
+        log("Using SummarySampleOperator instead of sample");
         final PublishSubject<Integer> subject = PublishSubject.create();
+        final LongAdder summarized = new LongAdder();
+        final CountDownLatch summariesDone = new CountDownLatch(1);
 
         subject
 //            .throttleFirst(100, TimeUnit.MILLISECONDS)
 //            .throttleLast(100, TimeUnit.MILLISECONDS)
-            .sample(100, TimeUnit.MILLISECONDS)
+//            .sample(100, TimeUnit.MILLISECONDS) // one value of each 100 ms, the others are lost
+            .lift( SummarySampleOperator.<Integer>create(100, TimeUnit.MILLISECONDS, Integer::longValue).withQuantiles() )
 
             .observeOn( Schedulers.computation() )
-            .subscribe( ComputeFunction::compute, Throwable::printStackTrace )
+            .subscribe(
+                  summary -> {
+                      log( summary.toString() );
+                      summarized.add( summary.getCount() );
+                  }
+                , Throwable::printStackTrace
+                , summariesDone::countDown
+            )
         ;
 
 
@@ -85,6 +181,10 @@ public class BackpressureBasics {
                 subject.onNext(i);
             })
         ;
+        subject.onCompleted();
+
+        summariesDone.await();
+        Assert.assertEquals( intStreamEnd - intStreamStart, summarized.sum() ); // every value is in a summary
 
         Utils.printSeparator();
 
@@ -120,6 +220,34 @@ public class BackpressureBasics {
 
         Thread.sleep(5000);
         Utils.printSeparator();
+
+
+        // the same strategies on a lock-free ring: producers on several threads do not lock each other, and the drops are only counted
+        log("Using RingBufferBackpressureOperator with several producers");
+        final RingBufferBackpressureOperator<Integer> ringBuffer = RingBufferBackpressureOperator.create(1024, OverflowPolicy.DROP_OLDEST);
+        RxMetrics.registerGauge("RingBufferBackpressureOperator dropped", ringBuffer::getDroppedCount);
+        final PublishSubject<Integer> sharedSubject = PublishSubject.create();
+
+        sharedSubject
+            .lift(ringBuffer)
+            .observeOn( Schedulers.computation() )
+            .subscribe( ComputeFunction::compute, Throwable::printStackTrace )
+        ;
+
+        final int producersCount = 4;
+        final ExecutorService producers = Executors.newFixedThreadPool(producersCount);
+        for (int i = 0; i < producersCount; i++) {
+            producers.submit( () -> IntStream.range(intStreamStart, intStreamEnd / producersCount).forEach(sharedSubject::onNext) );
+        }
+
+        producers.shutdown();
+        producers.awaitTermination(1, TimeUnit.MINUTES);
+        sharedSubject.onCompleted();
+
+        log("RingBufferBackpressureOperator: dropped " + ringBuffer.getDroppedCount() + " values");
+
+        Thread.sleep(5000);
+        Utils.printSeparator();
     }
 
     private static void log(final String s) {
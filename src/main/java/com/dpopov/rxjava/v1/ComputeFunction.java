@@ -1,9 +1,8 @@
 package com.dpopov.rxjava.v1;
 
-import com.dpopov.rxjava.Holder;
 import com.dpopov.rxjava.Utils;
+import com.dpopov.rxjava.v1.batch.IntBatch;
 import rx.Observable;
-import rx.schedulers.Schedulers;
 
 import java.util.Collection;
 
@@ -13,7 +12,7 @@ public class ComputeFunction {
 
     public static void compute(final Integer v) {
         try {
-            log("Compute integer v: " + v);
+            log("Compute integer v: ", v);
             Thread.sleep(MS_TO_SLEEP); // emulate a long-running task
         }
         catch (final InterruptedException e) {
@@ -23,7 +22,7 @@ public class ComputeFunction {
 
     public static void compute(final Collection<Integer> v) { // for Observable#buffer
         try {
-            log("Compute list of integer size: " + v.size());
+            log("Compute list of integer size: ", v.size());
             log("Compute list of integer: " + v);
             Thread.sleep(MS_TO_SLEEP); // emulate a long-running task
         }
@@ -32,42 +31,40 @@ public class ComputeFunction {
         }
     }
 
+    public static void compute(final IntBatch batch) { // for IntBufferOperator and IntBatcher, the batch goes back to its pool
+        try {
+            log("Compute int batch size: ", batch.size());
+            log("Compute int batch: " + batch + ", sum: " + batch.sum());
+            Thread.sleep(MS_TO_SLEEP); // emulate a long-running task
+        }
+        catch (final InterruptedException e) {
+            e.printStackTrace();
+        }
+        finally {
+            batch.release();
+        }
+    }
+
     public static void compute(final Observable<Integer> observable) { // for Observable#window
         log("Compute: got observable " + observable);
 
-        final Holder<Integer> firstValueHolder = new Holder<>(0);
-        final Holder<Integer> holder = new Holder<>(0);
-        final Holder<Boolean> processedFirstValueHolder = new Holder<>(false);
-
-        observable
-            .subscribeOn( Schedulers.computation() )
-            .observeOn( Schedulers.computation() )
+        // each window goes to one shard thread, its first / last / count / min / max are kept there without sharing
+        WindowProcessorHolder.INSTANCE.process(observable)
             .subscribe(
-//                  ComputeFunction::compute
-                  value -> {
-                      if ( !processedFirstValueHolder.value ) {
-                          processedFirstValueHolder.value = true;
-                          firstValueHolder.value = value;
-                          log( String.format("Compute [%s]: Observable %s first value: %d", Utils.formatDate(), observable, value) );
-                      }
-
-                      holder.value = value;
-                  }
-
+                  stats -> log( String.format("Compute [%s]: Observable %s completed. %s", Utils.formatDate(), observable, stats) )
                 , Throwable::printStackTrace
-
-                , () -> log( String.format(
-                      "Compute [%s]: Observable %s completed. Last value: %d. Diff from first value: %d."
-                    , Utils.formatDate()
-                    , observable
-                    , holder.value
-                    , (holder.value - firstValueHolder.value)
-                ) )
             )
         ;
     }
 
+    private static final class WindowProcessorHolder { // the shard threads start with the first window, not with this class
+        private static final ShardedWindowProcessor INSTANCE = ShardedWindowProcessor.create();
+    }
+
     private static void log(final String s) {
         Utils.log(ComputeFunction.class, s);
     }
+    private static void log(final String s, final long value) { // no string building on the computation threads
+        Utils.log(ComputeFunction.class, s, value);
+    }
 }
\ No newline at end of file
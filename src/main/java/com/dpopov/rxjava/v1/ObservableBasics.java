@@ -2,6 +2,7 @@ package com.dpopov.rxjava.v1;
 
 import com.dpopov.rxjava.Holder;
 import com.dpopov.rxjava.Utils;
+import com.dpopov.rxjava.v1.operators.LaneGroupByOperator;
 import org.junit.Assert;
 import rx.Observable;
 import rx.Observer;
@@ -20,6 +21,7 @@ import java.util.concurrent.TimeUnit;
 public class ObservableBasics {
     public static void main(String[] args) throws InterruptedException {
         trySimpleObservables();
+        tryHighCardinalityGroupBy();
 //        trySchedulers();
         tryConnectableObservables();
         trySingle();
@@ -260,6 +262,40 @@ public class ObservableBasics {
 */
 
 
+    private static void tryHighCardinalityGroupBy() {
+        Utils.printMethodStart("tryHighCardinalityGroupBy");
+
+        // groupBy keeps a GroupedObservable with its queue for each key ever seen: with user ids as keys it never frees them.
+        // LaneGroupByOperator keeps at most maxGroups groups, in a primitive long map, and completes the least recently used ones
+        final int count = 1_000_000;
+        final int valuesPerUser = 10;
+        final LaneGroupByOperator<Integer> groupBy = LaneGroupByOperator.<Integer>builder(i -> i / valuesPerUser) // "user id", 100_000 of them
+            .maxGroups(1_000)
+            .idleTimeout(1, TimeUnit.MINUTES)
+            .build();
+
+        final long total = Observable.range(0, count)
+            .lift(groupBy)
+            .flatMap( group -> group
+                .reduce( (previous, i) -> {
+                    Assert.assertEquals(previous + 1, (int) i); // the values of a user keep their order on its lane
+                    return i;
+                } )
+                .map( last -> last - group.getKey() * valuesPerUser + 1 ) // values in the group
+            )
+            .reduce(0L, Long::sum)
+            .toBlocking()
+            .single()
+        ;
+
+        log("Values in all the groups: " + total + ", " + groupBy);
+        Assert.assertEquals(count, total);
+        Assert.assertEquals(count / valuesPerUser, groupBy.getCreatedCount());
+        Assert.assertTrue( groupBy.getEvictedCount() >= count / valuesPerUser - 1_000 ); // all but the last ones, completed with the upstream
+
+        Utils.printSeparator();
+    }
+
     /**
      * @see <a href="http://tomstechnicalblog.blogspot.com/2016/02/rxjava-understanding-observeon-and.html">http://tomstechnicalblog.blogspot.com/2016/02/rxjava-understanding-observeon-and.html</a>
      * @throws InterruptedException in case of {@code Thread.sleep} interrupted
@@ -0,0 +1,89 @@
+package com.dpopov.rxjava.v1;
+
+import com.dpopov.rxjava.concurrent.OverflowPolicy;
+import com.dpopov.rxjava.v1.operators.RingBufferBackpressureOperator;
+import rx.Observable;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computes {@link WindowStats} of the windows of {@code Observable#window} on a fixed set of single-thread shards: window n goes to shard n % shardsCount.
+ * <br/>
+ * A window is processed on one thread from start to end, and its stats object is created per window, so nothing is shared between threads
+ * and no updates are lost, unlike counters kept in shared {@code Holder}s. The shards do not share state either, so they scale with the cores.
+ * <br/>
+ * A shard that is behind makes the window producer wait ({@link OverflowPolicy#BLOCK}) instead of failing with {@code MissingBackpressureException}.
+ *
+ * <pre>
+ * source
+ *     .window(1000)
+ *     .flatMap(processor::process)
+ *     .subscribe(stats -&gt; ...)
+ * </pre>
+ */
+public class ShardedWindowProcessor {
+    private static final int SHARD_BUFFER_SIZE = 1024;
+
+    private final Scheduler[] shards;
+    private final ExecutorService[] executors;
+    private final AtomicLong windowsCount = new AtomicLong();
+
+    public static ShardedWindowProcessor create() {
+        return create( Runtime.getRuntime().availableProcessors() );
+    }
+
+    public static ShardedWindowProcessor create(final int shardsCount) {
+        return new ShardedWindowProcessor(shardsCount);
+    }
+
+    private ShardedWindowProcessor(final int shardsCount) {
+        if (shardsCount <= 0)
+            throw new IllegalArgumentException("shardsCount must be positive: " + shardsCount);
+
+        shards = new Scheduler[shardsCount];
+        executors = new ExecutorService[shardsCount];
+
+        for (int i = 0; i < shardsCount; i++) {
+            final String threadName = "window-shard-" + i;
+            executors[i] = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true); // same as rxjava schedulers, does not keep the demo alive
+                return thread;
+            });
+            shards[i] = Schedulers.from( executors[i] );
+        }
+    }
+
+    public int getShardsCount() {
+        return shards.length;
+    }
+
+    /**
+     * The window must be subscribed right away (e.g. by {@code flatMap}), as any window of {@code Observable#window}.
+     *
+     * @return stats of the window, emitted on its shard thread when the window completes
+     */
+    public Observable<WindowStats> process(final Observable<Integer> window) {
+        final long windowIndex = windowsCount.getAndIncrement();
+        final int shard = (int) (windowIndex % shards.length);
+
+        return window
+            .lift( RingBufferBackpressureOperator.<Integer>create(SHARD_BUFFER_SIZE, OverflowPolicy.BLOCK) )
+            .observeOn( shards[shard] )
+            .collect( () -> new WindowStats(windowIndex, shard), WindowStats::accept ) // the stats live on the shard thread only
+        ;
+    }
+
+    /**
+     * Stops the shard threads, the windows in progress are not completed.
+     */
+    public void shutdown() {
+        for (final ExecutorService executor : executors) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.dpopov.rxjava.v1;
+
+/**
+ * First, last, count, min and max of one window, in plain fields.
+ * It is filled on the one shard thread that owns the window (see {@link ShardedWindowProcessor}), so it needs no synchronization,
+ * and it is published to other threads only by the emission of the finished stats.
+ */
+public class WindowStats {
+    private final long windowIndex;
+    private final int shard;
+
+    private long count;
+    private int first;
+    private int last;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    WindowStats(final long windowIndex, final int shard) {
+        this.windowIndex = windowIndex;
+        this.shard = shard;
+    }
+
+    void accept(final int value) {
+        if (count == 0) {
+            first = value;
+        }
+
+        last = value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        count++;
+    }
+
+    public long getWindowIndex() {
+        return windowIndex;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int getFirst() {
+        return first;
+    }
+
+    public int getLast() {
+        return last;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        if (count == 0) {
+            return String.format("WindowStats [window: %d, shard: %d, empty]", windowIndex, shard);
+        }
+
+        return String.format(
+              "WindowStats [window: %d, shard: %d, count: %d, first: %d, last: %d, diff from first: %d, min: %d, max: %d]"
+            , windowIndex
+            , shard
+            , count
+            , first
+            , last
+            , (long) last - first
+            , min
+            , max
+        );
+    }
+}
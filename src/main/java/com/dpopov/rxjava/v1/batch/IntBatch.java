@@ -0,0 +1,88 @@
+package com.dpopov.rxjava.v1.batch;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Batch of primitive ints taken from an {@link IntBatchPool}. The consumer must call {@link #release()} when it is done with the batch,
+ * after that the batch is reused and must not be read anymore. Releasing it twice throws: the pool would hand it to two consumers.
+ */
+public class IntBatch {
+    private final int[] values;
+    private final IntBatchPool pool;
+    private final AtomicBoolean inPool = new AtomicBoolean(true);
+    private int size;
+
+    IntBatch(final int capacity, final IntBatchPool pool) {
+        this.values = new int[capacity];
+        this.pool = pool;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == values.length;
+    }
+
+    public int get(final int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException( String.format("Index: %d, size: %d", index, size) );
+
+        return values[index];
+    }
+
+    /**
+     * @return backing array, only {@code [0, size)} are the values of this batch
+     */
+    public int[] values() {
+        return values;
+    }
+
+    public void add(final int value) {
+        values[size++] = value;
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns this batch to its pool.
+     */
+    public void release() {
+        if ( !inPool.compareAndSet(false, true) )
+            throw new IllegalStateException("IntBatch released twice: " + this);
+
+        size = 0;
+        pool.release(this);
+    }
+
+    /**
+     * By the pool, when it hands the batch out.
+     */
+    void acquired() {
+        if ( !inPool.compareAndSet(true, false) )
+            throw new IllegalStateException("IntBatch acquired twice: " + this);
+    }
+
+    @Override
+    public String toString() {
+        return (size == 0)
+            ? "IntBatch [size: 0]"
+            : String.format("IntBatch [size: %d, first: %d, last: %d]", size, values[0], values[size - 1])
+        ;
+    }
+}
@@ -0,0 +1,62 @@
+package com.dpopov.rxjava.v1.batch;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Fixed set of preallocated {@link IntBatch}es. {@link #acquire()} blocks while all the batches are in use,
+ * so the pool capacity also bounds the batches in flight: with a capacity not bigger than the {@code observeOn} buffer (128 in rxjava1),
+ * a producer can not overflow it.
+ */
+public class IntBatchPool {
+    private final BlockingQueue<IntBatch> free;
+    private final int batchSize;
+
+    public static IntBatchPool create(final int batchesCount, final int batchSize) {
+        return new IntBatchPool(batchesCount, batchSize);
+    }
+
+    private IntBatchPool(final int batchesCount, final int batchSize) {
+        if (batchesCount <= 0 || batchSize <= 0)
+            throw new IllegalArgumentException( String.format("batchesCount and batchSize must be positive: %d, %d", batchesCount, batchSize) );
+
+        this.batchSize = batchSize;
+
+        free = new ArrayBlockingQueue<>(batchesCount);
+        for (int i = 0; i < batchesCount; i++) {
+            free.add( new IntBatch(batchSize, this) );
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getFreeCount() {
+        return free.size();
+    }
+
+    /**
+     * @return free empty batch, waits until some batch is released if there is none
+     */
+    public IntBatch acquire() {
+        final IntBatch batch;
+        try {
+            batch = free.take();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a free IntBatch", e);
+        }
+
+        batch.acquired();
+        return batch;
+    }
+
+    /**
+     * Only once per acquire, checked by {@link IntBatch#release()}: so the queue always has room for it.
+     */
+    void release(final IntBatch batch) {
+        free.add(batch);
+    }
+}
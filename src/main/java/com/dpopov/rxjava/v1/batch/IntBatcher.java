@@ -0,0 +1,74 @@
+package com.dpopov.rxjava.v1.batch;
+
+import rx.Observer;
+
+/**
+ * Producer side for primitive ints: fills pooled {@link IntBatch}es and emits each full one to the {@code target}, without boxing.
+ * <br/>
+ * Must be called from one thread, as any {@link Observer}. Blocks in {@link #onNext(int)} while the pool has no free batch.
+ *
+ * <pre>
+ * final IntBatcher batcher = IntBatcher.create(pool, subject);
+ * IntStream.range(0, n).forEach(batcher::onNext);
+ * batcher.onCompleted();
+ * </pre>
+ */
+public class IntBatcher {
+    private final IntBatchPool pool;
+    private final Observer<? super IntBatch> target;
+    private IntBatch current;
+
+    public static IntBatcher create(final IntBatchPool pool, final Observer<? super IntBatch> target) {
+        return new IntBatcher(pool, target);
+    }
+
+    private IntBatcher(final IntBatchPool pool, final Observer<? super IntBatch> target) {
+        this.pool = pool;
+        this.target = target;
+    }
+
+    public void onNext(final int value) {
+        if (current == null) {
+            current = pool.acquire();
+        }
+
+        current.add(value);
+
+        if ( current.isFull() ) {
+            flush();
+        }
+    }
+
+    /**
+     * Emits the current batch, even if it is not full.
+     */
+    public void flush() {
+        if (current == null) {
+            return;
+        }
+
+        final IntBatch batch = current;
+        current = null;
+
+        if ( batch.isEmpty() ) {
+            batch.release();
+        }
+        else {
+            target.onNext(batch);
+        }
+    }
+
+    public void onCompleted() {
+        flush();
+        target.onCompleted();
+    }
+
+    public void onError(final Throwable e) {
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+
+        target.onError(e);
+    }
+}
@@ -0,0 +1,127 @@
+package com.dpopov.rxjava.v1.operators;
+
+import rx.functions.Action1;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the batch size and the time span of {@link AdaptiveBufferOperator} at runtime.
+ * <br/>
+ * The operator reports the arrival rate, the consumer reports how long each batch took (see {@link #timed(Action1)}).
+ * A batch waits for at most the time span and then is processed, so the time span is the target latency minus the usual batch processing time.
+ * The batch size is what arrives during the time span: a full batch is emitted earlier than the time span ends.
+ * When the consumer is slower than the input, the operator keeps adding to the current batch until the consumer requests more,
+ * so the batches grow instead of overflowing a queue, up to the max batch size.
+ */
+public class AdaptiveBatchController {
+    private static final double SMOOTHING = 0.2; // weight of the newest measure in the moving averages
+
+    private final long targetLatencyNanos;
+    private final long minTimespanNanos;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+
+    // moving averages, updated from the operator and the consumer threads. Lost updates only make the estimate a bit older.
+    private volatile double arrivalsPerNano;
+    private volatile double batchNanos;
+
+    private volatile int batchSize;
+    private volatile long timespanNanos;
+
+    public static AdaptiveBatchController create(final long targetLatency, final TimeUnit unit) {
+        return create(targetLatency, unit, 16, 1_000_000);
+    }
+
+    public static AdaptiveBatchController create(final long targetLatency, final TimeUnit unit, final int minBatchSize, final int maxBatchSize) {
+        return new AdaptiveBatchController( unit.toNanos(targetLatency), minBatchSize, maxBatchSize );
+    }
+
+    private AdaptiveBatchController(final long targetLatencyNanos, final int minBatchSize, final int maxBatchSize) {
+        if (targetLatencyNanos <= 0)
+            throw new IllegalArgumentException("targetLatency must be positive: " + targetLatencyNanos);
+
+        if (minBatchSize <= 0 || maxBatchSize < minBatchSize)
+            throw new IllegalArgumentException( String.format("Wrong batch size bounds: [%d, %d]", minBatchSize, maxBatchSize) );
+
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.minTimespanNanos = Math.max( targetLatencyNanos / 100, TimeUnit.MILLISECONDS.toNanos(1) / 10 );
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+
+        batchSize = minBatchSize;
+        timespanNanos = targetLatencyNanos / 2;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return upper bound of the batch size, and of the items the operator keeps while its consumer does not request a batch
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getTimespanNanos() {
+        return timespanNanos;
+    }
+
+    public long getTargetLatencyNanos() {
+        return targetLatencyNanos;
+    }
+
+    /**
+     * @param consumer batch consumer, e.g. {@code ComputeFunction::compute}
+     * @return consumer that reports the time of each batch to this controller
+     */
+    public <T> Action1<List<T>> timed(final Action1<? super List<T>> consumer) {
+        return batch -> {
+            final long start = System.nanoTime();
+            consumer.call(batch);
+            onBatchProcessed( batch.size(), System.nanoTime() - start );
+        };
+    }
+
+    void onArrivals(final long count, final long elapsedNanos) {
+        if (elapsedNanos <= 0) {
+            return;
+        }
+
+        arrivalsPerNano = average( arrivalsPerNano, (double) count / elapsedNanos );
+        recompute();
+    }
+
+    void onBatchProcessed(final int size, final long nanos) {
+        batchNanos = average(batchNanos, nanos);
+        recompute();
+    }
+
+    private void recompute() {
+        final long timespan = clamp( targetLatencyNanos - (long) batchNanos, minTimespanNanos, targetLatencyNanos );
+        final long size = clamp( (long) (arrivalsPerNano * timespan), minBatchSize, maxBatchSize );
+
+        timespanNanos = timespan;
+        batchSize = (int) size;
+    }
+
+    private static double average(final double current, final double measured) {
+        return (current == 0) ? measured : current + SMOOTHING * (measured - current);
+    }
+
+    private static long clamp(final long value, final long min, final long max) {
+        return Math.max( min, Math.min(max, value) );
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+              "AdaptiveBatchController [batchSize: %d, timespan: %.2f ms, batch processing: %.2f ms, arrivals: %.0f/sec]"
+            , batchSize
+            , timespanNanos / 1_000_000.0
+            , batchNanos / 1_000_000.0
+            , arrivalsPerNano * 1_000_000_000
+        );
+    }
+}
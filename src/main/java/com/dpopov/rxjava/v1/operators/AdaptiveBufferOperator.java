@@ -0,0 +1,289 @@
+package com.dpopov.rxjava.v1.operators;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.exceptions.MissingBackpressureException;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code buffer(timespan, unit, count)} with the count and the time span chosen by an {@link AdaptiveBatchController}.
+ * <br/>
+ * The upstream is requested without bounds (it is meant for hot sources like {@code PublishSubject}), and a batch is emitted only when the child requested it.
+ * Until then, new items are added to the current batch, so a slow consumer gets bigger batches instead of a {@code MissingBackpressureException},
+ * up to {@link AdaptiveBatchController#getMaxBatchSize()} items: past it, the operator fails with {@code MissingBackpressureException}.
+ * <br/>
+ * The timer ticks at the deadline of the current batch, its start plus the time span, so a batch waits for at most about the time span.
+ */
+public class AdaptiveBufferOperator<T> implements Observable.Operator<List<T>, T> {
+    private final AdaptiveBatchController controller;
+    private final Scheduler scheduler;
+
+    public static <T> AdaptiveBufferOperator<T> create(final AdaptiveBatchController controller) {
+        return create( controller, Schedulers.computation() );
+    }
+
+    public static <T> AdaptiveBufferOperator<T> create(final AdaptiveBatchController controller, final Scheduler scheduler) {
+        return new AdaptiveBufferOperator<>(controller, scheduler);
+    }
+
+    private AdaptiveBufferOperator(final AdaptiveBatchController controller, final Scheduler scheduler) {
+        this.controller = controller;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Subscriber<? super T> call(final Subscriber<? super List<T>> child) {
+        final Scheduler.Worker worker = scheduler.createWorker();
+        final AdaptiveBufferSubscriber<T> parent = new AdaptiveBufferSubscriber<>(child, controller, worker);
+
+        parent.add(worker); // stops the ticks when the parent is unsubscribed
+        child.add(parent);
+        child.setProducer(parent::requestBatches);
+
+        parent.scheduleTick();
+        return parent;
+    }
+
+    /**
+     * The current batch and the arrival counters are guarded by {@code this}: onNext, the timer and the child requests come on different threads.
+     * The batches are emitted outside of the lock, by queue-drain with {@code wip}, so a slow child does not hold back onNext and the timer.
+     */
+    private static final class AdaptiveBufferSubscriber<T> extends Subscriber<T> {
+        private final Subscriber<? super List<T>> child;
+        private final AdaptiveBatchController controller;
+        private final Scheduler.Worker worker;
+
+        private final AtomicLong requested = new AtomicLong(); // batches requested by the child and not yet emitted
+        private final AtomicInteger wip = new AtomicInteger();
+
+        // guarded by this
+        private List<T> batch = new ArrayList<>();
+        private long batchStart = System.nanoTime();
+        private long arrivals; // since the last tick
+        private long lastTick = System.nanoTime();
+        private boolean done;
+        private Throwable error;
+
+        private boolean terminated; // drain thread only
+
+        private AdaptiveBufferSubscriber(final Subscriber<? super List<T>> child, final AdaptiveBatchController controller, final Scheduler.Worker worker) {
+            this.child = child;
+            this.controller = controller;
+            this.worker = worker;
+        }
+
+        @Override
+        public void onStart() {
+            request(Long.MAX_VALUE); // hot source, the backlog is kept in the current batch
+        }
+
+        @Override
+        public void onNext(final T t) {
+            final boolean full;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+
+                if ( batch.size() >= controller.getMaxBatchSize() ) { // no demand for that long, the batch does not grow without bounds
+                    done = true;
+                    error = new MissingBackpressureException("No request for a batch of " + batch.size() + " items");
+                    batch = new ArrayList<>();
+                    full = true;
+                }
+                else {
+                    if (batch.isEmpty()) {
+                        batchStart = System.nanoTime();
+                    }
+
+                    batch.add(t);
+                    arrivals++;
+                    full = batch.size() >= controller.getBatchSize();
+                }
+            }
+
+            if (full) {
+                drain();
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            synchronized (this) {
+                done = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+
+                done = true;
+                error = e;
+                batch = new ArrayList<>(); // errors cut ahead, same as buffer
+            }
+            drain();
+        }
+
+        private void requestBatches(final long n) {
+            if (n <= 0) {
+                return;
+            }
+
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                next = current + n;
+                if (next < 0) { // Long.MAX_VALUE means unbounded
+                    next = Long.MAX_VALUE;
+                }
+            }
+            while ( !requested.compareAndSet(current, next) );
+
+            drain();
+        }
+
+        /**
+         * Re-scheduled each time: the time span changes, and the next tick is at the deadline of the current batch if it is still ahead.
+         */
+        private void scheduleTick() {
+            final long timespan = controller.getTimespanNanos();
+            long delay = timespan;
+
+            synchronized (this) {
+                if ( !batch.isEmpty() ) {
+                    final long untilDeadline = batchStart + timespan - System.nanoTime();
+                    if (untilDeadline > 0) { // a passed deadline waits for a request, not for the timer
+                        delay = untilDeadline;
+                    }
+                }
+            }
+
+            worker.schedule(this::tick, delay, TimeUnit.NANOSECONDS);
+        }
+
+        private void tick() {
+            synchronized (this) {
+                final long now = System.nanoTime();
+                controller.onArrivals(arrivals, now - lastTick);
+                arrivals = 0;
+                lastTick = now;
+            }
+
+            drain();
+
+            if ( !isUnsubscribed() ) {
+                scheduleTick();
+            }
+        }
+
+        /**
+         * Queue-drain: whoever moves {@code wip} from 0 emits, the others only make it loop once more.
+         * A request from the child's onNext is one of the others, so it does not recurse.
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            do {
+                final long demand = requested.get();
+                long emitted = 0;
+
+                while (true) {
+                    if ( checkTerminated() ) {
+                        return;
+                    }
+
+                    if (emitted == demand) {
+                        break;
+                    }
+
+                    final List<T> ready = takeReady();
+                    if (ready == null) {
+                        break;
+                    }
+
+                    child.onNext(ready); // not holding the lock
+                    emitted++;
+                }
+
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+
+                missed = wip.addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+
+        /**
+         * @return the current batch if it is ready, replaced by an empty one, otherwise {@code null}
+         */
+        private synchronized List<T> takeReady() {
+            if ( batch.isEmpty() ) {
+                return null;
+            }
+
+            final boolean ready = done
+                || batch.size() >= controller.getBatchSize()
+                || System.nanoTime() - batchStart >= controller.getTimespanNanos()
+            ;
+            if (!ready) {
+                return null;
+            }
+
+            final List<T> taken = batch;
+            batch = new ArrayList<>( Math.min(taken.size(), controller.getBatchSize()) );
+            batchStart = System.nanoTime();
+            return taken;
+        }
+
+        private boolean checkTerminated() {
+            if (terminated) {
+                return true;
+            }
+
+            if ( child.isUnsubscribed() ) {
+                terminated = true;
+                return true;
+            }
+
+            final Throwable e;
+            final boolean completed;
+            synchronized (this) {
+                e = error;
+                completed = done && batch.isEmpty();
+            }
+
+            if (e != null) {
+                terminated = true;
+                child.onError(e);
+                unsubscribe();
+                return true;
+            }
+
+            if (completed) {
+                terminated = true;
+                child.onCompleted();
+                unsubscribe();
+                return true;
+            }
+
+            return false;
+        }
+    }
+}
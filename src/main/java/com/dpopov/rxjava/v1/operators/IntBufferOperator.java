@@ -0,0 +1,98 @@
+package com.dpopov.rxjava.v1.operators;
+
+import com.dpopov.rxjava.v1.batch.IntBatch;
+import com.dpopov.rxjava.v1.batch.IntBatchPool;
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * {@code buffer(count)} into pooled primitive {@link IntBatch}es instead of {@code List<Integer>}: each value is unboxed once into the batch array
+ * and no list is allocated. The count is the batch size of the pool.
+ * <br/>
+ * The consumer must {@link IntBatch#release()} each batch. When all the pool batches are in use, {@code onNext} waits for a release,
+ * so do not release them on the upstream thread after a synchronous emission chain ends (it would wait forever).
+ * <br/>
+ * The child requests of n batches are translated to n * batchSize items from the upstream, same as {@code buffer(count)}.
+ * For a source of primitive ints, prefer {@link com.dpopov.rxjava.v1.batch.IntBatcher}: it avoids even the boxing before this operator.
+ */
+public class IntBufferOperator implements Observable.Operator<IntBatch, Integer> {
+    private final IntBatchPool pool;
+
+    public static IntBufferOperator create(final IntBatchPool pool) {
+        return new IntBufferOperator(pool);
+    }
+
+    private IntBufferOperator(final IntBatchPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public Subscriber<? super Integer> call(final Subscriber<? super IntBatch> child) {
+        final IntBufferSubscriber parent = new IntBufferSubscriber(child, pool);
+        child.add(parent);
+        child.setProducer(parent::requestBatches);
+        return parent;
+    }
+
+    private static final class IntBufferSubscriber extends Subscriber<Integer> {
+        private final Subscriber<? super IntBatch> child;
+        private final IntBatchPool pool;
+        private IntBatch current;
+
+        private IntBufferSubscriber(final Subscriber<? super IntBatch> child, final IntBatchPool pool) {
+            this.child = child;
+            this.pool = pool;
+        }
+
+        @Override
+        public void onStart() {
+            request(0); // nothing until the child requests
+        }
+
+        private void requestBatches(final long n) {
+            if (n <= 0) {
+                return;
+            }
+
+            final long batchSize = pool.getBatchSize();
+            request( (n >= Long.MAX_VALUE / batchSize) ? Long.MAX_VALUE : n * batchSize );
+        }
+
+        @Override
+        public void onNext(final Integer value) {
+            if (current == null) {
+                current = pool.acquire();
+            }
+
+            current.add(value);
+
+            if ( current.isFull() ) {
+                final IntBatch batch = current;
+                current = null;
+                child.onNext(batch);
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            final IntBatch batch = current;
+            current = null;
+
+            if (batch != null) {
+                child.onNext(batch); // the last partial batch, buffer emits it regardless of the requests too
+            }
+
+            child.onCompleted();
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            if (current != null) {
+                current.release();
+                current = null;
+            }
+
+            child.onError(e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.dpopov.rxjava.v1.operators;
+
+import com.dpopov.rxjava.metrics.LatencyHistogram;
+
+/**
+ * Count, sum, min, max and last of the values of one {@link SummarySampleOperator} interval, and their quantiles if it keeps a sketch.
+ * Immutable once emitted: the producers of the interval have all left it before.
+ */
+public class IntervalSummary {
+    private final long interval;
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+    private final long last;
+    private final LatencyHistogram sketch; // null without quantiles
+
+    IntervalSummary(final long interval, final long count, final long sum, final long min, final long max, final long last, final LatencyHistogram sketch) {
+        this.interval = interval;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.last = last;
+        this.sketch = sketch;
+    }
+
+    /**
+     * @return index of the interval since the subscription, intervals conflated into this one are skipped
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return value written last. With several producer threads, of the one that wrote last; writes at the same time have no order
+     */
+    public long getLast() {
+        return last;
+    }
+
+    public double getMean() {
+        return (double) sum / count;
+    }
+
+    public boolean hasQuantiles() {
+        return sketch != null;
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return upper bound of the sketch bucket of the percentile, within about 3%. Negative values are counted as 0
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (sketch == null)
+            throw new IllegalStateException("No quantiles, see SummarySampleOperator#withQuantiles()");
+
+        return sketch.getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public String toString() {
+        final String quantiles = (sketch == null)
+            ? ""
+            : String.format(", p50: %d, p99: %d", getValueAtPercentile(50), getValueAtPercentile(99));
+
+        return String.format(
+              "IntervalSummary [interval: %d, count: %d, sum: %d, mean: %.2f, min: %d, max: %d, last: %d%s]"
+            , interval
+            , count
+            , sum
+            , getMean()
+            , min
+            , max
+            , last
+            , quantiles
+        );
+    }
+}
@@ -0,0 +1,590 @@
+package com.dpopov.rxjava.v1.operators;
+
+import com.dpopov.rxjava.collections.LongHashMap;
+import com.dpopov.rxjava.concurrent.OverflowPolicy;
+import com.dpopov.rxjava.concurrent.RingBuffer;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.exceptions.Exceptions;
+import rx.exceptions.MissingBackpressureException;
+import rx.observables.GroupedObservable;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.Subscriptions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@code groupBy} for lots of {@code long} keys (user ids, session ids) that does not keep a group for each key forever.
+ * <br/>
+ * The groups are in a {@link LongHashMap} and in an LRU list, both owned by the upstream thread:
+ * <ul>
+ *     <li>once there are {@code maxGroups} groups, a new key evicts the least recently used group;</li>
+ *     <li>a group without a value for {@code idleTimeout} is evicted, checked on each value from the LRU end, so there is no timer;</li>
+ *     <li>an evicted group completes after its queued values. A later value of the key opens a new group, emitted as any new group.</li>
+ * </ul>
+ * Each group buffers at most {@code groupCapacity} values in a {@link RingBuffer}, with an {@link OverflowPolicy} when it is full
+ * ({@link OverflowPolicy#ERROR} fails only that group). The groups are delivered on a fixed set of lanes, one worker of the scheduler each,
+ * chosen by the key hash: the values of one key stay in order, different keys are processed in parallel, and a million keys do not mean
+ * a million scheduled tasks. The lanes are released when all the groups are done and the upstream is done or unsubscribed.
+ * <br/>
+ * By default the lanes are threads of their own ({@link Schedulers#newThread()}): with {@link OverflowPolicy#BLOCK} the upstream waits
+ * for a lane, so a lane must never be the upstream thread. A {@link Schedulers#computation()} lane shares its event loop with any other
+ * computation task, an upstream there would park on the thread that has to drain its group.
+ * <br/>
+ * The groups are emitted without backpressure, subscribe to them right away (e.g. by {@code flatMap}), a group has one subscriber at most.
+ * The counters are shared by all subscriptions of one operator instance.
+ *
+ * <pre>
+ * events
+ *     .lift( LaneGroupByOperator.&lt;Event&gt;builder(Event::getUserId).maxGroups(100_000).idleTimeout(1, TimeUnit.MINUTES).build() )
+ *     .flatMap(group -&gt; group.scan(...))
+ * </pre>
+ */
+public class LaneGroupByOperator<T> implements Observable.Operator<GroupedObservable<Long, T>, T> {
+    private static final Object NULL = new Object(); // the ring does not hold nulls
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final ToLongFunction<? super T> keySelector;
+    private final int lanes;
+    private final int maxGroups;
+    private final long idleMillis;
+    private final int groupCapacity;
+    private final OverflowPolicy policy;
+    private final Scheduler scheduler;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public static <T> Builder<T> builder(final ToLongFunction<? super T> keySelector) {
+        return new Builder<>(keySelector);
+    }
+
+    private LaneGroupByOperator(final Builder<T> builder) {
+        this.keySelector = builder.keySelector;
+        this.lanes = builder.lanes;
+        this.maxGroups = builder.maxGroups;
+        this.idleMillis = builder.idleMillis;
+        this.groupCapacity = builder.groupCapacity;
+        this.policy = builder.policy;
+        this.scheduler = builder.scheduler;
+    }
+
+    /**
+     * @return groups opened, the reopened keys included
+     */
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    /**
+     * @return groups evicted by {@code maxGroups}
+     */
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    /**
+     * @return groups evicted by {@code idleTimeout}
+     */
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    /**
+     * @return values dropped by {@link OverflowPolicy#DROP_OLDEST} or {@link OverflowPolicy#DROP_LATEST}
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public Subscriber<? super T> call(final Subscriber<? super GroupedObservable<Long, T>> child) {
+        final GroupBySubscriber<T> parent = new GroupBySubscriber<>(child, this);
+        child.add(parent);
+        child.add( Subscriptions.create(parent::upstreamTerminated) ); // take(n) or unsubscribe do not wait for the upstream to end
+        return parent;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LaneGroupByOperator [lanes: %d, created: %d, evicted: %d, expired: %d, dropped: %d]",
+            lanes, getCreatedCount(), getEvictedCount(), getExpiredCount(), getDroppedCount());
+    }
+
+    private static final class GroupBySubscriber<T> extends Subscriber<T> {
+        private final Subscriber<? super GroupedObservable<Long, T>> child;
+        private final LaneGroupByOperator<T> operator;
+        private final Scheduler.Worker[] lanes;
+        private final AtomicInteger active = new AtomicInteger(1); // the groups not terminated yet and the upstream
+        private final AtomicBoolean upstreamTerminated = new AtomicBoolean();
+
+        // upstream thread only
+        private final LongHashMap<Group<T>> groups = LongHashMap.create();
+        private Group<T> mostRecent;
+        private Group<T> leastRecent;
+        private boolean done;
+
+        private GroupBySubscriber(final Subscriber<? super GroupedObservable<Long, T>> child, final LaneGroupByOperator<T> operator) {
+            this.child = child;
+            this.operator = operator;
+
+            lanes = new Scheduler.Worker[operator.lanes];
+            for (int i = 0; i < lanes.length; i++) {
+                lanes[i] = operator.scheduler.createWorker();
+            }
+        }
+
+        @Override
+        public void onStart() {
+            request(Long.MAX_VALUE); // the group queues are the buffers
+        }
+
+        @Override
+        public void onNext(final T t) {
+            if (done) {
+                return;
+            }
+
+            final long key;
+            try {
+                key = operator.keySelector.applyAsLong(t);
+            }
+            catch (final Throwable e) {
+                Exceptions.throwOrReport(e, this, t);
+                return;
+            }
+
+            final long now = operator.scheduler.now();
+            expireIdle(now);
+
+            Group<T> group = groups.get(key);
+            if (group != null && group.cancelled) { // its subscriber left, the next values go to a new group
+                remove(group);
+                group = null;
+            }
+
+            if (group == null) {
+                if (groups.size() >= operator.maxGroups) {
+                    operator.evicted.increment();
+                    evict(leastRecent);
+                }
+
+                group = new Group<>( key, lanes[ lane(key) ], this );
+                groups.put(key, group);
+                linkFirst(group);
+                active.incrementAndGet();
+                operator.created.increment();
+
+                child.onNext(group.observable);
+            }
+            else if (group != mostRecent) {
+                unlink(group);
+                linkFirst(group);
+            }
+
+            group.lastAccessMillis = now;
+
+            if ( !group.offer(t) ) { // failed, as if it was evicted
+                remove(group);
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            if (done) {
+                return;
+            }
+
+            done = true;
+            terminateGroups(null);
+            child.onCompleted();
+            upstreamTerminated();
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            if (done) {
+                return;
+            }
+
+            done = true;
+            terminateGroups(e);
+            child.onError(e);
+            upstreamTerminated();
+        }
+
+        private int lane(final long key) {
+            return (int) ( (LongHashMap.hash(key) >>> 32) % lanes.length ); // the map slots come from the low bits
+        }
+
+        private void expireIdle(final long now) {
+            if (operator.idleMillis <= 0) {
+                return;
+            }
+
+            while ( leastRecent != null && now - leastRecent.lastAccessMillis >= operator.idleMillis ) {
+                operator.expired.increment();
+                evict(leastRecent);
+            }
+        }
+
+        private void evict(final Group<T> group) {
+            remove(group);
+            group.terminate(null);
+        }
+
+        private void remove(final Group<T> group) {
+            groups.remove(group.key);
+            unlink(group);
+        }
+
+        private void terminateGroups(final Throwable e) {
+            for (Group<T> group = mostRecent; group != null; group = group.lessRecent) {
+                group.terminate(e);
+            }
+
+            groups.clear();
+            mostRecent = null;
+            leastRecent = null;
+        }
+
+        /**
+         * The upstream is done or the child unsubscribed, whichever is first.
+         */
+        private void upstreamTerminated() {
+            if ( upstreamTerminated.compareAndSet(false, true) ) {
+                terminated();
+            }
+        }
+
+        /**
+         * A group or the upstream is done. The last one releases the lanes.
+         */
+        private void terminated() {
+            if (active.decrementAndGet() == 0) {
+                for (final Scheduler.Worker lane : lanes) {
+                    lane.unsubscribe();
+                }
+            }
+        }
+
+        private void linkFirst(final Group<T> group) {
+            group.moreRecent = null;
+            group.lessRecent = mostRecent;
+
+            if (mostRecent != null) {
+                mostRecent.moreRecent = group;
+            }
+            else {
+                leastRecent = group;
+            }
+            mostRecent = group;
+        }
+
+        private void unlink(final Group<T> group) {
+            if (group.moreRecent != null) {
+                group.moreRecent.lessRecent = group.lessRecent;
+            }
+            else {
+                mostRecent = group.lessRecent;
+            }
+
+            if (group.lessRecent != null) {
+                group.lessRecent.moreRecent = group.moreRecent;
+            }
+            else {
+                leastRecent = group.moreRecent;
+            }
+
+            group.moreRecent = null;
+            group.lessRecent = null;
+        }
+    }
+
+    /**
+     * One key: its queue, its subscriber and its place in the LRU list. Filled by the upstream thread, drained on its lane.
+     */
+    private static final class Group<T> extends AtomicInteger implements Observable.OnSubscribe<T> {
+        private final long key;
+        private final Scheduler.Worker lane;
+        private final GroupBySubscriber<T> parent;
+        private final RingBuffer<Object> queue;
+        private final GroupedObservable<Long, T> observable;
+
+        private final AtomicReference<Subscriber<? super T>> actual = new AtomicReference<>();
+        private final AtomicLong requested = new AtomicLong();
+
+        private volatile boolean done;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+        private boolean terminated; // lane only
+
+        // upstream thread only
+        private long lastAccessMillis;
+        private Group<T> moreRecent;
+        private Group<T> lessRecent;
+
+        private Group(final long key, final Scheduler.Worker lane, final GroupBySubscriber<T> parent) {
+            this.key = key;
+            this.lane = lane;
+            this.parent = parent;
+
+            queue = RingBuffer.create(parent.operator.groupCapacity);
+            observable = GroupedObservable.create(key, this);
+        }
+
+        @Override
+        public void call(final Subscriber<? super T> subscriber) {
+            if ( !actual.compareAndSet(null, subscriber) ) {
+                subscriber.onError( new IllegalStateException("Group " + key + " allows only one subscriber") );
+                return;
+            }
+
+            subscriber.add( Subscriptions.create(this::cancel) );
+            subscriber.setProducer(this::request);
+            schedule();
+        }
+
+        /**
+         * Upstream thread only.
+         *
+         * @return {@code false} if the group failed with {@link OverflowPolicy#ERROR}
+         */
+        private boolean offer(final T t) {
+            final Object element = (t == null) ? NULL : t;
+
+            if ( !queue.offer(element) ) {
+                switch (parent.operator.policy) {
+                    case DROP_LATEST:
+                        parent.operator.dropped.increment();
+                        return true;
+
+                    case DROP_OLDEST:
+                        do {
+                            if (queue.poll() != null) {
+                                parent.operator.dropped.increment();
+                            }
+                        }
+                        while ( !queue.offer(element) );
+                        break;
+
+                    case BLOCK:
+                        do {
+                            schedule(); // in case the subscriber requested meanwhile
+                            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+
+                            if ( cancelled || parent.isUnsubscribed() ) {
+                                return true;
+                            }
+                        }
+                        while ( !queue.offer(element) );
+                        break;
+
+                    case ERROR:
+                    default:
+                        terminate( new MissingBackpressureException("Group " + key + " has " + queue.capacity() + " values queued") );
+                        return false;
+                }
+            }
+
+            schedule();
+            return true;
+        }
+
+        /**
+         * Upstream thread only. The queued values are still delivered before.
+         */
+        private void terminate(final Throwable e) {
+            error = e;
+            done = true;
+            schedule();
+        }
+
+        private void request(final long n) {
+            if (n <= 0) {
+                return;
+            }
+
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                next = current + n;
+                if (next < 0) { // Long.MAX_VALUE means unbounded
+                    next = Long.MAX_VALUE;
+                }
+            }
+            while ( !requested.compareAndSet(current, next) );
+
+            schedule();
+        }
+
+        private void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (getAndIncrement() == 0) {
+                lane.schedule(this::drain);
+            }
+        }
+
+        /**
+         * Queue-drain on the lane, as in {@code RingBufferBackpressureOperator}. Without a subscriber the values wait in the queue.
+         */
+        @SuppressWarnings("unchecked")
+        private void drain() {
+            int missed = 1;
+            do {
+                final Subscriber<? super T> subscriber = actual.get();
+
+                if ( checkTerminated(subscriber) ) {
+                    return;
+                }
+
+                if (subscriber != null) {
+                    final long demand = requested.get();
+                    long emitted = 0;
+
+                    while (emitted != demand) {
+                        final Object element = queue.poll();
+                        if (element == null) {
+                            break;
+                        }
+
+                        subscriber.onNext( (element == NULL) ? null : (T) element );
+                        emitted++;
+
+                        if (cancelled) {
+                            break;
+                        }
+                    }
+
+                    if (emitted != 0 && demand != Long.MAX_VALUE) {
+                        requested.addAndGet(-emitted);
+                    }
+
+                    if ( checkTerminated(subscriber) ) {
+                        return;
+                    }
+                }
+
+                missed = addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+
+        private boolean checkTerminated(final Subscriber<? super T> subscriber) {
+            if (terminated) {
+                return true;
+            }
+
+            if (cancelled) {
+                terminated = true;
+                while (queue.poll() != null) {
+                    // the values of a cancelled group are not delivered
+                }
+                parent.terminated();
+                return true;
+            }
+
+            if ( subscriber != null && done && queue.isEmpty() ) {
+                terminated = true;
+
+                final Throwable e = error;
+                if (e != null) {
+                    subscriber.onError(e);
+                }
+                else {
+                    subscriber.onCompleted();
+                }
+                parent.terminated();
+                return true;
+            }
+
+            return false;
+        }
+    }
+
+    public static final class Builder<T> {
+        private final ToLongFunction<? super T> keySelector;
+        private int lanes = Runtime.getRuntime().availableProcessors();
+        private int maxGroups = 100_000;
+        private long idleMillis; // 0: no idle timeout
+        private int groupCapacity = 16;
+        private OverflowPolicy policy = OverflowPolicy.BLOCK;
+        private Scheduler scheduler = Schedulers.newThread();
+
+        private Builder(final ToLongFunction<? super T> keySelector) {
+            if (keySelector == null)
+                throw new NullPointerException("keySelector");
+
+            this.keySelector = keySelector;
+        }
+
+        /**
+         * @param lanes workers of the scheduler the groups are delivered on, by the key hash
+         */
+        public Builder<T> lanes(final int lanes) {
+            if (lanes <= 0)
+                throw new IllegalArgumentException("lanes must be positive: " + lanes);
+
+            this.lanes = lanes;
+            return this;
+        }
+
+        /**
+         * @param maxGroups open groups, a new key over it evicts the least recently used one
+         */
+        public Builder<T> maxGroups(final int maxGroups) {
+            if (maxGroups <= 0)
+                throw new IllegalArgumentException("maxGroups must be positive: " + maxGroups);
+
+            this.maxGroups = maxGroups;
+            return this;
+        }
+
+        /**
+         * @param timeout without a value, after which a group is evicted. Measured with {@code scheduler.now()}, in milliseconds
+         */
+        public Builder<T> idleTimeout(final long timeout, final TimeUnit unit) {
+            this.idleMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * @param groupCapacity values queued per group, rounded up to a power of two
+         */
+        public Builder<T> groupCapacity(final int groupCapacity, final OverflowPolicy policy) {
+            if (policy == null)
+                throw new NullPointerException("policy");
+
+            this.groupCapacity = groupCapacity;
+            this.policy = policy;
+            return this;
+        }
+
+        /**
+         * @param scheduler its workers are the lanes. With {@link OverflowPolicy#BLOCK} they must not run the upstream, see the class doc
+         */
+        public Builder<T> scheduler(final Scheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public LaneGroupByOperator<T> build() {
+            return new LaneGroupByOperator<>(this);
+        }
+    }
+}
@@ -16,6 +16,7 @@ public class OperatorBasics {
     public static void main(String[] args) {
         tryToCleanStringOperator();
         tryToLengthTransformer();
+        tryFusedStage();
     }
 
     private static void tryToCleanStringOperator() {
@@ -75,6 +76,58 @@ public class OperatorBasics {
         Utils.printSeparator();
     }
 
+    private static void tryFusedStage() {
+        Utils.printMethodStart("tryFusedStage");
+
+        final List<String> list = Arrays.asList("John_1", "", "tom-3", "--", "  -hell- 3 - 4 - abyr");
+        final List<Integer> unfusedResults = new ArrayList<>();
+        final List<Integer> fusedResults = new ArrayList<>();
+
+        Observable
+            .from(list)
+            .lift( ToCleanStringOperator.create() )
+            .filter( s -> !s.isEmpty() )
+            .compose( ToLengthTransformer.create() )
+            .map( length -> length * 10 )
+            .subscribe(unfusedResults::add) // 4 subscribers per item
+        ;
+
+        Observable
+            .from(list)
+            .lift(
+                FusedStage.<String>builder()
+                    .clean()
+                    .filter( s -> !s.isEmpty() )
+                    .length()
+                    .map( length -> length * 10 )
+                    .batchSize(2) // less than the list, so that there are several batches
+                    .build()
+            )
+            .subscribe(fusedResults::add) // 1 subscriber for all the steps
+        ;
+
+        log("Initial list: " + list);
+        log("Unfused results: " + unfusedResults);
+        log("Fused results: " + fusedResults);
+
+        Assert.assertEquals( Arrays.asList(50, 40, 100), unfusedResults );
+        Assert.assertEquals(unfusedResults, fusedResults);
+
+        // backpressure: take(2) requests only 2, filtered out items are requested again from the source
+        final List<Integer> takenResults = new ArrayList<>();
+        Observable
+            .from(list)
+            .lift( FusedStage.<String>builder().clean().filter( s -> !s.isEmpty() ).length().build() )
+            .take(2)
+            .subscribe(takenResults::add)
+        ;
+
+        log("Taken results: " + takenResults);
+        Assert.assertEquals( Arrays.asList(5, 4), takenResults );
+
+        Utils.printSeparator();
+    }
+
     private static void log(final String s) {
         Utils.log(OperatorBasics.class, s);
     }
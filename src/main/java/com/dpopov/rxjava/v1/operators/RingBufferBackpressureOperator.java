@@ -0,0 +1,254 @@
+package com.dpopov.rxjava.v1.operators;
+
+import com.dpopov.rxjava.concurrent.OverflowPolicy;
+import com.dpopov.rxjava.concurrent.RingBuffer;
+import rx.Observable;
+import rx.Subscriber;
+import rx.exceptions.MissingBackpressureException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@code onBackpressureBuffer(capacity, onOverflow, strategy)} over a lock-free {@link RingBuffer}.
+ * <br/>
+ * Differences from the rxjava one:
+ * <ul>
+ *     <li>the buffer is preallocated and its capacity is rounded up to a power of two;</li>
+ *     <li>{@code onNext} does not lock, so several producer threads may call it at once (e.g. through a {@code PublishSubject})
+ *     and only contend on one CAS. The drain to the child is serialized by a work-in-progress counter;</li>
+ *     <li>the overflow is counted ({@link #getDroppedCount()}) instead of calling an action for each element;</li>
+ *     <li>{@link OverflowPolicy#BLOCK} makes the producer wait for room.</li>
+ * </ul>
+ * The counters are shared by all subscriptions of one operator instance.
+ */
+public class RingBufferBackpressureOperator<T> implements Observable.Operator<T, T> {
+    private static final Object NULL = new Object(); // the ring does not hold nulls
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final int capacity;
+    private final OverflowPolicy policy;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+
+    public static <T> RingBufferBackpressureOperator<T> create(final int capacity, final OverflowPolicy policy) {
+        return new RingBufferBackpressureOperator<>(capacity, policy);
+    }
+
+    private RingBufferBackpressureOperator(final int capacity, final OverflowPolicy policy) {
+        if (policy == null)
+            throw new NullPointerException("policy");
+
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    /**
+     * @return elements dropped by {@link OverflowPolicy#DROP_OLDEST} or {@link OverflowPolicy#DROP_LATEST}
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return times a producer had to wait with {@link OverflowPolicy#BLOCK}
+     */
+    public long getBlockedCount() {
+        return blocked.sum();
+    }
+
+    @Override
+    public Subscriber<? super T> call(final Subscriber<? super T> child) {
+        final RingSubscriber<T> parent = new RingSubscriber<>(child, RingBuffer.create(capacity), this);
+        child.add(parent);
+        child.setProducer(parent::requestMore);
+        return parent;
+    }
+
+    private static final class RingSubscriber<T> extends Subscriber<T> {
+        private final Subscriber<? super T> child;
+        private final RingBuffer<Object> ring;
+        private final RingBufferBackpressureOperator<T> operator;
+
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean done;
+        private volatile Throwable error;
+        private boolean terminated; // drain thread only
+
+        private RingSubscriber(final Subscriber<? super T> child, final RingBuffer<Object> ring, final RingBufferBackpressureOperator<T> operator) {
+            this.child = child;
+            this.ring = ring;
+            this.operator = operator;
+        }
+
+        @Override
+        public void onStart() {
+            request(Long.MAX_VALUE); // the ring is the buffer
+        }
+
+        private void requestMore(final long n) {
+            if (n <= 0) {
+                return;
+            }
+
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                next = current + n;
+                if (next < 0) { // Long.MAX_VALUE means unbounded
+                    next = Long.MAX_VALUE;
+                }
+            }
+            while ( !requested.compareAndSet(current, next) );
+
+            drain();
+        }
+
+        @Override
+        public void onNext(final T t) {
+            if (done) {
+                return;
+            }
+
+            final Object element = (t == null) ? NULL : t;
+
+            if ( !ring.offer(element) && !offerOnOverflow(element) ) {
+                return;
+            }
+
+            if (requested.get() != 0) { // without demand the element waits in the ring, and the producers do not contend on wip.
+                drain();               // The offer is a volatile write before this read, so a concurrent requestMore sees the element
+            }
+        }
+
+        /**
+         * @return {@code true} if the element is in the ring
+         */
+        private boolean offerOnOverflow(final Object element) {
+            switch (operator.policy) {
+                case DROP_LATEST:
+                    operator.dropped.increment();
+                    return false;
+
+                case DROP_OLDEST:
+                    do {
+                        if (ring.poll() != null) {
+                            operator.dropped.increment();
+                        }
+                    }
+                    while ( !ring.offer(element) );
+                    return true;
+
+                case BLOCK:
+                    operator.blocked.increment();
+                    do {
+                        drain(); // in case the child requested meanwhile
+                        LockSupport.parkNanos(BLOCK_PARK_NANOS);
+
+                        if ( child.isUnsubscribed() ) {
+                            return false;
+                        }
+                    }
+                    while ( !ring.offer(element) );
+                    return true;
+
+                case ERROR:
+                default:
+                    unsubscribe(); // stop the upstream, the buffered elements are still delivered before the error
+                    onError( new MissingBackpressureException("Ring buffer of " + ring.capacity() + " elements is full") );
+                    return false;
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            if (done) {
+                return;
+            }
+
+            error = e;
+            done = true;
+            drain();
+        }
+
+        /**
+         * Queue-drain: whoever moves {@code wip} from 0 emits, the others only increment it so that the emitting thread loops once more.
+         */
+        @SuppressWarnings("unchecked")
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            do {
+                final long demand = requested.get();
+                long emitted = 0;
+
+                while (emitted != demand) {
+                    if ( checkTerminated() ) {
+                        return;
+                    }
+
+                    final Object element = ring.poll();
+                    if (element == null) {
+                        break;
+                    }
+
+                    child.onNext( (element == NULL) ? null : (T) element );
+                    emitted++;
+                }
+
+                if ( emitted == demand && checkTerminated() ) {
+                    return;
+                }
+
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+
+                missed = wip.addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+
+        private boolean checkTerminated() {
+            if (terminated) {
+                return true;
+            }
+
+            if ( child.isUnsubscribed() ) {
+                terminated = true;
+                return true;
+            }
+
+            if ( done && ring.isEmpty() ) {
+                terminated = true;
+
+                final Throwable e = error;
+                if (e != null) {
+                    child.onError(e);
+                }
+                else {
+                    child.onCompleted();
+                }
+                return true;
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.dpopov.rxjava.v1.operators;
+
+import com.dpopov.rxjava.metrics.LatencyHistogram;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.exceptions.Exceptions;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@code sample(period, unit)} that does not throw the other values away: emits one {@link IntervalSummary} per period,
+ * with the count, sum, min, max and last of all the values of the period, and their quantiles with {@link #withQuantiles()}.
+ * <br/>
+ * The aggregate of a period is striped like a {@code LongAdder}: a producer thread takes a stripe with one CAS, writes its counters
+ * with plain stores and releases it. Each stripe is on its own cache line and a taken stripe is skipped for the next one,
+ * so several producers (e.g. through a {@code PublishSubject}) never wait for each other and rarely share a line.
+ * On the tick the aggregate is swapped for an empty one, and read once the producers that were in it have left: a producer checks
+ * that the aggregate was not swapped after it took its stripe. So no value is lost or counted twice.
+ * <br/>
+ * A tick without demand does not emit: the period is conflated into the next one. Empty periods are not emitted,
+ * and the completion does not wait for demand when there is nothing left to emit.
+ * The summaries, the completion and the errors are all emitted on one worker of the {@code scheduler}.
+ *
+ * <pre>
+ * subject
+ *     .lift( SummarySampleOperator.create(100, TimeUnit.MILLISECONDS, Integer::longValue) ) // instead of sample(100, TimeUnit.MILLISECONDS)
+ *     .subscribe(summary -&gt; ...)
+ * </pre>
+ */
+public class SummarySampleOperator<T> implements Observable.Operator<IntervalSummary, T> {
+    private static final int STRIPES = Integer.highestOneBit( Runtime.getRuntime().availableProcessors() * 4 - 1 ) << 1; // power of two
+    private static final int STRIDE = 16; // longs, 128 bytes: a stripe per cache line pair, against the adjacent line prefetch
+
+    // counters of a stripe, at (stripe + 1) * STRIDE: the first line is left to the array header
+    private static final int TAKEN = 0;
+    private static final int COUNT = 1;
+    private static final int SUM = 2;
+    private static final int MIN = 3;
+    private static final int MAX = 4;
+    private static final int LAST = 5;
+
+    private static final int LAST_STRIPE = 0; // in the first line: the stripe written last, its LAST is the last value of the period
+
+    private final long periodNanos;
+    private final ToLongFunction<? super T> value;
+    private final Scheduler scheduler;
+    private final boolean quantiles;
+
+    private final LongAdder conflated = new LongAdder();
+
+    /**
+     * Ticks on {@code Schedulers.computation()}.
+     */
+    public static <T> SummarySampleOperator<T> create(final long period, final TimeUnit unit, final ToLongFunction<? super T> value) {
+        return create( period, unit, value, Schedulers.computation() );
+    }
+
+    public static <T> SummarySampleOperator<T> create(final long period, final TimeUnit unit, final ToLongFunction<? super T> value, final Scheduler scheduler) {
+        return new SummarySampleOperator<>( unit.toNanos(period), value, scheduler, false );
+    }
+
+    private SummarySampleOperator(final long periodNanos, final ToLongFunction<? super T> value, final Scheduler scheduler, final boolean quantiles) {
+        if (periodNanos <= 0)
+            throw new IllegalArgumentException("period must be positive: " + periodNanos + " ns");
+
+        this.periodNanos = periodNanos;
+        this.value = value;
+        this.scheduler = scheduler;
+        this.quantiles = quantiles;
+    }
+
+    /**
+     * @return operator that also keeps a {@link LatencyHistogram} of the values per period, for percentiles within about 3%.
+     * Its buckets are shared by the producers, so it costs one more contended increment per value
+     */
+    public SummarySampleOperator<T> withQuantiles() {
+        return new SummarySampleOperator<>(periodNanos, value, scheduler, true);
+    }
+
+    /**
+     * @return ticks that did not emit because the subscriber had not requested, by all subscriptions
+     */
+    public long getConflatedCount() {
+        return conflated.sum();
+    }
+
+    @Override
+    public Subscriber<? super T> call(final Subscriber<? super IntervalSummary> child) {
+        final Scheduler.Worker worker = scheduler.createWorker();
+        final SummarySubscriber<T> parent = new SummarySubscriber<>(child, worker, this);
+
+        child.add(worker);
+        child.add(parent);
+        child.setProducer(parent::requestMore);
+
+        worker.schedulePeriodically(parent::tick, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        return parent;
+    }
+
+    private static final class SummarySubscriber<T> extends Subscriber<T> {
+        private final Subscriber<? super IntervalSummary> child;
+        private final Scheduler.Worker worker;
+        private final SummarySampleOperator<T> operator;
+
+        private final AtomicReference<Aggregate> current;
+        private final AtomicLong requested = new AtomicLong();
+
+        private volatile boolean done;
+
+        // worker only
+        private long interval;
+        private boolean terminated;
+
+        private SummarySubscriber(final Subscriber<? super IntervalSummary> child, final Scheduler.Worker worker, final SummarySampleOperator<T> operator) {
+            this.child = child;
+            this.worker = worker;
+            this.operator = operator;
+
+            current = new AtomicReference<>( new Aggregate(operator.quantiles) );
+        }
+
+        @Override
+        public void onStart() {
+            request(Long.MAX_VALUE); // every value goes into the aggregate
+        }
+
+        private void requestMore(final long n) {
+            if (n <= 0) {
+                return;
+            }
+
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                next = current + n;
+                if (next < 0) { // Long.MAX_VALUE means unbounded
+                    next = Long.MAX_VALUE;
+                }
+            }
+            while ( !requested.compareAndSet(current, next) );
+
+            if (done) { // the last summary waits for demand
+                worker.schedule(this::finish);
+            }
+        }
+
+        @Override
+        public void onNext(final T t) {
+            if (done) {
+                return;
+            }
+
+            final long v;
+            try {
+                v = operator.value.applyAsLong(t);
+            }
+            catch (final Throwable e) {
+                Exceptions.throwOrReport(e, this, t);
+                return;
+            }
+
+            int stripe = (int) Thread.currentThread().threadId() & (STRIPES - 1);
+
+            Aggregate aggregate;
+            while (true) {
+                aggregate = current.get();
+
+                if ( !aggregate.take(stripe) ) { // another producer is in it
+                    stripe = (stripe + 1) & (STRIPES - 1);
+                    continue;
+                }
+
+                if (current.get() == aggregate) { // not swapped before the take was visible, the tick waits for the release
+                    break;
+                }
+
+                aggregate.release(stripe);
+            }
+
+            aggregate.add(stripe, v);
+            aggregate.release(stripe);
+        }
+
+        @Override
+        public void onCompleted() {
+            done = true;
+            worker.schedule(this::finish);
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            done = true;
+            worker.schedule( () -> {
+                if (!terminated) {
+                    terminated = true;
+                    child.onError(e); // the summary of the last period is lost, as the values of sample
+                }
+            } );
+        }
+
+        private void tick() {
+            final long index = interval++;
+
+            if (terminated) {
+                return;
+            }
+
+            if (requested.get() == 0) {
+                operator.conflated.increment();
+                return;
+            }
+
+            final IntervalSummary summary = current.getAndSet( new Aggregate(operator.quantiles) ).summarize(index);
+            if (summary != null) {
+                emit(summary);
+            }
+        }
+
+        private void finish() {
+            if (terminated) {
+                return;
+            }
+
+            final IntervalSummary summary = current.get().summarize(interval); // done: no more ticks swap it, no more producers write it
+            if (summary != null && requested.get() == 0) { // the last summary waits for demand, the completion alone does not
+                return;
+            }
+
+            terminated = true;
+            if (summary != null) {
+                emit(summary);
+            }
+            child.onCompleted();
+        }
+
+        private void emit(final IntervalSummary summary) {
+            if (requested.get() != Long.MAX_VALUE) {
+                requested.decrementAndGet();
+            }
+            child.onNext(summary);
+        }
+    }
+
+    /**
+     * Aggregate of one period, in stripes of an {@code AtomicLongArray}.
+     */
+    private static final class Aggregate {
+        private final AtomicLongArray stripes = new AtomicLongArray( (STRIPES + 1) * STRIDE );
+        private final LatencyHistogram sketch;
+
+        private Aggregate(final boolean quantiles) {
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                stripes.set( index(stripe, MIN), Long.MAX_VALUE );
+                stripes.set( index(stripe, MAX), Long.MIN_VALUE );
+            }
+            sketch = quantiles ? LatencyHistogram.create() : null;
+        }
+
+        private boolean take(final int stripe) {
+            return stripes.compareAndSet( index(stripe, TAKEN), 0, 1 );
+        }
+
+        /**
+         * Publishes the plain writes of the stripe.
+         */
+        private void release(final int stripe) {
+            stripes.setRelease( index(stripe, TAKEN), 0 );
+        }
+
+        /**
+         * Only by the producer that took the stripe.
+         */
+        private void add(final int stripe, final long value) {
+            final int base = index(stripe, 0);
+
+            stripes.setPlain( base + COUNT, stripes.getPlain(base + COUNT) + 1 );
+            stripes.setPlain( base + SUM, stripes.getPlain(base + SUM) + value );
+            if ( value < stripes.getPlain(base + MIN) ) {
+                stripes.setPlain(base + MIN, value);
+            }
+            if ( value > stripes.getPlain(base + MAX) ) {
+                stripes.setPlain(base + MAX, value);
+            }
+            stripes.setPlain(base + LAST, value);
+            if (stripes.getOpaque(LAST_STRIPE) != stripe) { // shared by the producers: written only when another one wrote before
+                stripes.setOpaque(LAST_STRIPE, stripe);
+            }
+
+            if (sketch != null) {
+                sketch.record(value);
+            }
+        }
+
+        /**
+         * Waits for the producers still writing, then merges the stripes. After the swap a stripe is only taken by a producer
+         * that sees the swap and releases it, so each one gets free.
+         *
+         * @return {@code null} if there were no values
+         */
+        private IntervalSummary summarize(final long interval) {
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                while ( stripes.get( index(stripe, TAKEN) ) != 0 ) { // acquires the writes before the release
+                    Thread.onSpinWait();
+                }
+            }
+
+            long count = 0;
+            long sum = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                final long stripeCount = stripes.get( index(stripe, COUNT) );
+                if (stripeCount == 0) {
+                    continue;
+                }
+
+                count += stripeCount;
+                sum += stripes.get( index(stripe, SUM) );
+                min = Math.min( min, stripes.get( index(stripe, MIN) ) );
+                max = Math.max( max, stripes.get( index(stripe, MAX) ) );
+            }
+
+            if (count == 0) {
+                return null;
+            }
+
+            final long last = stripes.get( index( (int) stripes.get(LAST_STRIPE), LAST ) );
+            return new IntervalSummary(interval, count, sum, min, max, last, sketch);
+        }
+
+        private static int index(final int stripe, final int counter) {
+            return (stripe + 1) * STRIDE + counter;
+        }
+    }
+}
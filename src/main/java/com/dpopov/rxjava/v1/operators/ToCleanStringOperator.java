@@ -1,5 +1,6 @@
 package com.dpopov.rxjava.v1.operators;
 
+import com.dpopov.rxjava.operators.StringCleaner;
 import rx.Observable;
 import rx.Subscriber;
 
@@ -16,6 +17,8 @@ public class ToCleanStringOperator implements Observable.Operator<String, String
     @Override
     public Subscriber<? super String> call(final Subscriber<? super String> subscriber) {
         return new Subscriber<String>(subscriber) {
+            private final StringCleaner cleaner = StringCleaner.create(); // per subscriber, it reuses a scratch buffer
+
             // methods from Observer, Subscriber implements Observer
 
             @Override
@@ -39,7 +42,8 @@ public class ToCleanStringOperator implements Observable.Operator<String, String
                 if ( subscriber.isUnsubscribed() )
                     return;
 
-                final String result = s.replaceAll("[^A-Za-z0-9]", ""); // remove non-alphanumeric characters
+//                final String result = s.replaceAll("[^A-Za-z0-9]", ""); // remove non-alphanumeric characters. Compiles the regex for each string
+                final String result = cleaner.clean(s); // remove non-alphanumeric characters, the same string if there are none
                 subscriber.onNext(result);
             }
         };
@@ -0,0 +1,76 @@
+package com.dpopov.rxjava;
+
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class FibonacciEngineTest {
+    private static final int COUNT = 3000;
+
+    @Test public void testValuesInAndPastCache() {
+        final List<BigInteger> expected = naive(COUNT);
+        final FibonacciEngine engine = FibonacciEngine.create(16); // most indexes go through fast doubling
+
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals( "F(" + i + ")", expected.get(i), engine.get(i) );
+        }
+    }
+
+    @Test public void testLongValues() {
+        final List<BigInteger> expected = naive(FibonacciEngine.MAX_LONG_INDEX + 1);
+
+        for (int i = 0; i <= FibonacciEngine.MAX_LONG_INDEX; i++) {
+            assertEquals( expected.get(i).longValueExact(), FibonacciEngine.getInstance().getLong(i) );
+        }
+    }
+
+    @Test(expected = ArithmeticException.class) public void testLongOverflow() {
+        FibonacciEngine.getInstance().getLong(FibonacciEngine.MAX_LONG_INDEX + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void testNegativeIndex() {
+        FibonacciEngine.getInstance().get(-1);
+    }
+
+    @Test public void testConcurrentGrowth() {
+        final List<BigInteger> expected = naive(COUNT);
+        final FibonacciEngine engine = FibonacciEngine.create(COUNT);
+
+        Flowable.range(0, COUNT)
+            .map(i -> COUNT - 1 - i) // biggest indexes first, so that readers race with the growing
+            .parallel()
+            .runOn( Schedulers.computation() )
+            .map( i -> expected.get(i).equals(engine.get(i)) )
+            .sequential()
+            .test()
+            .awaitDone(10, TimeUnit.SECONDS)
+            .assertNever(false)
+            .assertValueCount(COUNT)
+        ;
+
+        assertEquals( COUNT, engine.getCachedCount() );
+    }
+
+    private static List<BigInteger> naive(final int count) {
+        final List<BigInteger> values = new ArrayList<>();
+        BigInteger prev = BigInteger.ZERO;
+        BigInteger current = BigInteger.ONE;
+
+        for (int i = 0; i < count; i++) {
+            values.add(prev);
+
+            final BigInteger next = prev.add(current);
+            prev = current;
+            current = next;
+        }
+
+        return values;
+    }
+}
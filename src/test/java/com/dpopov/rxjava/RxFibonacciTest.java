@@ -0,0 +1,65 @@
+package com.dpopov.rxjava;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+public class RxFibonacciTest {
+
+    @Test public void testFlowableFromIndex() {
+        RxFibonacci.getFibonacciFlowable(10)
+            .take(4)
+            .test()
+            .assertResult( BigInteger.valueOf(55), BigInteger.valueOf(89), BigInteger.valueOf(144), BigInteger.valueOf(233) )
+        ;
+    }
+
+    @Test public void testFlowableEmitsOnlyRequested() {
+        final TestSubscriber<BigInteger> subscriber = RxFibonacci.getFibonacciFlowable().test(3);
+
+        subscriber.assertValues( BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE ).assertNotComplete();
+
+        subscriber.requestMore(2);
+        subscriber.assertValueCount(5);
+        subscriber.cancel();
+    }
+
+    @Test public void testFlowableWithSlowConsumer() {
+        RxFibonacci.getFibonacciFlowable(1_000)
+            .observeOn( Schedulers.single() ) // the generator stays within observeOn prefetch
+            .take(1_000)
+            .test()
+            .awaitDone(10, TimeUnit.SECONDS)
+            .assertValueCount(1_000)
+            .assertValueAt( 999, FibonacciEngine.getInstance().get(1_999) )
+        ;
+    }
+
+    @Test public void testLongsFailAfterLongRange() {
+        RxFibonacci.getFibonacciLongs(FibonacciEngine.MAX_LONG_INDEX - 1)
+            .test()
+            .assertValues( 4660046610375530309L, 7540113804746346429L )
+            .assertError(ArithmeticException.class)
+        ;
+    }
+
+    @Test public void testBatchEvaluatorKeepsInputOrder() {
+        final Integer[] indexes = { 500, 3, 3, 0, 2_000, 501, 70 };
+
+        final TestObserver<BigInteger> observer = Observable.fromArray(indexes)
+            .compose( FibonacciBatchEvaluator.batching(4, 1, TimeUnit.SECONDS) )
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertValueCount(indexes.length)
+        ;
+
+        for (int i = 0; i < indexes.length; i++) {
+            observer.assertValueAt( i, FibonacciEngine.getInstance().get(indexes[i]) );
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.dpopov.rxjava;
+
+import com.dpopov.rxjava.schedulers.VirtualThreadScheduler;
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RxReaderTest {
+    private static final int SMALL_BUFFER = 8; // less than the longest line, so the buffer must grow
+
+    private Path file;
+
+    @Before public void createFile() throws IOException {
+        file = Files.createTempFile("rx-reader", ".txt");
+        Files.write( file, "one\r\ntwo\n\nthe longest line\nпять\nlast".getBytes(StandardCharsets.UTF_8) );
+    }
+
+    @After public void deleteFile() throws IOException {
+        Files.delete(file);
+    }
+
+    @Test public void testLines() {
+        RxReader.lines(file, SMALL_BUFFER)
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertResult("one", "two", "", "the longest line", "пять", "last")
+        ;
+    }
+
+    @Test public void testLineSequences() {
+        RxReader.lineSequences(file, SMALL_BUFFER)
+            .map(CharSequence::toString)
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertResult("one", "two", "", "the longest line", "пять", "last")
+        ;
+    }
+
+    @Test public void testLineSequencesReplaceMalformedBytesAsLines() throws IOException {
+        Files.write( file, new byte[] {'o', 'k', '\n', (byte) 0xFF, 'x'} );
+
+        final List<String> lines = RxReader.lines(file, SMALL_BUFFER).toList().blockingGet();
+        assertEquals( Arrays.asList("ok", "\uFFFDx"), lines );
+
+        RxReader.lineSequences(file, SMALL_BUFFER)
+            .map(CharSequence::toString)
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertResult( lines.toArray(new String[0]) )
+        ;
+    }
+
+    @Test public void testChunksContainWholeLines() throws IOException {
+        final List<String> chunks = RxReader.chunks(file, SMALL_BUFFER)
+            .map(RxReaderTest::toString)
+            .toList()
+            .blockingGet()
+        ;
+
+        for (int i = 0; i < chunks.size() - 1; i++) {
+            assertTrue( "chunk must end with a line break: " + chunks.get(i), chunks.get(i).endsWith("\n") );
+        }
+
+        assertEquals( new String(Files.readAllBytes(file), StandardCharsets.UTF_8), String.join("", chunks) );
+    }
+
+    @Test public void testEmitsOnlyRequested() throws InterruptedException {
+        final TestSubscriber<String> subscriber = RxReader.lines(file, SMALL_BUFFER).test(2);
+
+        Thread.sleep(200);
+        subscriber.assertValues("one", "two").assertNotComplete();
+
+        subscriber.requestMore(Long.MAX_VALUE);
+        subscriber.awaitDone(5, TimeUnit.SECONDS).assertValueCount(6).assertComplete();
+    }
+
+    @Test public void testIntBatches() throws IOException {
+        final Path numbers = Files.createTempFile("rx-reader-ints", ".txt");
+        try {
+            Files.write( numbers, "1\r\n-22\n\n+333\n2147483647\n-2147483648".getBytes(StandardCharsets.US_ASCII) );
+
+            final List<Integer> values = RxReader.intBatches(numbers, SMALL_BUFFER)
+                .concatMapIterable( batch -> IntStream.of(batch).boxed().collect(Collectors.toList()) )
+                .toList()
+                .blockingGet()
+            ;
+
+            assertEquals( Arrays.asList(1, -22, 333, Integer.MAX_VALUE, Integer.MIN_VALUE), values );
+        }
+        finally {
+            Files.delete(numbers);
+        }
+    }
+
+    @Test public void testIntBatchesFailOnNotNumber() {
+        RxReader.intBatches(file)
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertError(NumberFormatException.class)
+        ;
+    }
+
+    @Test public void testParallelLines() {
+        final List<String> lines = RxReader.parallelLines(file, 3)
+            .sequential()
+            .toSortedList()
+            .blockingGet()
+        ;
+
+        assertEquals( Arrays.asList("", "last", "one", "the longest line", "two", "пять"), lines );
+    }
+
+    @Test public void testMappedLinesKeepFileOrder() {
+        RxReader.mappedLines(file, 3, String::length)
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertResult(3, 3, 0, 16, 4, 4)
+        ;
+    }
+
+    @Test public void testBlockingReadersOnVirtualThreads() {
+        final int readers = 10_000;
+        final VirtualThreadScheduler scheduler = VirtualThreadScheduler.create("rx-reader-test-");
+        final CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            final TestObserver<String> observer = Observable.range(0, readers)
+                .flatMap( i -> RxReader.lines( new BufferedReader( new BlockingReader("line " + i + "\n", release) ), scheduler.scheduler() ) )
+                .test()
+            ;
+
+            while ( scheduler.getActiveCount() < readers ) { // all the readers are blocked at once, each on its own thread
+                Thread.yield();
+                assertTrue( "readers stopped starting: " + scheduler, observer.errorCount() == 0 );
+            }
+
+            release.countDown();
+            observer.awaitDone(10, TimeUnit.SECONDS).assertValueCount(readers).assertComplete();
+            assertEquals( readers, scheduler.getPeakActiveCount() );
+        }
+        finally {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Reader that blocks until released, like a socket without data yet.
+     */
+    private static final class BlockingReader extends StringReader {
+        private final CountDownLatch release;
+
+        private BlockingReader(final String content, final CountDownLatch release) {
+            super(content);
+            this.release = release;
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) throws IOException {
+            try {
+                release.await();
+            }
+            catch (final InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+
+            return super.read(buffer, offset, length);
+        }
+    }
+
+    private static String toString(final ByteBuffer chunk) {
+        return StandardCharsets.UTF_8.decode(chunk).toString();
+    }
+}
@@ -0,0 +1,60 @@
+package com.dpopov.rxjava.collections;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LongHashMapTest {
+
+    @Test public void testBehavesAsHashMap() {
+        final LongHashMap<Long> map = LongHashMap.create();
+        final Map<Long, Long> expected = new HashMap<>();
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 1_000_000; i++) {
+            final long key = random.nextInt(5_000) * 1_000_003L; // collide a lot in the low bits
+            final long value = random.nextLong();
+
+            switch ( random.nextInt(3) ) {
+                case 0:
+                    assertEquals( expected.put(key, value), map.put(key, value) );
+                    break;
+                case 1:
+                    assertEquals( expected.remove(key), map.remove(key) );
+                    break;
+                default:
+                    assertEquals( expected.get(key), map.get(key) );
+                    assertEquals( expected.containsKey(key), map.containsKey(key) );
+                    break;
+            }
+            assertEquals( expected.size(), map.size() );
+        }
+
+        for (final Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals( entry.getValue(), map.get(entry.getKey()) );
+        }
+    }
+
+    @Test public void testShrinksAfterRemovals() {
+        final LongHashMap<String> map = LongHashMap.create(16);
+        final int initialCapacity = map.capacity();
+
+        for (long key = 0; key < 1_000_000; key++) {
+            map.put(key, "v");
+        }
+        assertEquals(1_000_000, map.size());
+
+        for (long key = 0; key < 999_999; key++) {
+            map.remove(key);
+        }
+        assertEquals(1, map.size());
+        assertEquals(initialCapacity, map.capacity());
+        assertEquals( "v", map.get(999_999) );
+        assertNull( map.get(0) );
+    }
+}
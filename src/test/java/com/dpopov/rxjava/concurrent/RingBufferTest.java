@@ -0,0 +1,93 @@
+package com.dpopov.rxjava.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferTest {
+    private static final int PRODUCERS = 4;
+    private static final int PER_PRODUCER = 500_000;
+
+    @Test public void testFifoAndCapacity() {
+        final RingBuffer<Integer> ring = RingBuffer.create(5);
+        assertEquals(8, ring.capacity());
+
+        for (int round = 0; round < 3; round++) { // wraps around the array
+            for (int i = 0; i < 8; i++) {
+                assertTrue( ring.offer(i) );
+            }
+            assertFalse( ring.offer(8) );
+            assertEquals(8, ring.size());
+
+            for (int i = 0; i < 8; i++) {
+                assertEquals( Integer.valueOf(i), ring.poll() );
+            }
+            assertNull( ring.poll() );
+            assertTrue( ring.isEmpty() );
+        }
+    }
+
+    @Test public void testConcurrentProducers() throws InterruptedException {
+        final RingBuffer<Integer> ring = RingBuffer.create(1024);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        final List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int producer = p;
+            final Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                }
+                catch (final InterruptedException e) {
+                    return;
+                }
+
+                for (int i = 0; i < PER_PRODUCER; i++) {
+                    final Integer value = producer * PER_PRODUCER + i;
+                    while ( !ring.offer(value) ) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            producers.add(thread);
+        }
+
+        start.countDown();
+
+        final int[] lastByProducer = new int[PRODUCERS];
+        Arrays.fill(lastByProducer, -1);
+        long sum = 0;
+
+        for (int received = 0; received < PRODUCERS * PER_PRODUCER; ) {
+            final Integer value = ring.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+
+            final int producer = value / PER_PRODUCER;
+            assertTrue( "order of one producer", value % PER_PRODUCER > lastByProducer[producer] );
+            lastByProducer[producer] = value % PER_PRODUCER;
+
+            sum += value;
+            received++;
+        }
+
+        for (final Thread producer : producers) {
+            producer.join();
+        }
+
+        final long total = (long) PRODUCERS * PER_PRODUCER;
+        assertEquals( total * (total - 1) / 2, sum );
+        assertTrue( ring.isEmpty() );
+    }
+}
@@ -0,0 +1,116 @@
+package com.dpopov.rxjava.logging;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncLoggerTest {
+    private static final int THREADS = 4;
+    private static final int PER_THREAD = 10_000;
+
+    @Test public void testFormat() {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final AsyncLogger logger = AsyncLogger.create(output, 16);
+
+        logger.log(AsyncLoggerTest.class, "plain");
+        logger.log(AsyncLoggerTest.class, "value: ", -42);
+        logger.flush();
+
+        final String[] lines = output.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue( lines[0], lines[0].matches("\\d\\d:\\d\\d:\\d\\d:\\d\\d\\d \\[AsyncLoggerTest\\] plain ") );
+        assertTrue( lines[1], lines[1].endsWith(" [AsyncLoggerTest] value: -42 ") );
+    }
+
+    @Test(timeout = 10_000) public void testEventFailingToFormatDoesNotStopTheWriter() {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final AsyncLogger logger = AsyncLogger.create(output, 4);
+
+        for (int i = 0; i < 10; i++) { // more than the ring holds
+            logger.log(null, "no source");
+        }
+        logger.log(AsyncLoggerTest.class, "after");
+        logger.flush();
+
+        final String[] lines = output.toString().split("\n");
+        assertEquals(11, lines.length);
+        assertTrue( lines[0], lines[0].startsWith("Failed to format a log event: java.lang.NullPointerException") );
+        assertTrue( lines[10], lines[10].endsWith(" [AsyncLoggerTest] after ") );
+    }
+
+    @Test public void testConcurrentCallersThroughSmallRing() throws InterruptedException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final AsyncLogger logger = AsyncLogger.create(output, 64); // callers wait for the writer most of the time
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final long base = t * (long) PER_THREAD;
+            final Thread thread = new Thread(() -> {
+                for (int i = 0; i < PER_THREAD; i++) {
+                    logger.log(AsyncLoggerTest.class, "n=", base + i);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        logger.flush();
+
+        final Set<Long> values = new HashSet<>();
+        for (final String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            values.add( Long.parseLong( line.substring(line.indexOf("n=") + 2).trim() ) );
+        }
+
+        assertEquals( THREADS * PER_THREAD, values.size() ); // nothing lost or repeated
+        assertTrue( values.containsAll( Arrays.asList(0L, THREADS * (long) PER_THREAD - 1) ) );
+    }
+
+    @Test(timeout = 10_000) public void testFlushReturnsWhileOthersKeepLogging() throws InterruptedException {
+        final OutputStream slowOutput = new OutputStream() { // the writer never catches up, the ring is never empty
+            @Override
+            public void write(final int b) {
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+                LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos(1) );
+            }
+        };
+        final AsyncLogger logger = AsyncLogger.create(slowOutput, 4096);
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final Thread busy = new Thread(() -> {
+            while ( running.get() ) {
+                logger.log(AsyncLoggerTest.class, "busy ", 1);
+            }
+        });
+        busy.start();
+
+        try {
+            for (int i = 0; i < 5; i++) {
+                logger.log(AsyncLoggerTest.class, "flushed ", i);
+                logger.flush(); // returns once the batches up to this event are written
+            }
+        }
+        finally {
+            running.set(false);
+            busy.join();
+        }
+    }
+}
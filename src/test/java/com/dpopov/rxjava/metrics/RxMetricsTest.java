@@ -0,0 +1,122 @@
+package com.dpopov.rxjava.metrics;
+
+import io.reactivex.BackpressureOverflowStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RxMetricsTest {
+
+    @Before public void install() {
+        RxMetrics.reset();
+        RxMetrics.install();
+    }
+
+    @After public void uninstall() {
+        RxMetrics.uninstall();
+        RxMetrics.reset();
+    }
+
+    @Test public void testObservableStages() {
+        Observable.range(0, 1000)
+            .map(i -> i * 2)
+            .filter(i -> i % 4 == 0)
+            .test()
+            .assertValueCount(500)
+        ;
+
+        final List<StageSnapshot> stages = RxMetrics.snapshot();
+        assertEquals( "ObservableRange, ObservableMap, ObservableFilter", names(stages) );
+
+        assertEquals( 1000, stages.get(0).getItems() );
+        assertEquals( 1000, stages.get(1).getItems() );
+        assertEquals( 1000, stages.get(1).getUpstreamItems() );
+        assertEquals( 500, stages.get(2).getItems() );
+        assertEquals( 1, stages.get(2).getCompletions() );
+        assertTrue( stages.get(0).getAssemblyPlace(), stages.get(0).getAssemblyPlace().startsWith("RxMetricsTest.testObservableStages:") );
+    }
+
+    @Test public void testDroppedCount() {
+        Flowable.range(0, 1000)
+            .onBackpressureBuffer(10, null, BackpressureOverflowStrategy.DROP_LATEST)
+            .test(0) // no requests, everything past the buffer is dropped
+        ;
+
+        final StageSnapshot buffer = RxMetrics.snapshot().get(1);
+        assertEquals( 0, buffer.getItems() );
+        assertEquals( 1000, buffer.getUpstreamItems() );
+        assertEquals( 1000, buffer.getQueueDepth() ); // the stage can not tell the queued from the dropped
+    }
+
+    @Test public void testRxJava1Stages() {
+        rx.Observable.range(0, 100)
+            .map(i -> i + 1)
+            .onBackpressureDrop()
+            .subscribe()
+        ;
+
+        final List<StageSnapshot> stages = RxMetrics.snapshot();
+        assertEquals( "OnSubscribeRange, OnSubscribeMap, OperatorOnBackpressureDrop", names(stages) );
+        assertEquals( 100, stages.get(2).getItems() );
+        assertEquals( 100, stages.get(2).getUpstreamItems() );
+        assertEquals( 0, stages.get(2).getDroppedCount() );
+    }
+
+    @Test public void testStagesAreSharedByAssemblyPlace() {
+        Observable.range(0, 10)
+            .concatMap( i -> Observable.just(i).map(v -> v + 1) ) // assembled once per item
+            .test()
+            .assertValueCount(10)
+        ;
+
+        final StageSnapshot innerMap = RxMetrics.snapshot().stream()
+            .filter( stage -> stage.getOperator().equals("ObservableMap") )
+            .findFirst()
+            .get()
+        ;
+        assertEquals( 10, innerMap.getSubscriptions() );
+        assertEquals( 10, innerMap.getItems() );
+    }
+
+    @Test public void testGauges() {
+        RxMetrics.registerGauge("answer", () -> 42);
+
+        assertEquals( Long.valueOf(42), RxMetrics.gauges().get("answer") );
+        assertTrue( RxMetrics.dump().contains("answer: 42") );
+    }
+
+    @Test public void testHistogramBuckets() {
+        final LatencyHistogram histogram = LatencyHistogram.create();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals( 1000, histogram.getCount() );
+        assertEquals( 1_000_000, histogram.getMax() );
+        assertWithin( 500_000, histogram.getValueAtPercentile(50) );
+        assertWithin( 990_000, histogram.getValueAtPercentile(99) );
+
+        for (long value = 1; value > 0; value = value * 3 + 1) { // the whole long range
+            final int bucket = LatencyHistogram.bucket(value);
+            assertTrue( "value " + value, value <= LatencyHistogram.highestValue(bucket) );
+            assertTrue( "value " + value, bucket == 0 || value > LatencyHistogram.highestValue(bucket - 1) );
+        }
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        assertTrue( expected + " vs " + actual, Math.abs(actual - expected) <= expected / 32 );
+    }
+
+    private static String names(final List<StageSnapshot> stages) {
+        return stages.stream().map(StageSnapshot::getOperator).collect( Collectors.joining(", ") );
+    }
+}
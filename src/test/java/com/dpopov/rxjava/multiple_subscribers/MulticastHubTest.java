@@ -0,0 +1,129 @@
+package com.dpopov.rxjava.multiple_subscribers;
+
+import com.dpopov.rxjava.concurrent.OverflowPolicy;
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.observers.TestObserver;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MulticastHubTest {
+
+    @Test public void testWalksSourceOnceForAllSubscribers() {
+        final AtomicInteger subscriptions = new AtomicInteger();
+        final MulticastHub<Integer> hub = MulticastHub.from(
+            Observable.range(0, 10_000).doOnSubscribe( d -> subscriptions.incrementAndGet() )
+        );
+
+        final TestObserver<Integer> first = hub.test();
+        final TestObserver<Integer> second = hub.withOverflow(OverflowPolicy.BLOCK, 16).test();
+        hub.connect();
+
+        final List<Integer> expected = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+        first.awaitDone(5, TimeUnit.SECONDS).assertValueSequence(expected).assertComplete();
+        second.awaitDone(5, TimeUnit.SECONDS).assertValueSequence(expected).assertComplete();
+
+        assertEquals(1, subscriptions.get());
+        assertSame( first.values().get(5_000), second.values().get(5_000) ); // no copies
+    }
+
+    @Test public void testSlowSubscriberDoesNotHoldBackFastOne() throws InterruptedException {
+        final MulticastHub<Integer> hub = MulticastHub.from( Observable.range(0, 10_000) );
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestObserver<Integer> slow = hub.withOverflow(OverflowPolicy.DROP_LATEST, 64)
+            .doOnNext( i -> release.await() )
+            .test()
+        ;
+        final TestObserver<Integer> conflated = hub.latest()
+            .doOnNext( i -> release.await() )
+            .test()
+        ;
+        final TestObserver<Integer> fast = hub.test();
+
+        hub.connect();
+
+        fast.awaitDone(5, TimeUnit.SECONDS).assertValueCount(10_000).assertComplete(); // while the slow ones are stuck
+        release.countDown();
+
+        slow.awaitDone(5, TimeUnit.SECONDS).assertComplete();
+        conflated.awaitDone(5, TimeUnit.SECONDS).assertComplete();
+
+        assertTrue( "slow: " + slow.valueCount(), slow.valueCount() <= 64 + 1 ); // the queue and the one being processed
+        assertEquals( Integer.valueOf(9_999), conflated.values().get( conflated.valueCount() - 1 ) ); // the latest one is never dropped
+        assertEquals( 10_000 - slow.valueCount() + 10_000 - conflated.valueCount(), hub.getDroppedCount() );
+    }
+
+    @Test public void testOverflowErrorRemovesSubscriber() throws InterruptedException {
+        final MulticastHub<Integer> hub = MulticastHub.from( Observable.range(0, 1_000) );
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestObserver<Integer> failing = hub.withOverflow(OverflowPolicy.ERROR, 8)
+            .doOnNext( i -> release.await() )
+            .test()
+        ;
+        final TestObserver<Integer> other = hub.test();
+
+        hub.connect();
+
+        other.awaitDone(5, TimeUnit.SECONDS).assertValueCount(1_000).assertComplete();
+        release.countDown();
+
+        failing.awaitDone(5, TimeUnit.SECONDS).assertError(MissingBackpressureException.class);
+    }
+
+    @Test public void testDisposedSubscriberGetsNothing() {
+        final MulticastHub<Integer> hub = MulticastHub.from( Observable.range(0, 100) );
+
+        final TestObserver<Integer> disposed = hub.test();
+        final TestObserver<Integer> kept = hub.test();
+        disposed.dispose();
+
+        hub.connect();
+
+        kept.awaitDone(5, TimeUnit.SECONDS).assertValueCount(100).assertComplete();
+        disposed.assertEmpty();
+    }
+
+    @Test public void testThrowingSubscriberDoesNotBlockSource() {
+        final MulticastHub<Integer> hub = MulticastHub.from( Observable.range(0, 10_000) );
+
+        final TestObserver<Integer> failing = hub.withOverflow(OverflowPolicy.BLOCK, 8)
+            .doOnNext( i -> {
+                if (i == 100) {
+                    throw new IllegalStateException("subscriber failed");
+                }
+            } )
+            .test()
+        ;
+        final TestObserver<Integer> other = hub.test();
+
+        hub.connect();
+
+        failing.awaitDone(5, TimeUnit.SECONDS).assertError(IllegalStateException.class).assertValueCount(100);
+        other.awaitDone(5, TimeUnit.SECONDS).assertValueCount(10_000).assertComplete(); // the source did not wait for the failed one
+    }
+
+    @Test public void testDisposedConnectionDisposesSubscribers() {
+        final MulticastHub<Integer> hub = MulticastHub.from( Observable.<Integer>never() );
+
+        final AtomicReference<Disposable> subscription = new AtomicReference<>();
+        hub.doOnSubscribe(subscription::set).test();
+
+        hub.connect().dispose();
+
+        assertTrue( subscription.get().isDisposed() );
+    }
+}
@@ -0,0 +1,82 @@
+package com.dpopov.rxjava.operators;
+
+import io.reactivex.Flowable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class CleanStringOperatorTest {
+
+    @Test public void testCleansSameAsRegex() {
+        final StringCleaner cleaner = StringCleaner.create();
+        final List<String> inputs = Arrays.asList(
+              ""
+            , " \t\r\n "
+            , "abcXYZ019"
+            , "Hello, World!"
+            , "  leading and trailing  "
+            , "héllo wörld ✓ Ωmega"
+            , "日本語 text 123"
+            , "\u0000\u007f\u0080￿"
+            , "a_b-c.d/e\\f"
+            , String.join( "-", Collections.nCopies(100, "long") ) // bigger than the initial scratch buffer
+            , "x y" // after a big one, the grown buffer is reused
+        );
+
+        for (final String input : inputs) {
+            assertEquals( input, input.replaceAll("[^A-Za-z0-9]", ""), cleaner.clean(input) );
+        }
+    }
+
+    @Test public void testCleanStringIsReturnedAsIs() {
+        final StringCleaner cleaner = StringCleaner.create();
+        final String clean = "alreadyClean42";
+
+        assertSame( clean, cleaner.clean(clean) );
+        assertSame( "", cleaner.clean("") );
+        assertEquals( "", cleaner.clean("   ") );
+        assertFalse( StringCleaner.isAlphanumeric('é') );
+    }
+
+    @Test public void testFlowablePassesRequestsThrough() {
+        final List<Long> requests = new CopyOnWriteArrayList<>();
+        final TestSubscriber<String> subscriber = TestSubscriber.create(0);
+
+        Flowable.just("a b", "c-d", "e.f", "g h")
+            .doOnRequest(requests::add)
+            .lift( CleanStringOperator.create() )
+            .subscribe(subscriber);
+
+        subscriber.assertNoValues();
+
+        subscriber.request(2);
+        subscriber.assertValues("ab", "cd");
+        assertEquals( Arrays.asList(2L), requests );
+
+        subscriber.request(5);
+        subscriber.assertResult("ab", "cd", "ef", "gh");
+        assertEquals( Arrays.asList(2L, 5L), requests );
+    }
+
+    @Test public void testObservableCleansAndDisposesUpstream() {
+        final PublishSubject<String> subject = PublishSubject.create();
+        final TestObserver<String> observer = subject.lift( CleanStringOperator.create() ).test();
+
+        subject.onNext("x, y!");
+        subject.onNext("  ");
+        observer.assertValues("xy", "");
+
+        observer.dispose();
+        assertFalse( subject.hasObservers() );
+    }
+}
@@ -0,0 +1,91 @@
+package com.dpopov.rxjava.operators;
+
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OrderedParallelMapTest {
+    private static final int PARALLELISM = 4;
+
+    @Test public void testKeepsInputOrder() {
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        final List<Integer> results = Flowable.range(0, 2000)
+            .lift( OrderedParallelMap.<Integer, Integer>create(
+                  i -> {
+                      threads.add( Thread.currentThread().getName() );
+                      if (ThreadLocalRandom.current().nextInt(50) == 0) {
+                          Thread.sleep(1); // some items finish much later than the next ones
+                      }
+                      return i * 2;
+                  }
+                , PARALLELISM
+            ) )
+            .toList()
+            .blockingGet()
+        ;
+
+        assertEquals( IntStream.range(0, 2000).map(i -> i * 2).boxed().collect(Collectors.toList()), results );
+        assertTrue( "workers: " + threads, threads.size() > 1 || Runtime.getRuntime().availableProcessors() == 1 );
+    }
+
+    @Test public void testBoundsInFlight() {
+        final int maxInFlight = 16;
+        final AtomicInteger requestedFromUpstream = new AtomicInteger();
+
+        final TestSubscriber<Integer> subscriber = Flowable.range(0, 1000)
+            .doOnRequest( n -> requestedFromUpstream.addAndGet( (int) n ) )
+            .lift( OrderedParallelMap.<Integer, Integer>create(i -> i, PARALLELISM, maxInFlight, Schedulers.computation()) )
+            .test(5)
+        ;
+
+        subscriber.awaitCount(5);
+        assertEquals(maxInFlight, requestedFromUpstream.get()); // 5 emitted, less than the replenish batch of 12
+
+        subscriber.requestMore(Long.MAX_VALUE);
+        subscriber.awaitDone(5, TimeUnit.SECONDS).assertValueCount(1000).assertComplete();
+    }
+
+    @Test public void testMapperErrorInOrder() {
+        Flowable.range(0, 100)
+            .lift( OrderedParallelMap.<Integer, Integer>create(
+                  i -> {
+                      if (i == 50) {
+                          throw new IllegalStateException("fifty");
+                      }
+                      return i;
+                  }
+                , PARALLELISM
+            ) )
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertValueCount(50)
+            .assertError(IllegalStateException.class)
+        ;
+    }
+
+    @Test public void testObservable() {
+        Observable.range(0, 500)
+            .compose( OrderedParallelMap.observable(i -> -i, PARALLELISM) )
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertValueCount(500)
+            .assertValueAt(499, -499)
+            .assertComplete()
+        ;
+    }
+}
@@ -0,0 +1,116 @@
+package com.dpopov.rxjava.resilience;
+
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+
+    @Test public void testOpensAndFailsFastWithoutSubscribing() {
+        final CircuitBreaker breaker = CircuitBreaker.builder().windowSize(10).minimumCalls(4).failureRateThreshold(0.5f).build();
+        final AtomicInteger subscriptions = new AtomicInteger();
+        final Observable<Integer> source = Observable.<Integer>error( new IllegalStateException() )
+            .doOnSubscribe( d -> subscriptions.incrementAndGet() )
+            .compose( breaker.observable() );
+
+        Observable.just(1).compose( breaker.observable() ).test().assertResult(1); // 1 success of 4 calls
+        for (int i = 0; i < 3; i++) {
+            source.test().assertError(IllegalStateException.class);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(0.75f, breaker.getFailureRate(), 0.001f);
+
+        source.test().assertError(CallNotPermittedException.class);
+        Observable.just(1).compose( breaker.observable( Observable.just(-1) ) ).test().assertResult(-1);
+        assertEquals(3, subscriptions.get());
+        assertEquals(2, breaker.getNotPermittedCount());
+    }
+
+    @Test public void testHalfOpenTrialsCloseOrReopen() {
+        final TestScheduler clock = new TestScheduler();
+        final CircuitBreaker breaker = CircuitBreaker.builder()
+            .windowSize(2).minimumCalls(2).openDuration(10, TimeUnit.SECONDS).halfOpenCalls(2).scheduler(clock).build();
+        final TestObserver<CircuitBreaker.Transition> transitions = breaker.stateChanges().test();
+
+        final Observable<Integer> failing = Observable.<Integer>error( new IllegalStateException() ).compose( breaker.observable() );
+        final Observable<Integer> working = Observable.just(1).compose( breaker.observable() );
+
+        failing.test();
+        failing.test();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        clock.advanceTimeBy(10, TimeUnit.SECONDS);
+        working.test().assertResult(1);
+        failing.test().assertError(IllegalStateException.class);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState()); // 1 failure of 2 trials
+
+        working.test().assertError(CallNotPermittedException.class); // open again for another 10 seconds
+        clock.advanceTimeBy(10, TimeUnit.SECONDS);
+        working.test().assertResult(1);
+        working.test().assertResult(1);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        assertEquals(5, transitions.valueCount());
+        assertEquals(CircuitBreaker.State.CLOSED, transitions.values().get(4).getTo());
+    }
+
+    @Test public void testOpensOnSlowCallsAndIgnoresErrors() {
+        final TestScheduler clock = new TestScheduler();
+        final CircuitBreaker breaker = CircuitBreaker.builder()
+            .windowSize(4).minimumCalls(4).slowCallDuration(1, TimeUnit.SECONDS).slowCallRateThreshold(0.5f)
+            .ignore(IllegalArgumentException.class).scheduler(clock).build();
+
+        for (int i = 0; i < 10; i++) {
+            Observable.error( new IllegalArgumentException() ).compose( breaker.observable() ).test();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState()); // ignored, nothing recorded
+
+        final Flowable<Long> slow = Flowable.timer(2, TimeUnit.SECONDS, clock).compose( breaker.flowable() );
+        final Flowable<Long> fast = Flowable.just(0L).compose( breaker.flowable() );
+
+        fast.test();
+        fast.test();
+        slow.test();
+        slow.test();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState()); // still running
+
+        clock.advanceTimeBy(2, TimeUnit.SECONDS);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(0.5f, breaker.getSlowCallRate(), 0.001f);
+        fast.test().assertError(CallNotPermittedException.class);
+    }
+
+    @Test public void testConcurrentCallsAreAllRecorded() throws InterruptedException {
+        final int threads = 4;
+        final int calls = 10_000;
+        final CircuitBreaker breaker = CircuitBreaker.builder().windowSize(1_000_000).minimumCalls(1_000_000).build();
+        final Observable<Integer> failing = Observable.<Integer>error( new IllegalStateException() ).compose( breaker.observable() );
+        final Observable<Integer> working = Observable.just(1).compose( breaker.observable() );
+
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            Schedulers.newThread().scheduleDirect( () -> {
+                for (int i = 0; i < calls; i++) {
+                    ( (thread % 2 == 0) ? failing : working ).onErrorReturnItem(0).subscribe();
+                }
+                done.countDown();
+            } );
+        }
+
+        assertTrue( done.await(10, TimeUnit.SECONDS) );
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.5f, breaker.getFailureRate(), 0.0001f);
+        assertTrue( breaker.toString().contains("calls: " + threads * calls) );
+    }
+}
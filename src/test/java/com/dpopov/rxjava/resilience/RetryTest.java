@@ -0,0 +1,109 @@
+package com.dpopov.rxjava.resilience;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RetryTest {
+
+    @Test public void testRetriesWithExponentialBackoff() {
+        final TestScheduler scheduler = new TestScheduler();
+        final AtomicInteger subscriptions = new AtomicInteger();
+
+        final Retry retry = Retry.builder()
+            .maxAttempts(5)
+            .backoff( Backoff.exponential(100, 10_000, TimeUnit.MILLISECONDS, Backoff.Jitter.NONE) )
+            .scheduler(scheduler)
+            .build();
+
+        final TestObserver<String> observer = Observable.defer( () -> subscriptions.incrementAndGet() < 4
+                ? Observable.<String>error( new IOException("down") )
+                : Observable.just("up")
+            )
+            .compose( retry.<String>observable() )
+            .test()
+        ;
+
+        assertEquals(1, subscriptions.get());
+        scheduler.advanceTimeBy(99, TimeUnit.MILLISECONDS);
+        assertEquals(1, subscriptions.get());
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS); // 100 ms
+        assertEquals(2, subscriptions.get());
+        scheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+        assertEquals(3, subscriptions.get());
+        scheduler.advanceTimeBy(400, TimeUnit.MILLISECONDS);
+
+        observer.assertValue("up").assertComplete();
+        assertEquals(3, retry.getRetryCount());
+    }
+
+    @Test public void testGivesUpOnOtherErrorsAndAfterMaxAttempts() {
+        final TestScheduler scheduler = new TestScheduler();
+        final Retry retry = Retry.builder()
+            .maxAttempts(2)
+            .backoff( Backoff.fixed(10, TimeUnit.MILLISECONDS) )
+            .retryOn(IOException.class)
+            .retryOn( IllegalStateException.class, e -> "retry me".equals( e.getMessage() ) )
+            .scheduler(scheduler)
+            .build();
+
+        Observable.error( new IllegalArgumentException() ).compose( retry.observable() ).test()
+            .assertError(IllegalArgumentException.class);
+        Observable.error( new IllegalStateException("no") ).compose( retry.observable() ).test()
+            .assertError(IllegalStateException.class);
+
+        final TestObserver<Object> observer = Observable.error( new IllegalStateException("retry me") ).compose( retry.observable() ).test();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        observer.assertError(IllegalStateException.class);
+
+        assertEquals(2, retry.getRetryCount());
+        assertEquals(3, retry.getGivenUpCount());
+    }
+
+    @Test public void testSharedBudgetBoundsRetriesOfAllStreams() {
+        final TestScheduler scheduler = new TestScheduler();
+        final RetryBudget budget = RetryBudget.create(1, 10); // nearly no refill during the test
+        final Retry retry = Retry.builder()
+            .maxAttempts(1_000)
+            .backoff( Backoff.exponential(1, 100, TimeUnit.MILLISECONDS, Backoff.Jitter.FULL) )
+            .budget(budget)
+            .scheduler(scheduler)
+            .build();
+
+        final AtomicInteger calls = new AtomicInteger();
+        final Observable<Object> failing = Observable.defer( () -> {
+            calls.incrementAndGet();
+            return Observable.error( new IOException("down") );
+        } );
+
+        for (int i = 0; i < 100; i++) {
+            failing.compose( retry.observable() ).subscribe( x -> { }, e -> { } );
+        }
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+        assertTrue( "retries: " + budget.getAcquiredCount(), budget.getAcquiredCount() <= 11 );
+        assertEquals( 100 + budget.getAcquiredCount(), calls.get() );
+        assertEquals( 100, retry.getGivenUpCount() );
+    }
+
+    @Test public void testDecorrelatedJitterStaysInBounds() {
+        final Backoff backoff = Backoff.exponential(10, 1_000, TimeUnit.MILLISECONDS, Backoff.Jitter.DECORRELATED);
+
+        long previous = 0;
+        for (int attempt = 1; attempt < 100; attempt++) {
+            final long delay = backoff.delayNanos(attempt, previous);
+            assertTrue( delay >= TimeUnit.MILLISECONDS.toNanos(10) );
+            assertTrue( delay <= TimeUnit.MILLISECONDS.toNanos(1_000) );
+            assertTrue( delay <= Math.max(TimeUnit.MILLISECONDS.toNanos(10), previous) * 3 );
+            previous = delay;
+        }
+    }
+}
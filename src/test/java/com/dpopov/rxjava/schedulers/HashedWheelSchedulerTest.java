@@ -0,0 +1,110 @@
+package com.dpopov.rxjava.schedulers;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HashedWheelSchedulerTest {
+
+    @Test public void testRunsDelayedTasksNotBeforeTheirDelay() throws InterruptedException {
+        final HashedWheelScheduler scheduler = HashedWheelScheduler.create( 5, TimeUnit.MILLISECONDS, 8, Schedulers.computation() ); // 40 ms per turn
+        final Scheduler.Worker worker = scheduler.createWorker();
+
+        final int count = 1_000;
+        final CountDownLatch done = new CountDownLatch(count);
+        final AtomicInteger early = new AtomicInteger();
+
+        for (int i = 0; i < count; i++) {
+            final long delay = i % 100; // up to 2.5 turns
+            final long start = System.nanoTime();
+            worker.schedule( () -> {
+                if ( System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(delay) ) {
+                    early.incrementAndGet();
+                }
+                done.countDown();
+            }, delay, TimeUnit.MILLISECONDS );
+        }
+
+        assertTrue( done.await(5, TimeUnit.SECONDS) );
+        assertEquals(0, early.get());
+        assertEquals(0, scheduler.getPendingCount());
+        scheduler.shutdown();
+    }
+
+    @Test public void testDisposedWorkerCancelsItsTimeouts() throws InterruptedException {
+        final HashedWheelScheduler scheduler = HashedWheelScheduler.create( 5, TimeUnit.MILLISECONDS, 8, Schedulers.computation() );
+        final Scheduler.Worker disposed = scheduler.createWorker();
+        final Scheduler.Worker other = scheduler.createWorker();
+        final AtomicInteger runs = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            disposed.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        }
+        other.schedule(runs::incrementAndGet, 1, TimeUnit.HOURS);
+        assertEquals(4, scheduler.getPendingCount());
+
+        disposed.dispose();
+        assertEquals(1, scheduler.getPendingCount()); // the other worker keeps its timeout
+        disposed.schedule(runs::incrementAndGet, 1, TimeUnit.MILLISECONDS);
+        assertEquals(1, scheduler.getPendingCount());
+
+        Thread.sleep(100);
+        assertEquals(0, runs.get());
+        scheduler.shutdown();
+    }
+
+    @Test public void testRunsOnTimeOnAllLevels() throws InterruptedException {
+        for (int levels = 1; levels <= 3; levels++) { // 4, 16, 64 ticks, then full turns of the top level
+            final HashedWheelScheduler scheduler = HashedWheelScheduler.create( 5, TimeUnit.MILLISECONDS, 4, levels, Schedulers.computation() );
+            final Scheduler.Worker worker = scheduler.createWorker();
+
+            final int count = 500;
+            final CountDownLatch done = new CountDownLatch(count);
+            final AtomicLong maxLateNanos = new AtomicLong();
+            final AtomicInteger early = new AtomicInteger();
+
+            for (int i = 0; i < count; i++) {
+                final long delay = (i * 7) % 700; // up to 140 ticks
+                final long start = System.nanoTime();
+                worker.schedule( () -> {
+                    final long late = System.nanoTime() - start - TimeUnit.MILLISECONDS.toNanos(delay);
+                    if (late < 0) {
+                        early.incrementAndGet();
+                    }
+                    maxLateNanos.accumulateAndGet(late, Math::max);
+                    done.countDown();
+                }, delay, TimeUnit.MILLISECONDS );
+            }
+
+            assertTrue( done.await(5, TimeUnit.SECONDS) );
+            assertEquals(0, early.get());
+            assertTrue( "levels " + levels + ", late " + maxLateNanos.get() + " ns", maxLateNanos.get() < TimeUnit.MILLISECONDS.toNanos(60) ); // a turn of 2 levels is 80 ms
+            scheduler.shutdown();
+        }
+    }
+
+    @Test public void testDisposedTasksDoNotRun() {
+        final HashedWheelScheduler scheduler = HashedWheelScheduler.create( 1, TimeUnit.MILLISECONDS, 64, Schedulers.computation() );
+        final Scheduler.Worker worker = scheduler.createWorker();
+        final AtomicInteger runs = new AtomicInteger();
+
+        final Disposable cancelled = worker.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        worker.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        cancelled.dispose();
+        assertEquals(1, scheduler.getPendingCount());
+
+        assertEquals( Long.valueOf(0), Observable.timer(50, TimeUnit.MILLISECONDS, scheduler).blockingFirst() );
+        assertEquals(1, runs.get());
+        scheduler.shutdown();
+    }
+}
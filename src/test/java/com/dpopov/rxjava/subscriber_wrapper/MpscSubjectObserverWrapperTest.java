@@ -0,0 +1,116 @@
+package com.dpopov.rxjava.subscriber_wrapper;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MpscSubjectObserverWrapperTest {
+	private static final int PRODUCERS = 4;
+	private static final int COUNT = 100_000;
+
+	@Test public void testDeliversAllUpstreamsInTheirOrder() {
+		final PublishSubject<Integer> subject = PublishSubject.create();
+		final TestObserver<Integer> observer = subject.test();
+		final MpscSubjectObserverWrapper<Integer> wrapper = MpscSubjectObserverWrapper.create(subject);
+
+		for (int p = 0; p < PRODUCERS; p++) {
+			Observable.range(p * COUNT, COUNT)
+				.subscribeOn( Schedulers.newThread() )
+				.subscribe(wrapper);
+		}
+
+		observer.awaitDone(10, TimeUnit.SECONDS).assertValueCount(PRODUCERS * COUNT).assertComplete(); // after the last upstream only
+
+		final int[] last = new int[PRODUCERS];
+		for (int p = 0; p < PRODUCERS; p++) {
+			last[p] = p * COUNT - 1;
+		}
+		for (final int value : observer.values()) {
+			final int p = value / COUNT;
+			assertEquals(last[p] + 1, value);
+			last[p] = value;
+		}
+	}
+
+	@Test public void testCompletesAfterLastUpstreamAndFailsOnFirstError() {
+		final PublishSubject<Integer> subject = PublishSubject.create();
+		final TestObserver<Integer> observer = subject.test();
+		final MpscSubjectObserverWrapper<Integer> wrapper = MpscSubjectObserverWrapper.create(subject);
+
+		final PublishSubject<Integer> first = PublishSubject.create();
+		final PublishSubject<Integer> second = PublishSubject.create();
+		first.subscribe(wrapper);
+		second.subscribe(wrapper);
+
+		first.onNext(1);
+		first.onComplete();
+		second.onNext(2);
+		observer.assertValues(1, 2).assertNotComplete();
+
+		second.onNext(3);
+		second.onComplete();
+		observer.assertResult(1, 2, 3);
+
+		final PublishSubject<Integer> failing = PublishSubject.create();
+		final TestObserver<Integer> failed = failing.test();
+		final MpscSubjectObserverWrapper<Integer> other = MpscSubjectObserverWrapper.create(failing);
+		final PublishSubject<Integer> running = PublishSubject.create();
+		running.subscribe(other);
+		Observable.<Integer>error( new IllegalStateException() ).subscribe(other);
+
+		failed.assertError(IllegalStateException.class);
+		assertFalse( running.hasObservers() ); // the other upstreams are disposed
+	}
+
+	@Test public void testDisposeLosesAndDuplicatesNothing() throws InterruptedException {
+		final PublishSubject<Long> subject = PublishSubject.create();
+		final TestObserver<Long> observer = subject.test();
+		final MpscSubjectObserverWrapper<Long> wrapper = MpscSubjectObserverWrapper.create(subject);
+
+		for (int p = 0; p < PRODUCERS; p++) {
+			Observable.rangeLong( (long) p * Integer.MAX_VALUE, Integer.MAX_VALUE )
+				.subscribeOn( Schedulers.newThread() )
+				.subscribe(wrapper);
+		}
+
+		Thread.sleep(200);
+		wrapper.dispose();
+
+		int count = -1;
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while ( count != observer.values().size() && System.nanoTime() < deadline ) { // the items taken before are still being delivered
+			count = observer.values().size();
+			Thread.sleep(100);
+		}
+		Thread.sleep(100);
+
+		final List<Long> values = new ArrayList<>( observer.values() );
+		assertEquals( "nothing after dispose", count, values.size() );
+
+		final Set<Long> distinct = new HashSet<>(values);
+		assertEquals(count, distinct.size());
+		assertTrue("got " + count, count > 0);
+		observer.assertNotComplete();
+	}
+
+	@Test public void testTerminatesAfterItemsTakenBefore() {
+		final PublishSubject<Integer> subject = PublishSubject.create();
+		final TestObserver<Integer> observer = subject.test();
+
+		Observable.range(0, 1_000).subscribe( MpscSubjectObserverWrapper.create(subject) );
+
+		observer.awaitDone(5, TimeUnit.SECONDS).assertValueCount(1_000).assertComplete();
+	}
+}
@@ -0,0 +1,92 @@
+package com.dpopov.rxjava.subscriber_wrapper;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class OffHeapReplaySubjectTest {
+
+	@Test public void testReplaysHistoryAndLiveItems() {
+		final OffHeapReplaySubject<String> subject = OffHeapReplaySubject.create( ReplaySerializer.utf8(), 1 << 20 );
+		subject.onNext("zero");
+		subject.onNext("один");
+
+		final TestObserver<String> late = subject.test();
+		late.assertValues("zero", "один").assertNotComplete();
+
+		subject.onNext("two");
+		subject.onComplete();
+		late.assertValues("zero", "один", "two").assertComplete();
+
+		subject.test().assertValues("zero", "один", "two").assertComplete(); // after the end too
+	}
+
+	@Test public void testReplacesLoneSurrogates() {
+		final OffHeapReplaySubject<String> subject = OffHeapReplaySubject.create( ReplaySerializer.utf8(), 1 << 20 );
+		subject.onNext("a\uD800b");
+		subject.onNext("c");
+
+		subject.test().assertValues("a?b", "c");
+	}
+
+	@Test public void testStartsFromOffset() {
+		final OffHeapReplaySubject<Long> subject = OffHeapReplaySubject.create( ReplaySerializer.longs(), 128, 1 << 20, 1, TimeUnit.DAYS, new TestScheduler() );
+		Observable.rangeLong(0, 100).subscribe(subject);
+
+		subject.fromOffset(42).test().assertValueCount(58).assertValueAt(0, 42L).assertComplete(); // crosses several segments
+		subject.fromOffset(1_000).test().assertNoValues().assertComplete();
+	}
+
+	@Test public void testEvictsOldestSegmentsBySize() {
+		final int segmentSize = 20 * 10; // 10 longs with their 12 bytes headers
+		final OffHeapReplaySubject<Long> subject = OffHeapReplaySubject.create( ReplaySerializer.longs(), segmentSize, 3 * segmentSize, 1, TimeUnit.DAYS, new TestScheduler() );
+
+		final TestObserver<Long> live = subject.test();
+		Observable.rangeLong(0, 100).subscribe(subject);
+
+		live.assertValueCount(100); // live subscribers get everything
+		assertEquals(3, subject.getSegmentCount());
+		assertEquals(3 * segmentSize, subject.getSizeInBytes());
+		assertEquals(70, subject.getFirstOffset());
+
+		subject.test().assertValueCount(30).assertValueAt(0, 70L).assertComplete();
+		subject.fromOffset(10).test().assertValueAt(0, 70L); // evicted offsets start from the oldest kept
+	}
+
+	@Test public void testSkipsAndEvictsExpiredItems() {
+		final TestScheduler scheduler = new TestScheduler();
+		final OffHeapReplaySubject<Long> subject = OffHeapReplaySubject.create( ReplaySerializer.longs(), 200, 1 << 20, 10, TimeUnit.SECONDS, scheduler );
+
+		for (long i = 0; i < 30; i++) {
+			subject.onNext(i);
+			scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+		}
+
+		// now 30 s, items 0..19 are older than 10 s
+		subject.test().assertValueCount(10).assertValueAt(0, 20L);
+		assertEquals(2, subject.getSegmentCount()); // the segment of 0..9 is evicted on append, 10..19 is partly fresh when 29 came
+	}
+
+	@Test public void testSlowReaderSkipsEvictedSegment() {
+		final OffHeapReplaySubject<Long> subject = OffHeapReplaySubject.create( ReplaySerializer.longs(), 40, 80, 1, TimeUnit.DAYS, new TestScheduler() );
+		Observable.rangeLong(0, 4).subscribe( subject::onNext ); // 2 segments of 2 items
+
+		final TestObserver<Long> reader = new TestObserver<Long>() {
+			@Override
+			public void onNext(final Long value) {
+				super.onNext(value);
+				if (value == 0) {
+					subject.onNext(4L); // evicts the segment being read
+				}
+			}
+		};
+		subject.subscribe(reader);
+
+		reader.assertValues(0L, 2L, 3L, 4L);
+	}
+}
@@ -0,0 +1,82 @@
+package com.dpopov.rxjava.v1;
+
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShardedWindowProcessorTest {
+
+    @Test public void testStatsOfEveryWindowOnItsShard() {
+        final int windowSize = 1_000;
+        final int windowsCount = 20;
+        final ShardedWindowProcessor processor = ShardedWindowProcessor.create(3);
+        final Map<Long, String> threads = new ConcurrentHashMap<>();
+        final TestSubscriber<WindowStats> subscriber = TestSubscriber.create();
+
+        Observable.range(0, windowSize * windowsCount)
+            .window(windowSize)
+            .flatMap( window -> processor.process(window).doOnNext( stats -> threads.put( stats.getWindowIndex(), Thread.currentThread().getName() ) ) )
+            .subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(10, TimeUnit.SECONDS);
+        subscriber.assertNoErrors();
+        subscriber.assertValueCount(windowsCount);
+
+        for (final WindowStats stats : subscriber.getOnNextEvents()) {
+            final int first = (int) stats.getWindowIndex() * windowSize;
+
+            assertEquals(windowSize, stats.getCount());
+            assertEquals(first, stats.getFirst()); // in order within the window
+            assertEquals(first + windowSize - 1, stats.getLast());
+            assertEquals(first, stats.getMin());
+            assertEquals(first + windowSize - 1, stats.getMax());
+
+            assertEquals( stats.getWindowIndex() % 3, stats.getShard() );
+            assertEquals( "window-shard-" + stats.getShard(), threads.get( stats.getWindowIndex() ) );
+        }
+
+        processor.shutdown();
+    }
+
+    @Test public void testEmptyWindow() {
+        final ShardedWindowProcessor processor = ShardedWindowProcessor.create(1);
+
+        final WindowStats stats = processor.process( Observable.empty() ).toBlocking().single();
+
+        assertTrue( stats.isEmpty() );
+        assertEquals(0, stats.getShard());
+        processor.shutdown();
+    }
+
+    @Test public void testShutdownStopsShardThreads() throws InterruptedException {
+        final ShardedWindowProcessor processor = ShardedWindowProcessor.create(2);
+        final List<WindowStats> windows = Observable.range(0, 100)
+            .window(10)
+            .flatMap(processor::process)
+            .toList()
+            .toBlocking()
+            .single();
+        assertEquals(10, windows.size());
+
+        processor.shutdown();
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ( shardThreadsAlive() && System.nanoTime() < deadline ) {
+            Thread.sleep(10);
+        }
+        assertFalse( shardThreadsAlive() );
+    }
+
+    private static boolean shardThreadsAlive() {
+        return Thread.getAllStackTraces().keySet().stream().anyMatch( thread -> thread.getName().startsWith("window-shard-") );
+    }
+}
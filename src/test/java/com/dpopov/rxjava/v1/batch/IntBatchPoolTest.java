@@ -0,0 +1,88 @@
+package com.dpopov.rxjava.v1.batch;
+
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IntBatchPoolTest {
+
+    @Test public void testDoubleReleaseThrowsAndKeepsBatchOnce() {
+        final IntBatchPool pool = IntBatchPool.create(2, 4);
+
+        final IntBatch batch = pool.acquire();
+        batch.add(1);
+        batch.release();
+
+        try {
+            batch.release();
+            fail("released twice");
+        }
+        catch (final IllegalStateException expected) {
+        }
+        assertEquals(2, pool.getFreeCount());
+
+        final IntBatch first = pool.acquire();
+        final IntBatch second = pool.acquire();
+        assertNotSame(first, second); // not the same buffer for two consumers
+        assertTrue( first.isEmpty() );
+    }
+
+    @Test public void testAcquireWaitsForRelease() throws Exception {
+        final IntBatchPool pool = IntBatchPool.create(1, 4);
+        final IntBatch batch = pool.acquire();
+        batch.add(42);
+
+        final CompletableFuture<IntBatch> waiting = CompletableFuture.supplyAsync(pool::acquire);
+        Thread.sleep(50);
+        assertFalse( waiting.isDone() );
+
+        batch.release();
+        final IntBatch reused = waiting.get(5, TimeUnit.SECONDS);
+        assertSame(batch, reused);
+        assertTrue( reused.isEmpty() );
+    }
+
+    @Test public void testBatcherEmitsFullBatchesAndLastPartialOne() {
+        final IntBatchPool pool = IntBatchPool.create(4, 10);
+        final TestSubscriber<IntBatch> subscriber = TestSubscriber.create();
+        final IntBatcher batcher = IntBatcher.create(pool, subscriber);
+
+        IntStream.range(0, 25).forEach(batcher::onNext);
+        batcher.onCompleted();
+
+        subscriber.assertCompleted();
+        assertEquals(
+              "10, 10, 5"
+            , subscriber.getOnNextEvents().stream().map( batch -> String.valueOf( batch.size() ) ).collect( Collectors.joining(", ") )
+        );
+        assertEquals( 24 * 25 / 2, subscriber.getOnNextEvents().stream().mapToLong(IntBatch::sum).sum() );
+        assertEquals(24, subscriber.getOnNextEvents().get(2).get(4));
+
+        subscriber.getOnNextEvents().forEach(IntBatch::release);
+        assertEquals(4, pool.getFreeCount());
+    }
+
+    @Test public void testBatcherReleasesPartialBatchOnError() {
+        final IntBatchPool pool = IntBatchPool.create(2, 10);
+        final TestSubscriber<IntBatch> subscriber = TestSubscriber.create();
+        final IntBatcher batcher = IntBatcher.create(pool, subscriber);
+
+        IntStream.range(0, 5).forEach(batcher::onNext);
+        batcher.onError( new IllegalStateException() );
+
+        subscriber.assertNoValues();
+        subscriber.assertError(IllegalStateException.class);
+        assertEquals(2, pool.getFreeCount());
+    }
+}
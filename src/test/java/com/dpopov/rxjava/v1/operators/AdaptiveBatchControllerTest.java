@@ -0,0 +1,71 @@
+package com.dpopov.rxjava.v1.operators;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveBatchControllerTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test public void testBatchSizeFollowsArrivalRate() {
+        final AdaptiveBatchController controller = AdaptiveBatchController.create(10, TimeUnit.MILLISECONDS, 16, 100_000);
+        assertEquals(16, controller.getBatchSize());
+        assertEquals(5 * MS, controller.getTimespanNanos()); // half of the target until measured
+
+        controller.onArrivals(1_000, MS); // 1 per microsecond
+        assertEquals(10 * MS, controller.getTimespanNanos()); // no batch measured yet, the whole target
+        assertEquals(10_000, controller.getBatchSize()); // what arrives during the time span
+
+        for (int i = 0; i < 100; i++) {
+            controller.onArrivals(10, MS); // slows down to 10 per millisecond
+        }
+        assertEquals(100, controller.getBatchSize(), 1);
+    }
+
+    @Test public void testTimespanLeavesRoomForBatchProcessing() {
+        final AdaptiveBatchController controller = AdaptiveBatchController.create(10, TimeUnit.MILLISECONDS, 16, 100_000);
+        controller.onArrivals(1_000, MS);
+
+        controller.onBatchProcessed(1_000, 4 * MS);
+        assertEquals(6 * MS, controller.getTimespanNanos()); // 10 ms of target latency - 4 ms of processing
+        assertEquals(6_000, controller.getBatchSize());
+
+        controller.onBatchProcessed(1_000, 9 * MS); // moving average: 4 + 0.2 * (9 - 4)
+        assertEquals(5 * MS, controller.getTimespanNanos());
+
+        for (int i = 0; i < 100; i++) {
+            controller.onBatchProcessed(1_000, 50 * MS); // slower than the target: the smallest time span
+        }
+        assertEquals(MS / 10, controller.getTimespanNanos());
+        assertEquals(100, controller.getBatchSize());
+    }
+
+    @Test public void testBatchSizeStaysInBounds() {
+        final AdaptiveBatchController controller = AdaptiveBatchController.create(10, TimeUnit.MILLISECONDS, 16, 1_000);
+
+        controller.onArrivals(1_000_000, MS);
+        assertEquals(1_000, controller.getBatchSize());
+
+        for (int i = 0; i < 200; i++) {
+            controller.onArrivals(0, MS);
+        }
+        assertEquals(16, controller.getBatchSize());
+
+        controller.onArrivals(5, 0); // no time elapsed, ignored
+        assertEquals(16, controller.getBatchSize());
+    }
+
+    @Test public void testTimedConsumerReportsBatchTime() {
+        final AdaptiveBatchController controller = AdaptiveBatchController.create(10, TimeUnit.MILLISECONDS);
+
+        controller.<Integer>timed( batch -> LockSupport.parkNanos(3 * MS) ).call( Arrays.asList(1, 2, 3) );
+
+        final long timespan = controller.getTimespanNanos();
+        assertTrue( "timespan: " + timespan, timespan <= 7 * MS && timespan > MS / 10 );
+    }
+}
@@ -0,0 +1,149 @@
+package com.dpopov.rxjava.v1.operators;
+
+import org.junit.Test;
+import rx.Subscriber;
+import rx.exceptions.MissingBackpressureException;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveBufferOperatorTest {
+
+    @Test public void testEmitsFullBatchesAndOnTimespan() throws InterruptedException {
+        final TestScheduler scheduler = new TestScheduler();
+        final AdaptiveBatchController controller = AdaptiveBatchController.create(1, TimeUnit.MILLISECONDS, 4, 1_000);
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final TestSubscriber<List<Integer>> subscriber = TestSubscriber.create();
+
+        subject.lift( AdaptiveBufferOperator.<Integer>create(controller, scheduler) ).subscribe(subscriber);
+
+        for (int i = 1; i <= 6; i++) {
+            subject.onNext(i);
+        }
+        subscriber.assertValue( Arrays.asList(1, 2, 3, 4) ); // full at the initial batch size
+
+        Thread.sleep(2); // the rest is older than the time span
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        subscriber.assertReceivedOnNext( Arrays.asList( Arrays.asList(1, 2, 3, 4), Arrays.asList(5, 6) ) );
+
+        subject.onNext(7);
+        subject.onCompleted();
+        subscriber.assertValueCount(3);
+        subscriber.assertCompleted();
+    }
+
+    @Test public void testTicksAtTheDeadlineOfTheBatch() throws InterruptedException {
+        final TestScheduler scheduler = new TestScheduler();
+        final AdaptiveBatchController controller = AdaptiveBatchController.create(100, TimeUnit.MILLISECONDS, 4, 1_000);
+        controller.onBatchProcessed( 1, TimeUnit.MILLISECONDS.toNanos(50) ); // a time span of 50 ms
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final TestSubscriber<List<Integer>> subscriber = TestSubscriber.create();
+
+        subject.lift( AdaptiveBufferOperator.<Integer>create(controller, scheduler) ).subscribe(subscriber);
+
+        subject.onNext(1);
+        Thread.sleep(30);
+        scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS); // the first tick, 20 ms before the deadline
+        subscriber.assertNoValues();
+
+        Thread.sleep(25);
+        scheduler.advanceTimeBy(20, TimeUnit.MILLISECONDS); // not a whole time span later
+        subscriber.assertValue( Collections.singletonList(1) );
+    }
+
+    @Test public void testFailsWhenBacklogReachesMaxBatchSize() {
+        final AdaptiveBatchController controller = AdaptiveBatchController.create(1, TimeUnit.MILLISECONDS, 4, 8);
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final TestSubscriber<List<Integer>> subscriber = TestSubscriber.create(0);
+
+        subject.lift( AdaptiveBufferOperator.<Integer>create( controller, new TestScheduler() ) ).subscribe(subscriber);
+
+        for (int i = 0; i < 8; i++) {
+            subject.onNext(i);
+        }
+        subscriber.assertNoTerminalEvent();
+
+        subject.onNext(8);
+        subscriber.assertNoValues();
+        subscriber.assertError(MissingBackpressureException.class);
+        assertFalse( subject.hasObservers() );
+    }
+
+    @Test public void testBatchGrowsWhileChildHasNoDemand() {
+        final AdaptiveBatchController controller = AdaptiveBatchController.create(1, TimeUnit.MILLISECONDS, 4, 1_000);
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final TestSubscriber<List<Integer>> subscriber = TestSubscriber.create(0);
+
+        subject.lift( AdaptiveBufferOperator.<Integer>create( controller, new TestScheduler() ) ).subscribe(subscriber);
+
+        for (int i = 0; i < 100; i++) {
+            subject.onNext(i);
+        }
+        subscriber.assertNoValues();
+
+        subscriber.requestMore(1);
+        subscriber.assertValueCount(1);
+        assertEquals( 100, subscriber.getOnNextEvents().get(0).size() ); // no MissingBackpressureException, one bigger batch
+    }
+
+    @Test public void testSlowChildDoesNotBlockProducer() throws Exception {
+        final AdaptiveBatchController controller = AdaptiveBatchController.create(1, TimeUnit.MILLISECONDS, 4, 100_000); // room for the backlog
+        final PublishSubject<Integer> subject = PublishSubject.create();
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        final AtomicInteger received = new AtomicInteger();
+
+        subject.lift( AdaptiveBufferOperator.<Integer>create( controller, Schedulers.newThread() ) ).subscribe( new Subscriber<List<Integer>>() {
+            @Override
+            public void onNext(final List<Integer> batch) {
+                entered.countDown();
+                try {
+                    release.await(); // stuck in the first batch, on the timer thread
+                }
+                catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.addAndGet( batch.size() );
+            }
+
+            @Override
+            public void onCompleted() {
+                completed.countDown();
+            }
+
+            @Override
+            public void onError(final Throwable e) {
+            }
+        } );
+
+        subject.onNext(0);
+        assertTrue( entered.await(5, TimeUnit.SECONDS) );
+
+        final CompletableFuture<Void> producer = CompletableFuture.runAsync( () -> {
+            for (int i = 1; i <= 10_000; i++) {
+                subject.onNext(i);
+            }
+            subject.onCompleted();
+        } );
+        producer.get(5, TimeUnit.SECONDS); // would wait for the child with the emission under the lock
+
+        release.countDown();
+        assertTrue( completed.await(5, TimeUnit.SECONDS) );
+        assertEquals( 10_001, received.get() );
+    }
+}
@@ -0,0 +1,148 @@
+package com.dpopov.rxjava.v1.operators;
+
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscriber;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class FusedStageTest {
+
+    @Test public void testSameResultAsUnfusedChain() {
+        final List<String> strings = Arrays.asList("a b", "", " ", "hello, world", "x", "--", "Ωmega 1");
+
+        final List<Integer> unfused = Observable.from(strings)
+            .lift( ToCleanStringOperator.create() )
+            .filter( s -> !s.isEmpty() )
+            .compose( ToLengthTransformer.create() )
+            .toList().toBlocking().single();
+
+        final List<Integer> fused = Observable.from(strings)
+            .lift( FusedStage.<String>builder().clean().filter( s -> !s.isEmpty() ).length().batchSize(3).build() )
+            .toList().toBlocking().single();
+
+        assertEquals( Arrays.asList(2, 10, 1, 5), fused );
+        assertEquals(unfused, fused);
+    }
+
+    @Test public void testMapAndFilterOverSeveralBatches() {
+        final TestSubscriber<String> subscriber = TestSubscriber.create();
+
+        Observable.range(0, 1_000)
+            .lift(
+                FusedStage.<Integer>builder()
+                    .map( i -> i * 2 )
+                    .filter( i -> i % 3 == 0 )
+                    .map(String::valueOf)
+                    .batchSize(16)
+                    .build()
+            )
+            .subscribe(subscriber);
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            if (i * 2 % 3 == 0) {
+                expected.add( String.valueOf(i * 2) );
+            }
+        }
+        subscriber.assertReceivedOnNext(expected);
+        subscriber.assertCompleted();
+    }
+
+    @Test public void testBoundedRequestsRefillFilteredItems() {
+        final List<Long> requests = new ArrayList<>();
+        final TestSubscriber<Integer> subscriber = TestSubscriber.create(0);
+
+        Observable.range(0, 100)
+            .doOnRequest(requests::add)
+            .lift( FusedStage.<Integer>builder().filter( i -> i % 2 == 0 ).build() )
+            .subscribe(subscriber);
+
+        subscriber.requestMore(5);
+        subscriber.assertValues(0, 2, 4, 6, 8); // flushed when the requested items arrived, not when the batch of 128 is full
+        subscriber.assertNotCompleted();
+        assertEquals( 9L, requests.stream().mapToLong(Long::longValue).sum() ); // 0 to 8: the filtered out items were requested again
+    }
+
+    @Test public void testReentrantRequestsFromChild() {
+        final List<Integer> received = new ArrayList<>();
+
+        Observable.range(0, 1_000)
+            .lift( FusedStage.<Integer>builder().map( i -> i + 1 ).filter( i -> i % 10 != 0 ).batchSize(8).build() )
+            .subscribe( new Subscriber<Integer>() {
+                @Override
+                public void onStart() {
+                    request(1);
+                }
+
+                @Override
+                public void onNext(final Integer i) {
+                    received.add(i);
+                    request(1); // within the flush of the batch
+                }
+
+                @Override
+                public void onCompleted() {
+                    received.add(-1);
+                }
+
+                @Override
+                public void onError(final Throwable e) {
+                    throw new AssertionError(e);
+                }
+            } );
+
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 1; i <= 1_000; i++) {
+            if (i % 10 != 0) {
+                expected.add(i);
+            }
+        }
+        expected.add(-1); // completed once, after everything
+
+        assertEquals(expected, received);
+    }
+
+    @Test public void testUnboundedRequestWaitsForFullBatch() {
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final TestSubscriber<Integer> subscriber = TestSubscriber.create();
+
+        subject.lift( FusedStage.<Integer>builder().batchSize(4).build() ).subscribe(subscriber);
+
+        subject.onNext(1);
+        subject.onNext(2);
+        subject.onNext(3);
+        subscriber.assertNoValues(); // documented: no flush until the batch is full
+
+        subject.onNext(4);
+        subscriber.assertValues(1, 2, 3, 4);
+
+        subject.onNext(5);
+        subject.onCompleted();
+        subscriber.assertValues(1, 2, 3, 4, 5); // the partial batch on completion
+        subscriber.assertCompleted();
+    }
+
+    @Test public void testFailingStepUnsubscribesUpstream() {
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final TestSubscriber<Integer> subscriber = TestSubscriber.create();
+
+        subject
+            .lift( FusedStage.<Integer>builder().map( i -> 10 / i ).batchSize(2).build() )
+            .subscribe(subscriber);
+
+        subject.onNext(0);
+        subject.onNext(1);
+
+        subscriber.assertError(ArithmeticException.class);
+        subscriber.assertNoValues();
+        assertFalse( subject.hasObservers() );
+    }
+}
@@ -0,0 +1,69 @@
+package com.dpopov.rxjava.v1.operators;
+
+import com.dpopov.rxjava.v1.batch.IntBatch;
+import com.dpopov.rxjava.v1.batch.IntBatchPool;
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+
+public class IntBufferOperatorTest {
+
+    @Test public void testBuffersIntoPooledBatches() {
+        final IntBatchPool pool = IntBatchPool.create(2, 10);
+        final TestSubscriber<Long> subscriber = TestSubscriber.create();
+
+        Observable.range(0, 25)
+            .lift( IntBufferOperator.create(pool) )
+            .map( batch -> {
+                final long sum = batch.sum();
+                batch.release(); // a pool of 2 is enough when each batch is released before the next one
+                return sum;
+            } )
+            .subscribe(subscriber);
+
+        subscriber.assertValues(45L, 145L, 110L); // 0..9, 10..19, 20..24
+        subscriber.assertCompleted();
+        assertEquals(2, pool.getFreeCount());
+    }
+
+    @Test public void testTranslatesBatchRequestsToItems() {
+        final IntBatchPool pool = IntBatchPool.create(4, 10);
+        final List<Long> requests = new CopyOnWriteArrayList<>();
+        final TestSubscriber<IntBatch> subscriber = TestSubscriber.create(0);
+
+        Observable.range(0, 1_000)
+            .doOnRequest(requests::add)
+            .lift( IntBufferOperator.create(pool) )
+            .subscribe(subscriber);
+
+        subscriber.assertNoValues();
+
+        subscriber.requestMore(2);
+        subscriber.assertValueCount(2);
+        assertEquals(20L, requests.stream().mapToLong(Long::longValue).sum());
+
+        subscriber.getOnNextEvents().forEach(IntBatch::release);
+        subscriber.requestMore(1);
+        subscriber.assertValueCount(3);
+        assertEquals(20, subscriber.getOnNextEvents().get(2).get(0));
+    }
+
+    @Test public void testReleasesPartialBatchOnError() {
+        final IntBatchPool pool = IntBatchPool.create(2, 10);
+        final TestSubscriber<IntBatch> subscriber = TestSubscriber.create();
+
+        Observable.range(0, 5)
+            .concatWith( Observable.error( new IllegalStateException() ) )
+            .lift( IntBufferOperator.create(pool) )
+            .subscribe(subscriber);
+
+        subscriber.assertNoValues();
+        subscriber.assertError(IllegalStateException.class);
+        assertEquals(2, pool.getFreeCount());
+    }
+}
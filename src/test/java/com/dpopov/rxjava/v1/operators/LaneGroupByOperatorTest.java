@@ -0,0 +1,177 @@
+package com.dpopov.rxjava.v1.operators;
+
+import com.dpopov.rxjava.concurrent.OverflowPolicy;
+import org.junit.Test;
+import rx.Observable;
+import rx.Scheduler;
+import rx.exceptions.MissingBackpressureException;
+import rx.observables.GroupedObservable;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LaneGroupByOperatorTest {
+
+    @Test public void testKeepsTheOrderOfEachKeyOnItsLane() {
+        final int lanes = 4;
+        final LaneGroupByOperator<Integer> groupBy = LaneGroupByOperator.<Integer>builder(i -> i % 100).lanes(lanes).build();
+        final Map<Long, Set<String>> threadsOfKey = new ConcurrentHashMap<>();
+
+        final TestSubscriber<Integer> subscriber = TestSubscriber.create();
+        Observable.range(0, 100_000)
+            .lift(groupBy)
+            .flatMap( group -> group
+                .doOnNext( i -> threadsOfKey.computeIfAbsent( group.getKey(), key -> ConcurrentHashMap.newKeySet() ).add( Thread.currentThread().getName() ) )
+                .toList()
+                .doOnNext( values -> {
+                    for (int i = 1; i < values.size(); i++) {
+                        assertEquals(values.get(i - 1) + 100, (int) values.get(i));
+                    }
+                } )
+                .map(List::size)
+            )
+            .subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(10, TimeUnit.SECONDS);
+        subscriber.assertNoErrors();
+        subscriber.assertValueCount(100);
+        for (final int size : subscriber.getOnNextEvents()) {
+            assertEquals(1_000, size);
+        }
+        for (final Set<String> threads : threadsOfKey.values()) {
+            assertEquals(1, threads.size());
+        }
+        assertEquals(100, groupBy.getCreatedCount());
+    }
+
+    @Test(timeout = 10_000) public void testBlocksAnUpstreamOnAComputationThread() {
+        final TestSubscriber<Integer> subscriber = TestSubscriber.create();
+        Observable.range(0, 10_000)
+            .subscribeOn( Schedulers.computation() ) // with computation lanes, one of them would be this thread
+            .lift( LaneGroupByOperator.<Integer>builder(i -> i % 10).build() )
+            .flatMap(Observable::count)
+            .subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertNoErrors();
+        subscriber.assertValueCount(10);
+        for (final int count : subscriber.getOnNextEvents()) {
+            assertEquals(1_000, count);
+        }
+    }
+
+    @Test public void testReleasesTheLanesWhenUnsubscribed() {
+        final TestScheduler scheduler = new TestScheduler();
+        final List<Scheduler.Worker> lanes = new ArrayList<>();
+        final LaneGroupByOperator<Integer> groupBy = LaneGroupByOperator.<Integer>builder(i -> i % 4).lanes(2)
+            .scheduler( new Scheduler() {
+                @Override public Worker createWorker() {
+                    final Worker lane = scheduler.createWorker();
+                    lanes.add(lane);
+                    return lane;
+                }
+            } )
+            .build();
+
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final TestSubscriber<Integer> subscriber = TestSubscriber.create();
+        subject.lift(groupBy).flatMap(group -> group).take(3).subscribe(subscriber);
+
+        for (int i = 0; i < 3; i++) {
+            subject.onNext(i);
+        }
+        scheduler.triggerActions();
+
+        subscriber.assertValues(0, 1, 2);
+        subscriber.assertCompleted();
+        assertFalse( subject.hasObservers() );
+        assertEquals(2, lanes.size());
+        for (final Scheduler.Worker lane : lanes) {
+            assertTrue( lane.isUnsubscribed() );
+        }
+    }
+
+    @Test public void testEvictsLeastRecentlyUsedAndIdleGroups() {
+        final TestScheduler scheduler = new TestScheduler();
+        final LaneGroupByOperator<Long> groupBy = LaneGroupByOperator.<Long>builder(Long::longValue)
+            .maxGroups(2).idleTimeout(1, TimeUnit.SECONDS).scheduler(scheduler).build();
+
+        final PublishSubject<Long> subject = PublishSubject.create();
+        final List<TestSubscriber<Long>> groups = new ArrayList<>();
+        subject.lift(groupBy).subscribe( group -> {
+            final TestSubscriber<Long> subscriber = TestSubscriber.create();
+            group.subscribe(subscriber);
+            groups.add(subscriber);
+        } );
+
+        subject.onNext(1L);
+        subject.onNext(2L);
+        subject.onNext(1L); // 2 is the least recently used
+        subject.onNext(3L);
+        scheduler.triggerActions();
+
+        assertEquals(3, groups.size());
+        groups.get(1).assertValues(2L);
+        groups.get(1).assertCompleted(); // evicted by 3
+        groups.get(0).assertNotCompleted();
+        assertEquals(1, groupBy.getEvictedCount());
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        subject.onNext(2L); // 1 and 3 idle for a second, 2 opens again
+        scheduler.triggerActions();
+
+        assertEquals(4, groups.size());
+        groups.get(0).assertValues(1L, 1L);
+        groups.get(0).assertCompleted();
+        groups.get(2).assertCompleted();
+        groups.get(3).assertValues(2L);
+        assertEquals(2, groupBy.getExpiredCount());
+
+        subject.onCompleted();
+        scheduler.triggerActions();
+        groups.get(3).assertCompleted();
+    }
+
+    @Test public void testOverflowFailsOnlyItsGroup() {
+        final TestScheduler scheduler = new TestScheduler();
+        final LaneGroupByOperator<Integer> groupBy = LaneGroupByOperator.<Integer>builder(i -> i % 2)
+            .groupCapacity(4, OverflowPolicy.ERROR).scheduler(scheduler).build();
+
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final List<TestSubscriber<Integer>> groups = new ArrayList<>();
+        subject.lift(groupBy).subscribe( (final GroupedObservable<Long, Integer> group) -> {
+            final TestSubscriber<Integer> subscriber = TestSubscriber.create();
+            group.subscribe(subscriber);
+            groups.add(subscriber);
+        } );
+
+        for (int i = 0; i < 5; i++) {
+            subject.onNext(i * 2); // the lane does not run: the 5th even value does not fit
+        }
+        subject.onNext(1);
+        scheduler.triggerActions();
+
+        groups.get(0).assertValues(0, 2, 4, 6);
+        groups.get(0).assertError(MissingBackpressureException.class);
+        groups.get(1).assertValues(1);
+        groups.get(1).assertNoErrors();
+
+        subject.onNext(10); // a new even group
+        scheduler.triggerActions();
+        assertEquals(3, groups.size());
+        groups.get(2).assertValues(10);
+        assertTrue( groupBy.toString().contains("created: 3") );
+    }
+}
@@ -0,0 +1,127 @@
+package com.dpopov.rxjava.v1.operators;
+
+import com.dpopov.rxjava.concurrent.OverflowPolicy;
+import org.junit.Test;
+import rx.exceptions.MissingBackpressureException;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferBackpressureOperatorTest {
+
+    @Test public void testDropOldestKeepsTheLatest() {
+        final RingBufferBackpressureOperator<Integer> operator = RingBufferBackpressureOperator.create(4, OverflowPolicy.DROP_OLDEST);
+        final TestSubscriber<Integer> subscriber = emitWithoutDemand(operator, 10);
+
+        assertEquals(6, operator.getDroppedCount());
+        subscriber.requestMore(10);
+        subscriber.assertValues(6, 7, 8, 9);
+    }
+
+    @Test public void testDropLatestKeepsTheOldest() {
+        final RingBufferBackpressureOperator<Integer> operator = RingBufferBackpressureOperator.create(4, OverflowPolicy.DROP_LATEST);
+        final TestSubscriber<Integer> subscriber = emitWithoutDemand(operator, 10);
+
+        assertEquals(6, operator.getDroppedCount());
+        subscriber.requestMore(10);
+        subscriber.assertValues(0, 1, 2, 3);
+    }
+
+    @Test public void testErrorComesAfterTheBufferedElements() {
+        final RingBufferBackpressureOperator<Integer> operator = RingBufferBackpressureOperator.create(4, OverflowPolicy.ERROR);
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final TestSubscriber<Integer> subscriber = TestSubscriber.create(0);
+        subject.lift(operator).subscribe(subscriber);
+
+        for (int i = 0; i < 5; i++) {
+            subject.onNext(i);
+        }
+        assertFalse( subject.hasObservers() ); // the upstream is stopped at the overflow
+        subscriber.assertNoTerminalEvent();
+
+        subscriber.requestMore(2);
+        subscriber.assertValues(0, 1);
+        subscriber.assertNoTerminalEvent();
+
+        subscriber.requestMore(2);
+        subscriber.assertValues(0, 1, 2, 3);
+        subscriber.assertError(MissingBackpressureException.class);
+        assertEquals(0, operator.getDroppedCount());
+    }
+
+    @Test(timeout = 10_000) public void testBlockResumesAfterRequest() throws InterruptedException {
+        final RingBufferBackpressureOperator<Integer> operator = RingBufferBackpressureOperator.create(4, OverflowPolicy.BLOCK);
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final TestSubscriber<Integer> subscriber = TestSubscriber.create(0);
+        subject.lift(operator).subscribe(subscriber);
+
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                subject.onNext(i);
+            }
+            subject.onCompleted();
+        });
+        producer.start();
+
+        while (operator.getBlockedCount() == 0) {
+            LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos(1) );
+        }
+        producer.join(50);
+        assertTrue( producer.isAlive() ); // waits for room, nothing dropped
+        subscriber.assertNoValues();
+
+        subscriber.requestMore(100);
+        producer.join();
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add(i);
+        }
+        subscriber.assertReceivedOnNext(expected);
+        subscriber.assertCompleted();
+        assertEquals(0, operator.getDroppedCount());
+    }
+
+    @Test public void testDrainsOnlyWhatIsRequested() {
+        final RingBufferBackpressureOperator<Integer> operator = RingBufferBackpressureOperator.create(16, OverflowPolicy.ERROR);
+        final TestSubscriber<Integer> subscriber = emitWithoutDemand(operator, 10);
+
+        subscriber.requestMore(3);
+        subscriber.assertValues(0, 1, 2);
+
+        subscriber.requestMore(5);
+        subscriber.assertValueCount(8);
+        subscriber.assertNoTerminalEvent(); // completed upstream, 2 elements left
+
+        subscriber.requestMore(2);
+        subscriber.assertValueCount(10);
+        subscriber.assertCompleted();
+    }
+
+    /**
+     * @return subscriber without demand, after {@code count} elements and the completion
+     */
+    private static TestSubscriber<Integer> emitWithoutDemand(final RingBufferBackpressureOperator<Integer> operator, final int count) {
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final TestSubscriber<Integer> subscriber = TestSubscriber.create(0);
+        subject.lift(operator).subscribe(subscriber);
+
+        for (int i = 0; i < count; i++) {
+            subject.onNext(i);
+        }
+        subject.onCompleted();
+
+        subscriber.assertNoValues();
+        subscriber.assertNoTerminalEvent();
+        return subscriber;
+    }
+}
@@ -0,0 +1,132 @@
+package com.dpopov.rxjava.v1.operators;
+
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SummarySampleOperatorTest {
+
+    @Test public void testSummarizesEveryValueOfSeveralProducers() throws InterruptedException {
+        final int producers = 4;
+        final int count = 1_000_000;
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final TestSubscriber<IntervalSummary> subscriber = TestSubscriber.create();
+
+        subject
+            .lift( SummarySampleOperator.create(1, TimeUnit.MILLISECONDS, Integer::longValue, Schedulers.computation()) )
+            .subscribe(subscriber);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            final int first = p * count;
+            executor.submit( () -> IntStream.range(first, first + count).forEach(subject::onNext) );
+        }
+        executor.shutdown();
+        assertTrue( executor.awaitTermination(30, TimeUnit.SECONDS) );
+        subject.onCompleted();
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertNoErrors();
+        subscriber.assertCompleted();
+
+        long total = 0;
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (final IntervalSummary summary : subscriber.getOnNextEvents()) {
+            total += summary.getCount();
+            sum += summary.getSum();
+            min = Math.min( min, summary.getMin() );
+            max = Math.max( max, summary.getMax() );
+        }
+
+        final long n = (long) producers * count;
+        assertEquals(n, total);
+        assertEquals(n * (n - 1) / 2, sum);
+        assertEquals(0, min);
+        assertEquals(n - 1, max);
+    }
+
+    @Test public void testConflatesWithoutDemandAndSkipsEmptyPeriods() {
+        final TestScheduler scheduler = new TestScheduler();
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final SummarySampleOperator<Integer> operator = SummarySampleOperator.create(100, TimeUnit.MILLISECONDS, Integer::longValue, scheduler).withQuantiles();
+        final TestSubscriber<IntervalSummary> subscriber = TestSubscriber.create(0);
+
+        subject.lift(operator).subscribe(subscriber);
+
+        IntStream.rangeClosed(1, 100).forEach(subject::onNext);
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        subscriber.assertNoValues(); // no demand, kept for the next period
+
+        IntStream.rangeClosed(101, 200).forEach(subject::onNext);
+        subscriber.requestMore(1);
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        subscriber.assertValueCount(1);
+
+        final IntervalSummary summary = subscriber.getOnNextEvents().get(0);
+        assertEquals(1, summary.getInterval());
+        assertEquals(200, summary.getCount());
+        assertEquals(200 * 201 / 2, summary.getSum());
+        assertEquals(1, summary.getMin());
+        assertEquals(200, summary.getMax());
+        assertEquals(200, summary.getLast());
+        assertEquals(100.5, summary.getMean(), 0.001);
+        assertEquals(100, summary.getValueAtPercentile(50), 3);
+        assertEquals(1, operator.getConflatedCount());
+
+        subscriber.requestMore(10);
+        scheduler.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+        subscriber.assertValueCount(1); // nothing new
+
+        subject.onNext(7);
+        subject.onCompleted();
+        scheduler.triggerActions();
+        subscriber.assertValueCount(2);
+        subscriber.assertCompleted();
+        assertEquals(7, subscriber.getOnNextEvents().get(1).getLast());
+    }
+
+    @Test public void testLastIsNewestOfAllProducers() throws InterruptedException {
+        final TestScheduler scheduler = new TestScheduler();
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final TestSubscriber<IntervalSummary> subscriber = TestSubscriber.create();
+
+        subject.lift( SummarySampleOperator.create(100, TimeUnit.MILLISECONDS, Integer::longValue, scheduler) ).subscribe(subscriber);
+
+        final Thread busy = new Thread( () -> IntStream.range(0, 1_000).forEach(subject::onNext) );
+        busy.start();
+        busy.join();
+        final Thread late = new Thread( () -> subject.onNext(-42) ); // fewer values, but written after all the others
+        late.start();
+        late.join();
+
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        subscriber.assertValueCount(1);
+        assertEquals(1_001, subscriber.getOnNextEvents().get(0).getCount());
+        assertEquals(-42, subscriber.getOnNextEvents().get(0).getLast());
+    }
+
+    @Test public void testCompletesWithoutDemandWhenNothingIsLeft() {
+        final TestScheduler scheduler = new TestScheduler();
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final TestSubscriber<IntervalSummary> subscriber = TestSubscriber.create(0);
+
+        subject.lift( SummarySampleOperator.create(100, TimeUnit.MILLISECONDS, Integer::longValue, scheduler) ).subscribe(subscriber);
+
+        subject.onCompleted();
+        scheduler.triggerActions();
+        subscriber.assertNoValues();
+        subscriber.assertCompleted();
+    }
+}